@@ -0,0 +1,3 @@
+-- Versão por tarefa, incrementada a cada alteração e enviada nos patches realtime (TASK_PATCH).
+-- O schema é validado pelo Hibernate (ddl-auto=validate): aplicar antes de subir a nova versão.
+ALTER TABLE tarefas ADD COLUMN IF NOT EXISTS versao BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,3 @@
+-- Sequência de mutações por board: incrementada na mesma transação de cada alteração de
+-- tarefa, coluna ou nota e enviada nos eventos realtime ("seq") e no SNAPSHOT da inscrição.
+ALTER TABLE boards ADD COLUMN IF NOT EXISTS seq BIGINT NOT NULL DEFAULT 0;
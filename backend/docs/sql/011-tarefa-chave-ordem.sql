@@ -0,0 +1,18 @@
+-- Chave fracionária de ordenação das tarefas dentro da coluna (ver ChaveOrdem): mover um cartão
+-- grava só a chave dele, entre as dos vizinhos. COLLATE "C" faz a comparação byte a byte,
+-- independente do locale do banco. Aplicar antes de subir a nova versão (ddl-auto=validate).
+ALTER TABLE tarefas ADD COLUMN IF NOT EXISTS chave_ordem VARCHAR(64) COLLATE "C";
+
+-- Migração das posições atuais: em cada coluna, na ordem de posicao (empates por id), chaves
+-- hexadecimais de 8 casas espaçadas de 16^4. Os dígitos 0-9a-f têm a mesma ordem em base 36, e
+-- cabem até 65535 tarefas por coluna.
+UPDATE tarefas t
+SET chave_ordem = rtrim(lpad(to_hex(o.n * 65536), 8, '0'), '0')
+FROM (SELECT id, row_number() OVER (PARTITION BY column_id ORDER BY posicao NULLS LAST, id) AS n
+      FROM tarefas) o
+WHERE t.id = o.id AND t.chave_ordem IS NULL;
+
+ALTER TABLE tarefas ALTER COLUMN chave_ordem SET NOT NULL;
+
+-- Listagem da coluna na ordem de exibição e busca da última chave (criação no fim da coluna)
+CREATE INDEX IF NOT EXISTS idx_tarefas_column_chave ON tarefas (column_id, chave_ordem, id);
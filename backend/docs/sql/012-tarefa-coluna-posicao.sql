@@ -0,0 +1,3 @@
+-- Recuperação do contador de posições por coluna (AlocadorPosicoes): max(posicao) da coluna
+-- lido direto do índice, sem varrer as tarefas da board.
+CREATE INDEX IF NOT EXISTS idx_tarefas_column_posicao ON tarefas (column_id, posicao);
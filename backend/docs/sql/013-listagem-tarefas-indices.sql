@@ -0,0 +1,7 @@
+-- Listagens de tarefas ordenadas no banco (TarefaRepository.findResumosByBoardId /
+-- findResumosAcessiveis). O PostgreSQL não indexa chaves estrangeiras sozinho: sem estes
+-- índices, abrir uma board ou listar as tarefas do usuário varre a tabela inteira.
+CREATE INDEX IF NOT EXISTS idx_tarefas_board ON tarefas (board_id);
+CREATE INDEX IF NOT EXISTS idx_boards_usuario ON boards (usuario_id);
+-- a unique (board_id, shared_with_id) não serve para buscar por quem recebeu o compartilhamento
+CREATE INDEX IF NOT EXISTS idx_board_shares_shared_with ON board_shares (shared_with_id);
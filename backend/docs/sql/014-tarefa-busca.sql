@@ -0,0 +1,16 @@
+-- Busca de tarefas (GET /tarefas/search). O vetor de busca é uma coluna gerada: o próprio banco
+-- o mantém a cada INSERT/UPDATE de titulo/descricao, sem gatilho nem código na aplicação. Fica
+-- fora do mapeamento da entidade (ddl-auto=validate ignora colunas extras).
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+ALTER TABLE tarefas ADD COLUMN IF NOT EXISTS busca tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('portuguese', coalesce(titulo, '')), 'A') ||
+        setweight(to_tsvector('portuguese', coalesce(descricao, '')), 'B')
+    ) STORED;
+
+-- Texto completo (com radicais do português): titulo pesa mais que descricao no ranking
+CREATE INDEX IF NOT EXISTS idx_tarefas_busca ON tarefas USING gin (busca);
+
+-- Tolerância a erros de digitação no título (operador % do pg_trgm)
+CREATE INDEX IF NOT EXISTS idx_tarefas_titulo_trgm ON tarefas USING gin (titulo gin_trgm_ops);
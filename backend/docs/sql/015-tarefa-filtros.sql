@@ -0,0 +1,24 @@
+-- Listagens filtradas e ordenadas no banco (TarefaFiltroRepository). Cada índice começa pelo
+-- escopo (board ou usuário) e segue pela coluna do filtro/ordenação, então uma visão filtrada
+-- lê só as entradas que casam, já na ordem pedida.
+
+-- status=... (e ordenação por data limite dentro do status)
+CREATE INDEX IF NOT EXISTS idx_tarefas_board_status ON tarefas (board_id, status, data_limite);
+
+-- due=overdue: só tarefas abertas com data limite; o predicado precisa ser o mesmo da consulta
+CREATE INDEX IF NOT EXISTS idx_tarefas_board_vencidas ON tarefas (board_id, data_limite)
+    WHERE status IN ('PENDENTE', 'EM_ANDAMENTO') AND data_limite IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_tarefas_usuario_vencidas ON tarefas (usuario_id, data_limite)
+    WHERE status IN ('PENDENTE', 'EM_ANDAMENTO') AND data_limite IS NOT NULL;
+
+-- due=week e sort=dueDate
+CREATE INDEX IF NOT EXISTS idx_tarefas_board_data_limite ON tarefas (board_id, data_limite, id);
+
+-- sort=priority: peso do enum (PrioridadeTarefa.getPeso), não a ordem alfabética do nome.
+-- A expressão tem de ser idêntica a TarefaFiltroRepository.PESO_PRIORIDADE.
+CREATE INDEX IF NOT EXISTS idx_tarefas_board_prioridade ON tarefas (board_id,
+    (CASE prioridade WHEN 'BAIXA' THEN 1 WHEN 'NORMAL' THEN 2 WHEN 'ALTA' THEN 3 WHEN 'URGENTE' THEN 4 END), id);
+
+-- createdFrom/createdTo e sort=createdAt
+CREATE INDEX IF NOT EXISTS idx_tarefas_board_criacao ON tarefas (board_id, data_criacao, id);
+CREATE INDEX IF NOT EXISTS idx_tarefas_usuario_criacao ON tarefas (usuario_id, data_criacao, id);
@@ -0,0 +1,5 @@
+-- Controle otimista (@Version) em boards e colunas; tarefas já têm versao (009). Com If-Match, as
+-- escritas viram UPDATE ... WHERE versao = ?, sem lock de linha: um conflito vira 412.
+-- O schema é validado pelo Hibernate (ddl-auto=validate): aplicar antes de subir a nova versão.
+ALTER TABLE boards ADD COLUMN IF NOT EXISTS versao BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE board_columns ADD COLUMN IF NOT EXISTS versao BIGINT NOT NULL DEFAULT 0;
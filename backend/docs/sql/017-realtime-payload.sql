@@ -0,0 +1,8 @@
+-- Barramento realtime via PostgreSQL (app.realtime.bus=postgres): eventos maiores que o limite do
+-- NOTIFY são gravados aqui e só o id trafega; as linhas são apagadas após a retenção
+-- (app.realtime.bus.payload-retention-ms). Aplicar antes de ligar o barramento.
+CREATE TABLE IF NOT EXISTS realtime_payload (
+    id BIGSERIAL PRIMARY KEY,
+    corpo TEXT NOT NULL,
+    criado_em TIMESTAMPTZ NOT NULL DEFAULT now()
+);
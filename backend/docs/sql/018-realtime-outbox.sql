@@ -0,0 +1,20 @@
+-- Outbox transacional dos eventos realtime (app.realtime.outbox.enabled=true): o evento é gravado
+-- na transação da alteração e marcado como publicado depois do commit; o relay publica as linhas
+-- que ficaram pendentes. Aplicar antes de ligar o outbox.
+CREATE TABLE IF NOT EXISTS realtime_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    tipo VARCHAR(20) NOT NULL,
+    board_id BIGINT,
+    email VARCHAR(255),
+    chave VARCHAR(255),
+    seq BIGINT NOT NULL DEFAULT 0,
+    evento VARCHAR(64),
+    tarefa_id BIGINT,
+    autor VARCHAR(255),
+    payload TEXT NOT NULL,
+    criado_em TIMESTAMPTZ NOT NULL DEFAULT now(),
+    publicado_em TIMESTAMPTZ
+);
+
+-- Relay: só as pendentes, em ordem de id
+CREATE INDEX IF NOT EXISTS idx_realtime_outbox_pendentes ON realtime_outbox (id) WHERE publicado_em IS NULL;
@@ -4,12 +4,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Classe principal que inicializa a aplicação Orbitr.
  * Orbitr - Seu espaço de produtividade: transformando ideias em realidade.
  */
 @SpringBootApplication
+@EnableScheduling
 public class TaskManagerApplication {
     private static final Logger logger = LoggerFactory.getLogger(TaskManagerApplication.class);
     public static void main(String[] args) {
@@ -0,0 +1,21 @@
+package com.example.taskmanager.config;
+
+import com.fasterxml.jackson.datatype.hibernate6.Hibernate6Module;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Serialização de entidades JPA. Sem open-in-view, a sessão já está fechada quando a resposta é
+ * escrita: uma associação lazy não carregada sai como {@code {"id": ...}} em vez de disparar
+ * uma consulta (ou falhar). As leituras usam DTOs; isto cobre as respostas de escrita e os
+ * eventos realtime que ainda levam entidades.
+ */
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    public Hibernate6Module hibernate6Module() {
+        return new Hibernate6Module()
+                .configure(Hibernate6Module.Feature.SERIALIZE_IDENTIFIER_FOR_LAZY_NOT_LOADED_OBJECTS, true);
+    }
+}
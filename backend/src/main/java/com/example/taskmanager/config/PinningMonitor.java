@@ -0,0 +1,108 @@
+package com.example.taskmanager.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Diagnóstico de pinning ({@code app.diagnostics.pinning.enabled=true}): assina o evento JFR
+ * {@code jdk.VirtualThreadPinned} e conta, por origem, as vezes em que uma virtual thread ficou
+ * presa ao carrier por mais que o limite (bloqueio dentro de synchronized ou de código nativo).
+ * A primeira ocorrência de cada origem é logada com a pilha completa.
+ * <p>
+ * A origem é o primeiro frame fora do JDK, o que costuma apontar a biblioteca ou o trecho
+ * nosso que segurava o monitor (driver JDBC, SMTP, escrita do SSE...).
+ */
+@Component
+@ConditionalOnProperty(name = "app.diagnostics.pinning.enabled", havingValue = "true")
+public class PinningMonitor {
+    private static final Logger logger = LoggerFactory.getLogger(PinningMonitor.class);
+
+    private static final String EVENTO = "jdk.VirtualThreadPinned";
+
+    @Value("${app.diagnostics.pinning.threshold-ms:20}")
+    private long limiteMs;
+
+    private final Map<String, LongAdder> porOrigem = new ConcurrentHashMap<>();
+    private final AtomicLong eventos = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private RecordingStream stream;
+
+    @PostConstruct
+    void iniciar() {
+        stream = new RecordingStream();
+        stream.enable(EVENTO).withThreshold(Duration.ofMillis(limiteMs)).withStackTrace();
+        stream.onEvent(EVENTO, this::registrar);
+        stream.startAsync();
+        logger.info("Monitor de pinning de virtual threads ativo (limite {} ms)", limiteMs);
+    }
+
+    private void registrar(RecordedEvent evento) {
+        eventos.incrementAndGet();
+        totalNanos.addAndGet(evento.getDuration().toNanos());
+        RecordedStackTrace pilha = evento.getStackTrace();
+        List<RecordedFrame> frames = pilha == null ? List.of() : pilha.getFrames();
+        String origem = origem(frames);
+        LongAdder contador = porOrigem.computeIfAbsent(origem, k -> {
+            logger.warn("Virtual thread presa ao carrier por {} ms em {}:\n{}", evento.getDuration().toMillis(), k,
+                    formatar(frames));
+            return new LongAdder();
+        });
+        contador.increment();
+    }
+
+    private static String origem(List<RecordedFrame> frames) {
+        for (RecordedFrame f : frames) {
+            if (!f.isJavaFrame()) continue;
+            String tipo = f.getMethod().getType().getName();
+            if (tipo.startsWith("java.") || tipo.startsWith("jdk.") || tipo.startsWith("sun.")) continue;
+            return tipo + "." + f.getMethod().getName();
+        }
+        if (frames.isEmpty()) return "desconhecida";
+        RecordedFrame topo = frames.get(0);
+        return topo.getMethod().getType().getName() + "." + topo.getMethod().getName();
+    }
+
+    private static String formatar(List<RecordedFrame> frames) {
+        StringBuilder sb = new StringBuilder();
+        for (RecordedFrame f : frames) {
+            sb.append("    at ").append(f.getMethod().getType().getName()).append('.')
+                    .append(f.getMethod().getName()).append(':').append(f.getLineNumber()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("thresholdMs", limiteMs);
+        stats.put("pinnedEvents", eventos.get());
+        stats.put("pinnedMillis", totalNanos.get() / 1_000_000);
+        Map<String, Long> origens = new LinkedHashMap<>();
+        porOrigem.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()))
+                .forEach(e -> origens.put(e.getKey(), e.getValue().sum()));
+        stats.put("bySource", origens);
+        return stats;
+    }
+
+    @PreDestroy
+    void encerrar() {
+        if (stream != null) stream.close();
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.taskmanager.config;
+
+import com.example.taskmanager.realtime.CborCodec;
+import com.example.taskmanager.realtime.RealtimeWebSocketHandler;
+import com.example.taskmanager.realtime.TaskStreamService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * Endpoint WebSocket do stream realtime ({@code app.realtime.websocket.enabled=true}).
+ * O handshake passa pela cadeia de segurança como qualquer requisição autenticada.
+ */
+@Configuration
+@EnableWebSocket
+@ConditionalOnProperty(name = "app.realtime.websocket.enabled", havingValue = "true")
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final TaskStreamService streamService;
+    private final ObjectMapper objectMapper;
+    private final CborCodec cborCodec;
+
+    @Value("${app.frontend.origin:http://localhost:4200}")
+    private String frontendOrigin;
+
+    public WebSocketConfig(TaskStreamService streamService, ObjectMapper objectMapper, CborCodec cborCodec) {
+        this.streamService = streamService;
+        this.objectMapper = objectMapper;
+        this.cborCodec = cborCodec;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(new RealtimeWebSocketHandler(streamService, objectMapper, cborCodec), "/tarefas/ws")
+                .setAllowedOrigins(frontendOrigin);
+    }
+}
@@ -1,8 +1,12 @@
 package com.example.taskmanager.controller;
 
+import com.example.taskmanager.dto.BoardResumo;
 import com.example.taskmanager.model.Board;
 import com.example.taskmanager.model.BoardColumn;
+import com.example.taskmanager.realtime.TaskStreamService;
+import com.example.taskmanager.service.BoardPayloadCache;
 import com.example.taskmanager.service.BoardService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -18,9 +22,13 @@ import java.util.Map;
 public class BoardController {
 
     private final BoardService boardService;
+    private final TaskStreamService streamService;
+    private final BoardPayloadCache payloadCache;
 
-    public BoardController(BoardService boardService) {
+    public BoardController(BoardService boardService, TaskStreamService streamService, BoardPayloadCache payloadCache) {
         this.boardService = boardService;
+        this.streamService = streamService;
+        this.payloadCache = payloadCache;
     }
 
     private String currentEmail() {
@@ -29,7 +37,7 @@ public class BoardController {
     }
 
     @GetMapping
-    public ResponseEntity<List<Board>> listar() {
+    public ResponseEntity<List<BoardResumo>> listar() {
         return ResponseEntity.ok(boardService.listar(currentEmail()));
     }
 
@@ -46,9 +54,15 @@ public class BoardController {
         return ResponseEntity.created(URI.create("/api/boards/"+ b.getId())).body(b);
     }
 
+    /**
+     * Renomeia a board; com If-Match (ETag da versão), 412 com a board atual se outra escrita
+     * chegou antes. O mesmo vale para renomear coluna.
+     */
     @PatchMapping("/{id}")
-    public ResponseEntity<Board> renomear(@PathVariable Long id, @RequestBody Map<String,String> body) {
-        return ResponseEntity.ok(boardService.renomear(id, body.getOrDefault("nome","Board")));
+    public ResponseEntity<Board> renomear(@PathVariable Long id, @RequestBody Map<String,String> body,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Board b = boardService.renomear(id, body.getOrDefault("nome","Board"), RespostaCondicional.versaoEsperada(ifMatch));
+        return ResponseEntity.ok().eTag(RespostaCondicional.etag(b.getVersao())).body(b);
     }
 
     @GetMapping("/{id}/members")
@@ -56,15 +70,35 @@ public class BoardController {
         return ResponseEntity.ok(boardService.listarMembros(id, currentEmail()));
     }
 
+    /**
+     * Heartbeat de presença: quem chama está vendo a board (repetir antes de app.realtime.presence.ttl-ms).
+     * Responde com quem está vendo agora; as mudanças seguintes chegam pelo stream como PRESENCE.
+     */
+    @PostMapping("/{id}/presence")
+    public ResponseEntity<List<Map<String, Object>>> presenca(@PathVariable Long id) {
+        return ResponseEntity.ok(streamService.registrarPresenca(id, currentEmail()));
+    }
+
+    @DeleteMapping("/{id}/presence")
+    public ResponseEntity<Void> sairDaBoard(@PathVariable Long id) {
+        streamService.sairDaBoard(id, currentEmail());
+        return ResponseEntity.noContent().build();
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deletar(@PathVariable Long id) {
         boardService.deletar(id);
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Colunas da board, como GET condicional (ETag pela versão da board, 304 com If-None-Match).
+     */
     @GetMapping("/{id}/columns")
-    public ResponseEntity<List<BoardColumn>> colunas(@PathVariable Long id) {
-        return ResponseEntity.ok(boardService.colunas(id));
+    public ResponseEntity<byte[]> colunas(@PathVariable Long id,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        BoardPayloadCache.Versao versao = payloadCache.versao(id, currentEmail());
+        return RespostaCondicional.responder(ifNoneMatch, payloadCache, "colunas", versao, () -> boardService.colunas(id));
     }
 
     @PostMapping("/{id}/columns")
@@ -74,8 +108,11 @@ public class BoardController {
     }
 
     @PatchMapping("/columns/{columnId}")
-    public ResponseEntity<BoardColumn> renomearColuna(@PathVariable Long columnId, @RequestBody Map<String,String> body) {
-        return ResponseEntity.ok(boardService.renomearColuna(columnId, body.getOrDefault("titulo","Coluna")));
+    public ResponseEntity<BoardColumn> renomearColuna(@PathVariable Long columnId, @RequestBody Map<String,String> body,
+                                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        BoardColumn c = boardService.renomearColuna(columnId, body.getOrDefault("titulo","Coluna"),
+                RespostaCondicional.versaoEsperada(ifMatch));
+        return ResponseEntity.ok().eTag(RespostaCondicional.etag(c.getVersao())).body(c);
     }
 
     @DeleteMapping("/columns/{columnId}")
@@ -93,12 +130,12 @@ public class BoardController {
         debug.put("requestedUser", email);
         
         try {
-            List<Board> boards = boardService.listar(email);
+            List<BoardResumo> boards = boardService.listar(email);
             debug.put("totalBoards", boards.size());
             debug.put("boards", boards.stream().map(b -> Map.of(
-                "id", b.getId(),
-                "nome", b.getNome(),
-                "owner", b.getUsuario().getEmail()
+                "id", b.id(),
+                "nome", b.nome(),
+                "owner", b.usuario().email()
             )).toList());
             
             // Debug das shares no banco
@@ -1,5 +1,6 @@
 package com.example.taskmanager.controller;
 
+import com.example.taskmanager.dto.BoardShareResumo;
 import com.example.taskmanager.model.BoardShare;
 import com.example.taskmanager.model.SharePermission;
 import com.example.taskmanager.service.BoardService;
@@ -36,11 +37,11 @@ public class BoardShareController {
     }
     
     @GetMapping("/{boardId}/shared")
-    public ResponseEntity<List<BoardShare>> listarCompartilhamentos(
+    public ResponseEntity<List<BoardShareResumo>> listarCompartilhamentos(
             @PathVariable Long boardId,
             Authentication auth) {
         
-        List<BoardShare> shares = boardService.listarCompartilhamentos(boardId, auth.getName());
+        List<BoardShareResumo> shares = boardService.listarCompartilhamentos(boardId, auth.getName());
         return ResponseEntity.ok(shares);
     }
     
@@ -0,0 +1,41 @@
+package com.example.taskmanager.controller;
+
+import com.example.taskmanager.config.PinningMonitor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Diagnóstico do modelo de threads: modo virtual ativo e pinning registrado pelo {@link PinningMonitor}.
+ * Só existe com {@code app.diagnostics.enabled=true}; em produção o endpoint fica desligado.
+ */
+@RestController
+@ConditionalOnProperty(name = "app.diagnostics.enabled", havingValue = "true")
+@RequestMapping("/api/diagnostics")
+public class DiagnosticsController {
+
+    private final Optional<PinningMonitor> pinningMonitor;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    public DiagnosticsController(Optional<PinningMonitor> pinningMonitor) {
+        this.pinningMonitor = pinningMonitor;
+    }
+
+    @GetMapping("/threads")
+    public ResponseEntity<Map<String, Object>> threads() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("virtualThreads", virtualThreads);
+        body.put("pinningMonitor", pinningMonitor.isPresent());
+        pinningMonitor.ifPresent(m -> body.putAll(m.stats()));
+        return ResponseEntity.ok(body);
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.taskmanager.controller;
 
+import com.example.taskmanager.service.ConflitoVersaoException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -29,4 +31,24 @@ public class GlobalExceptionHandler {
                 .map(f -> f.getField() + ": " + f.getDefaultMessage()).toList());
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(body);
     }
+
+    @ExceptionHandler(ConflitoVersaoException.class)
+    public ResponseEntity<Map<String, Object>> handleConflitoVersao(ConflitoVersaoException ex) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("error", ex.getMessage());
+        body.put("status", 412);
+        body.put("atual", ex.getAtual());
+        ResponseEntity.BodyBuilder resposta = ResponseEntity.status(HttpStatus.PRECONDITION_FAILED);
+        if (ex.getVersaoAtual() != null) resposta.eTag(RespostaCondicional.etag(ex.getVersaoAtual()));
+        return resposta.body(body);
+    }
+
+    // escrita concorrente entre a verificação do If-Match e o commit (UPDATE ... WHERE versao = ?)
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, Object>> handleOptimisticLock(ObjectOptimisticLockingFailureException ex) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("error", "Alterado por outra requisição; recarregue e tente de novo");
+        body.put("status", 412);
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(body);
+    }
 }
@@ -1,6 +1,6 @@
 package com.example.taskmanager.controller;
 
-import com.example.taskmanager.model.NotaTarefa;
+import com.example.taskmanager.dto.NotaResumo;
 import com.example.taskmanager.service.NotaTarefaService;
 import com.example.taskmanager.realtime.TaskStreamService;
 import jakarta.validation.Valid;
@@ -32,7 +32,7 @@ public class NotaTarefaController {
      * Cria uma nova nota para uma tarefa
      */
     @PostMapping("/tarefa/{tarefaId}")
-    public ResponseEntity<NotaTarefa> criarNota(@PathVariable Long tarefaId, @Valid @RequestBody Map<String, Object> request) {
+    public ResponseEntity<NotaResumo> criarNota(@PathVariable Long tarefaId, @Valid @RequestBody Map<String, Object> request) {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String email = auth.getName();
         
@@ -41,23 +41,23 @@ public class NotaTarefaController {
         Long destinatarioId = request.get("destinatarioId") != null ? 
             Long.parseLong(request.get("destinatarioId").toString()) : null;
         
-        NotaTarefa nota = notaService.criarNota(tarefaId, email, conteudo, publica, destinatarioId);
+        NotaResumo nota = notaService.criarNota(tarefaId, email, conteudo, publica, destinatarioId);
         try {
-            Long boardId = nota.getTarefa() != null && nota.getTarefa().getBoard() != null ? nota.getTarefa().getBoard().getId() : null;
-            streamService.sendGeneric(Map.of("type", "NOTE_CREATED", "note", nota, "tarefaId", nota.getTarefa().getId(), "boardId", boardId));
+            Long boardId = notaService.boardDaTarefa(nota.tarefa().id());
+            streamService.sendGeneric(Map.of("type", "NOTE_CREATED", "note", nota, "tarefaId", nota.tarefa().id(), "boardId", boardId));
         } catch (Exception ignored) {}
-        return ResponseEntity.created(URI.create("/notas/" + nota.getId())).body(nota);
+        return ResponseEntity.created(URI.create("/notas/" + nota.id())).body(nota);
     }
 
     /**
      * Lista notas visíveis para o usuário em uma tarefa
      */
     @GetMapping("/tarefa/{tarefaId}")
-    public ResponseEntity<List<NotaTarefa>> listarNotasTarefa(@PathVariable Long tarefaId) {
+    public ResponseEntity<List<NotaResumo>> listarNotasTarefa(@PathVariable Long tarefaId) {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String email = auth.getName();
         
-        List<NotaTarefa> notas = notaService.listarNotasVisiveis(tarefaId, email);
+        List<NotaResumo> notas = notaService.listarNotasVisiveis(tarefaId, email);
         return ResponseEntity.ok(notas);
     }
 
@@ -65,14 +65,14 @@ public class NotaTarefaController {
      * Marca uma nota como visualizada
      */
     @PatchMapping("/{notaId}/visualizar")
-    public ResponseEntity<NotaTarefa> marcarComoVista(@PathVariable Long notaId) {
+    public ResponseEntity<NotaResumo> marcarComoVista(@PathVariable Long notaId) {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String email = auth.getName();
         
-        NotaTarefa nota = notaService.marcarComoVista(notaId, email);
+        NotaResumo nota = notaService.marcarComoVista(notaId, email);
         try {
-            Long boardId = nota.getTarefa() != null && nota.getTarefa().getBoard() != null ? nota.getTarefa().getBoard().getId() : null;
-            streamService.sendGeneric(Map.of("type", "NOTE_UPDATED", "note", nota, "tarefaId", nota.getTarefa().getId(), "boardId", boardId));
+            Long boardId = notaService.boardDaTarefa(nota.tarefa().id());
+            streamService.sendGeneric(Map.of("type", "NOTE_UPDATED", "note", nota, "tarefaId", nota.tarefa().id(), "boardId", boardId));
         } catch (Exception ignored) {}
         return ResponseEntity.ok(nota);
     }
@@ -98,9 +98,9 @@ public class NotaTarefaController {
         String email = auth.getName();
         
         try {
-            NotaTarefa nota = notaService.buscarPorId(notaId);
-            Long tarefaId = nota.getTarefa() != null ? nota.getTarefa().getId() : null;
-            Long boardId = nota.getTarefa() != null && nota.getTarefa().getBoard() != null ? nota.getTarefa().getBoard().getId() : null;
+            NotaResumo nota = notaService.buscarResumo(notaId);
+            Long tarefaId = nota.tarefa().id();
+            Long boardId = notaService.boardDaTarefa(tarefaId);
             notaService.deletarNota(notaId, email);
             try { streamService.sendGeneric(Map.of("type", "NOTE_DELETED", "id", notaId, "tarefaId", tarefaId, "boardId", boardId)); } catch (Exception ignored) {}
         } catch (Exception e) {
@@ -114,8 +114,8 @@ public class NotaTarefaController {
      * Busca nota por ID
      */
     @GetMapping("/{notaId}")
-    public ResponseEntity<NotaTarefa> buscarNota(@PathVariable Long notaId) {
-        NotaTarefa nota = notaService.buscarPorId(notaId);
+    public ResponseEntity<NotaResumo> buscarNota(@PathVariable Long notaId) {
+        NotaResumo nota = notaService.buscarResumo(notaId);
         return ResponseEntity.ok(nota);
     }
 }
\ No newline at end of file
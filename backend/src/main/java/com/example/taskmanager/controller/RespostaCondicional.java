@@ -0,0 +1,67 @@
+package com.example.taskmanager.controller;
+
+import com.example.taskmanager.service.BoardPayloadCache;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.util.function.Supplier;
+
+/**
+ * Requisições condicionais. Leituras de board: 304 quando o If-None-Match do cliente já tem a
+ * versão atual; senão o JSON do {@link BoardPayloadCache} com o ETag ("no-cache" faz o navegador
+ * guardar a resposta e revalidar a cada uso, sem servir nada velho). Escritas em tarefa, coluna
+ * e board: If-Match com o ETag da versão ({@link #etag(long)}) que o cliente editou.
+ */
+final class RespostaCondicional {
+
+    private RespostaCondicional() {}
+
+    static ResponseEntity<byte[]> responder(String ifNoneMatch, BoardPayloadCache cache, String recurso,
+                                            BoardPayloadCache.Versao versao, Supplier<?> carregar) {
+        String etag = versao.etag(recurso);
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        if (corresponde(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl)
+                .contentType(MediaType.APPLICATION_JSON).body(cache.json(recurso, versao, carregar));
+    }
+
+    /** ETag forte de um recurso com {@code @Version}. */
+    static String etag(long versao) {
+        return "\"" + versao + "\"";
+    }
+
+    /**
+     * Versão exigida pelo If-Match; nula sem o cabeçalho ou com "*" (escrita incondicional).
+     *
+     * @throws IllegalArgumentException se o valor não é um ETag de versão
+     */
+    static Long versaoEsperada(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) return null;
+        String v = semPrefixoFraco(ifMatch.trim());
+        if (v.length() >= 2 && v.startsWith("\"") && v.endsWith("\"")) v = v.substring(1, v.length() - 1);
+        try {
+            return Long.parseLong(v);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("If-Match inválido: " + ifMatch);
+        }
+    }
+
+    // comparação fraca (RFC 9110 13.1.2): ignora o prefixo W/ dos dois lados
+    private static boolean corresponde(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) return false;
+        String opaco = semPrefixoFraco(etag);
+        for (String candidato : ifNoneMatch.split(",")) {
+            String c = candidato.trim();
+            if (c.equals("*") || semPrefixoFraco(c).equals(opaco)) return true;
+        }
+        return false;
+    }
+
+    private static String semPrefixoFraco(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+}
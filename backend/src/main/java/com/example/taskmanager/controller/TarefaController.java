@@ -1,13 +1,20 @@
 package com.example.taskmanager.controller;
 
+import com.example.taskmanager.dto.FiltroTarefas;
+import com.example.taskmanager.dto.PaginaBusca;
+import com.example.taskmanager.dto.PaginaColuna;
+import com.example.taskmanager.dto.TarefaResumo;
 import com.example.taskmanager.model.*;
 import com.example.taskmanager.repository.BoardColumnRepository;
 import com.example.taskmanager.repository.BoardRepository;
 import com.example.taskmanager.repository.TarefaRepository;
 import com.example.taskmanager.repository.UsuarioRepository;
+import com.example.taskmanager.service.BoardPayloadCache;
 import com.example.taskmanager.service.TarefaService;
+import com.example.taskmanager.realtime.StreamFilter;
 import com.example.taskmanager.realtime.TaskStreamService;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -31,13 +38,15 @@ public class TarefaController {
     private final TarefaRepository tarefaRepository;
     private final UsuarioRepository usuarioRepository;
     private final TaskStreamService streamService;
-    public TarefaController(TarefaService tarefaService, BoardRepository boardRepository, BoardColumnRepository columnRepository, TarefaRepository tarefaRepository, UsuarioRepository usuarioRepository, TaskStreamService streamService) {
+    private final BoardPayloadCache payloadCache;
+    public TarefaController(TarefaService tarefaService, BoardRepository boardRepository, BoardColumnRepository columnRepository, TarefaRepository tarefaRepository, UsuarioRepository usuarioRepository, TaskStreamService streamService, BoardPayloadCache payloadCache) {
         this.tarefaService = tarefaService;
         this.boardRepository = boardRepository;
         this.columnRepository = columnRepository;
         this.tarefaRepository = tarefaRepository;
         this.usuarioRepository = usuarioRepository;
         this.streamService = streamService;
+        this.payloadCache = payloadCache;
     }
 
     /**
@@ -48,8 +57,6 @@ public class TarefaController {
     Authentication auth = SecurityContextHolder.getContext().getAuthentication();
     String email = auth.getName();
     Tarefa salva = tarefaService.criarParaEmail(email, tarefa);
-    String actor = usuarioRepository.findByEmail(email).map(u -> u.getNome()).orElse(email);
-    streamService.sendTask("TASK_CREATED", salva, actor);
         return ResponseEntity.created(URI.create("/tarefas/" + salva.getId())).body(salva);
     }
 
@@ -72,98 +79,177 @@ public class TarefaController {
     Tarefa salva = tarefaService.criarParaEmail(email, t);
         // Salvar novamente para persistir board e column
         salva = tarefaRepository.save(salva);
-    String actor2 = usuarioRepository.findByEmail(email).map(u -> u.getNome()).orElse(email);
-    streamService.sendTask("TASK_CREATED", salva, actor2);
         return ResponseEntity.created(URI.create("/tarefas/"+salva.getId())).body(salva);
     }
 
     /**
-     * Lista todas as tarefas.
+     * Lista as tarefas que o usuário autenticado enxerga (boards próprias e compartilhadas).
+     * <p>
+     * Filtros opcionais, aqui e nas listagens por board e por usuário: {@code status} e
+     * {@code priority} (um ou mais), {@code due} (overdue | week), {@code createdFrom} /
+     * {@code createdTo} (yyyy-MM-dd), {@code sort} (position | priority | dueDate | createdAt)
+     * e {@code order} (asc | desc).
      */
     @GetMapping
-    public ResponseEntity<List<Tarefa>> listar() {
-        return ResponseEntity.ok(tarefaService.listarTodas());
+    public ResponseEntity<List<TarefaResumo>> listar(@RequestParam(required = false) List<String> status,
+            @RequestParam(required = false) List<String> priority,
+            @RequestParam(required = false) String due,
+            @RequestParam(required = false) String createdFrom,
+            @RequestParam(required = false) String createdTo,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String order) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return ResponseEntity.ok(tarefaService.listarAcessiveis(auth.getName(), FiltroTarefas.de(status, priority, due, createdFrom, createdTo, sort, order)));
     }
 
+    /**
+     * Tarefas da board (404 para quem não é dono nem tem compartilhamento). Sem filtros, é um GET
+     * condicional (ETag pela versão da board, 304 com If-None-Match) servido do {@link BoardPayloadCache}.
+     */
     @GetMapping("/board/{boardId}")
-    public ResponseEntity<List<Tarefa>> listarPorBoard(@PathVariable Long boardId) {
-        Board b = boardRepository.findById(boardId).orElseThrow(() -> new IllegalArgumentException("Board não encontrado"));
-        return ResponseEntity.ok(tarefaService.listarPorBoard(b));
+    public ResponseEntity<?> listarPorBoard(@PathVariable Long boardId, @RequestParam(required = false) List<String> status,
+            @RequestParam(required = false) List<String> priority,
+            @RequestParam(required = false) String due,
+            @RequestParam(required = false) String createdFrom,
+            @RequestParam(required = false) String createdTo,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String order,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        FiltroTarefas filtro = FiltroTarefas.de(status, priority, due, createdFrom, createdTo, sort, order);
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        // acesso verificado nos dois caminhos: sem acesso, 404
+        BoardPayloadCache.Versao versao = payloadCache.versao(boardId, auth.getName());
+        if (filtro.vazio()) {
+            return RespostaCondicional.responder(ifNoneMatch, payloadCache, "tarefas", versao,
+                    () -> tarefaService.listarPorBoard(boardId, filtro));
+        }
+        return ResponseEntity.ok(tarefaService.listarPorBoard(boardId, filtro));
+    }
+
+    /**
+     * Página de uma coluna, paginada por cursor: {@code after} é o {@code proxima} da página anterior.
+     * Como na listagem da board, quem não tem acesso recebe 404.
+     */
+    @GetMapping("/board/{boardId}/column/{columnId}")
+    public ResponseEntity<PaginaColuna> listarPorColuna(@PathVariable Long boardId, @PathVariable Long columnId,
+                                                        @RequestParam(required = false) String after,
+                                                        @RequestParam(defaultValue = "50") int limit) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        payloadCache.versao(boardId, auth.getName()); // 404 sem acesso à board
+        return ResponseEntity.ok(tarefaService.paginaDaColuna(boardId, columnId, after, limit));
+    }
+
+    /**
+     * Abertura da board: a primeira página de cada coluna, na ordem das colunas.
+     */
+    @GetMapping("/board/{boardId}/paginas")
+    public ResponseEntity<List<PaginaColuna>> primeirasPaginas(@PathVariable Long boardId,
+                                                               @RequestParam(defaultValue = "50") int limit) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        payloadCache.versao(boardId, auth.getName()); // 404 sem acesso à board
+        return ResponseEntity.ok(tarefaService.primeirasPaginas(boardId, limit));
+    }
+
+    /**
+     * Busca por texto (título e descrição, tolerante a erros de digitação) nas boards que o usuário
+     * enxerga; {@code after} é o {@code proxima} da página anterior.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<PaginaBusca> buscar(@RequestParam String q,
+                                              @RequestParam(required = false) String after,
+                                              @RequestParam(defaultValue = "20") int limit) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return ResponseEntity.ok(tarefaService.buscar(auth.getName(), q, after, limit));
     }
 
     /**
      * Lista tarefas por usuário.
      */
     @GetMapping("/por-usuario/{usuarioId}")
-    public ResponseEntity<List<Tarefa>> listarPorUsuario(@PathVariable Long usuarioId) {
-        return ResponseEntity.ok(tarefaService.listarPorUsuario(usuarioId));
+    public ResponseEntity<List<TarefaResumo>> listarPorUsuario(@PathVariable Long usuarioId, @RequestParam(required = false) List<String> status,
+            @RequestParam(required = false) List<String> priority,
+            @RequestParam(required = false) String due,
+            @RequestParam(required = false) String createdFrom,
+            @RequestParam(required = false) String createdTo,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String order) {
+        return ResponseEntity.ok(tarefaService.listarPorUsuario(usuarioId, FiltroTarefas.de(status, priority, due, createdFrom, createdTo, sort, order)));
     }
 
     /**
-     * Busca tarefa por ID.
+     * Busca tarefa por ID. O ETag é a versão, para o If-Match das escritas.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Tarefa> buscar(@PathVariable Long id) {
-        return ResponseEntity.ok(tarefaService.buscarPorId(id));
+    public ResponseEntity<TarefaResumo> buscar(@PathVariable Long id) {
+        TarefaResumo tarefa = tarefaService.buscarResumo(id);
+        return ResponseEntity.ok().eTag(RespostaCondicional.etag(tarefa.versao())).body(tarefa);
     }
 
     /**
-     * Atualiza dados de uma tarefa.
+     * Atualiza dados de uma tarefa. Com If-Match (ETag da versão editada), uma versão diferente
+     * da atual dá 412 com a tarefa atual; o mesmo vale para status, coluna e mover.
      */
     @PutMapping("/{id}")
-    public ResponseEntity<Tarefa> atualizar(@PathVariable Long id, @Valid @RequestBody Tarefa tarefa) {
-    Tarefa upd = tarefaService.atualizar(id, tarefa);
+    public ResponseEntity<Tarefa> atualizar(@PathVariable Long id, @Valid @RequestBody Tarefa tarefa,
+                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
     Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-    String email = auth.getName();
-    String actor3 = usuarioRepository.findByEmail(email).map(u -> u.getNome()).orElse(email);
-    streamService.sendTask("TASK_UPDATED", upd, actor3);
-        return ResponseEntity.ok(upd);
+    Tarefa upd = tarefaService.atualizar(id, tarefa, auth.getName(), RespostaCondicional.versaoEsperada(ifMatch));
+        return ResponseEntity.ok().eTag(RespostaCondicional.etag(upd.getVersao())).body(upd);
     }
 
     /**
      * Atualiza apenas o status.
      */
     @PatchMapping("/{id}/status")
-    public ResponseEntity<Tarefa> atualizarStatus(@PathVariable Long id, @RequestBody Map<String, String> body) {
+    public ResponseEntity<Tarefa> atualizarStatus(@PathVariable Long id, @RequestBody Map<String, String> body,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         StatusTarefa status = StatusTarefa.valueOf(body.get("status"));
-    Tarefa upd = tarefaService.atualizarStatus(id, status);
     Authentication auth2 = SecurityContextHolder.getContext().getAuthentication();
-    String email2 = auth2.getName();
-    String actor4 = usuarioRepository.findByEmail(email2).map(u -> u.getNome()).orElse(email2);
-    streamService.sendTask("TASK_UPDATED", upd, actor4);
-        return ResponseEntity.ok(upd);
+    Tarefa upd = tarefaService.atualizarStatus(id, status, auth2.getName(), RespostaCondicional.versaoEsperada(ifMatch));
+        return ResponseEntity.ok().eTag(RespostaCondicional.etag(upd.getVersao())).body(upd);
     }
 
+    /**
+     * Reordenação em lote; cada item pode levar "versao" (a versão que o cliente viu), o
+     * equivalente ao If-Match por tarefa: conflito dá 412 com as tarefas atuais e nada é gravado.
+     */
     @PatchMapping("/reordenar")
     public ResponseEntity<Void> reordenar(@RequestBody List<Map<String,Object>> payload) {
         tarefaService.reordenar(payload.stream().map(m -> new Object[]{
                 ((Number)m.get("id")).longValue(),
                 m.get("posicao") == null ? null : ((Number)m.get("posicao")).intValue(),
                 m.get("status") == null ? null : StatusTarefa.valueOf(m.get("status").toString()),
-                m.get("columnId") == null ? null : ((Number)m.get("columnId")).longValue()
+                m.get("columnId") == null ? null : ((Number)m.get("columnId")).longValue(),
+                m.get("versao") == null ? null : ((Number)m.get("versao")).longValue()
         }).toList());
-        // tentar extrair boardId de qualquer item (se backend já inclui) ou simplesmente emitir refresh geral
-        Long boardId = null;
-        if (!payload.isEmpty()) {
-            Object b = payload.get(0).get("boardId");
-            if (b instanceof Number n) boardId = n.longValue();
-        }
-        if (boardId != null) {
-            streamService.sendReorder(boardId);
-        } else {
-            streamService.sendReorder(-1L); // indica reorder genérico
-        }
+        // o serviço publica TASKS_REORDERED (com as posições alteradas) para cada board afetado
         return ResponseEntity.noContent().build();
     }
 
     @PatchMapping("/{id}/coluna/{columnId}")
-    public ResponseEntity<Tarefa> moverColuna(@PathVariable Long id, @PathVariable Long columnId) {
-    Tarefa upd = tarefaService.atualizarColuna(id, columnId);
+    public ResponseEntity<Tarefa> moverColuna(@PathVariable Long id, @PathVariable Long columnId,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
     Authentication auth3 = SecurityContextHolder.getContext().getAuthentication();
-    String email3 = auth3.getName();
-    String actor5 = usuarioRepository.findByEmail(email3).map(u -> u.getNome()).orElse(email3);
-    streamService.sendTask("TASK_UPDATED", upd, actor5);
-        return ResponseEntity.ok(upd);
+    Tarefa upd = tarefaService.atualizarColuna(id, columnId, auth3.getName(), RespostaCondicional.versaoEsperada(ifMatch));
+        return ResponseEntity.ok().eTag(RespostaCondicional.etag(upd.getVersao())).body(upd);
+    }
+
+    /**
+     * Move um cartão para entre dois vizinhos: {"columnId", "afterId", "beforeId"} (columnId
+     * nulo = mesma coluna; afterId/beforeId nulos = início/fim da coluna).
+     */
+    @PatchMapping("/{id}/mover")
+    public ResponseEntity<Tarefa> mover(@PathVariable Long id, @RequestBody Map<String, Object> body,
+                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        Tarefa upd = tarefaService.mover(id, idOpcional(body, "columnId"), idOpcional(body, "afterId"),
+                idOpcional(body, "beforeId"), auth.getName(), RespostaCondicional.versaoEsperada(ifMatch));
+        return ResponseEntity.ok().eTag(RespostaCondicional.etag(upd.getVersao())).body(upd);
+    }
+
+    private static Long idOpcional(Map<String, Object> body, String campo) {
+        Object v = body.get(campo);
+        return v == null ? null : ((Number) v).longValue();
     }
 
     /**
@@ -172,17 +258,36 @@ public class TarefaController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deletar(@PathVariable Long id) {
     Authentication auth4 = SecurityContextHolder.getContext().getAuthentication();
-    String email4 = auth4.getName();
-    String actor6 = usuarioRepository.findByEmail(email4).map(u -> u.getNome()).orElse(email4);
-    tarefaService.deletar(id);
-    // sendDeleted keeps only id; include actor in a separate event
-    streamService.sendDeleted(id);
-    streamService.sendGeneric(Map.of("type","TASK_DELETED_BY","id",id,"by",actor6));
+    tarefaService.deletar(id, auth4.getName());
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Stream realtime. Sem o parâmetro boards, acompanha todas as boards do usuário.
+     * Na reconexão o navegador envia Last-Event-ID e recebe apenas os eventos perdidos.
+     * Com snapshot=true cada board começa por um SNAPSHOT (board, colunas e a primeira página de
+     * cada coluna) e segue só com os eventos posteriores a ele; numa reconexão cujo Last-Event-ID
+     * o buffer ainda cobre, a board recebe só os eventos perdidos.
+     * Filtros opcionais: types (tipos de evento), tasks (ids de tarefa) e excludeSelf (sem os
+     * eventos gerados pelo próprio usuário).
+     */
     @GetMapping(value = "/stream", produces = "text/event-stream")
-    public SseEmitter stream() {
-        return streamService.register();
+    public SseEmitter stream(@RequestParam(name = "boards", required = false) List<Long> boards,
+                             @RequestParam(name = "snapshot", defaultValue = "false") boolean snapshot,
+                             @RequestParam(name = "types", required = false) List<String> types,
+                             @RequestParam(name = "tasks", required = false) List<Long> tasks,
+                             @RequestParam(name = "excludeSelf", defaultValue = "false") boolean excludeSelf,
+                             @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return streamService.register(auth.getName(), boards, lastEventId, snapshot,
+                StreamFilter.of(types, tasks, excludeSelf));
+    }
+
+    /**
+     * Contadores do stream realtime (conexões, fila, descartes e despejos).
+     */
+    @GetMapping("/stream/stats")
+    public ResponseEntity<Map<String, Object>> streamStats() {
+        return ResponseEntity.ok(streamService.stats());
     }
 }
@@ -0,0 +1,15 @@
+package com.example.taskmanager.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Board nas listagens, com o dono já resolvido pela consulta.
+ */
+public record BoardResumo(Long id, String nome, String icon, LocalDateTime criadoEm, long versao, UsuarioResumo usuario) {
+
+    /** Usado pelas consultas {@code select new} (colunas planas da board e do dono). */
+    public BoardResumo(Long id, String nome, String icon, LocalDateTime criadoEm, long versao,
+                       Long usuarioId, String usuarioNome, String usuarioEmail, String usuarioNomeUsuario) {
+        this(id, nome, icon, criadoEm, versao, UsuarioResumo.de(usuarioId, usuarioNome, usuarioEmail, usuarioNomeUsuario));
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.taskmanager.dto;
+
+import com.example.taskmanager.model.SharePermission;
+
+import java.time.LocalDateTime;
+
+/**
+ * Compartilhamento de uma board, com a board e os dois usuários resolvidos pela consulta.
+ */
+public record BoardShareResumo(Long id, BoardRef board, UsuarioResumo sharedBy, UsuarioResumo sharedWith,
+                               SharePermission permission, LocalDateTime sharedAt) {
+
+    public record BoardRef(Long id, String nome, String icon) {}
+
+    /** Usado pelas consultas {@code select new}. */
+    public BoardShareResumo(Long id, Long boardId, String boardNome, String boardIcon,
+                            Long byId, String byNome, String byEmail, String byNomeUsuario,
+                            Long withId, String withNome, String withEmail, String withNomeUsuario,
+                            SharePermission permission, LocalDateTime sharedAt) {
+        this(id, new BoardRef(boardId, boardNome, boardIcon),
+                UsuarioResumo.de(byId, byNome, byEmail, byNomeUsuario),
+                UsuarioResumo.de(withId, withNome, withEmail, withNomeUsuario), permission, sharedAt);
+    }
+}
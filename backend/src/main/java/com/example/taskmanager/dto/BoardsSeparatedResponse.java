@@ -1,30 +1,29 @@
 package com.example.taskmanager.dto;
 
-import com.example.taskmanager.model.Board;
 import java.util.List;
 
 public class BoardsSeparatedResponse {
-    private List<Board> own;
-    private List<Board> shared;
+    private List<BoardResumo> own;
+    private List<BoardResumo> shared;
     
-    public BoardsSeparatedResponse(List<Board> own, List<Board> shared) {
+    public BoardsSeparatedResponse(List<BoardResumo> own, List<BoardResumo> shared) {
         this.own = own;
         this.shared = shared;
     }
     
-    public List<Board> getOwn() {
+    public List<BoardResumo> getOwn() {
         return own;
     }
     
-    public void setOwn(List<Board> own) {
+    public void setOwn(List<BoardResumo> own) {
         this.own = own;
     }
     
-    public List<Board> getShared() {
+    public List<BoardResumo> getShared() {
         return shared;
     }
     
-    public void setShared(List<Board> shared) {
+    public void setShared(List<BoardResumo> shared) {
         this.shared = shared;
     }
 }
\ No newline at end of file
@@ -0,0 +1,7 @@
+package com.example.taskmanager.dto;
+
+/**
+ * Coluna de uma board, com a board por id.
+ */
+public record ColunaResumo(Long id, String titulo, Integer ordem, String legacyStatus, Long boardId, long versao) {
+}
@@ -0,0 +1,82 @@
+package com.example.taskmanager.dto;
+
+import com.example.taskmanager.model.PrioridadeTarefa;
+import com.example.taskmanager.model.StatusTarefa;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Filtros e ordenação das listagens de tarefas, aplicados no banco. Conjuntos vazios e datas
+ * nulas não filtram; sem filtro nenhum e na ordem padrão ({@link #vazio()}), as listagens
+ * continuam nas consultas de sempre.
+ */
+public record FiltroTarefas(Set<StatusTarefa> status, Set<PrioridadeTarefa> prioridades, Vencimento vencimento,
+                            LocalDate criadaDe, LocalDate criadaAte, Ordenacao ordenacao, boolean decrescente) {
+
+    /** Recortes de data limite: vencidas (e ainda abertas) ou com vencimento na semana corrente. */
+    public enum Vencimento { OVERDUE, WEEK }
+
+    /** Ordem da listagem; POSITION é a ordem de exibição (coluna, depois chave de ordenação). */
+    public enum Ordenacao { POSITION, PRIORITY, DUE_DATE, CREATED_AT }
+
+    /**
+     * Monta o filtro a partir dos parâmetros da requisição (nomes de enum sem distinção de caixa,
+     * datas ISO yyyy-MM-dd).
+     *
+     * @throws IllegalArgumentException se algum valor é inválido
+     */
+    public static FiltroTarefas de(List<String> status, List<String> prioridades, String vencimento,
+                                   String criadaDe, String criadaAte, String ordenacao, String direcao) {
+        Set<StatusTarefa> st = EnumSet.noneOf(StatusTarefa.class);
+        if (status != null) status.forEach(s -> st.add(valor(StatusTarefa.class, s, "status")));
+        Set<PrioridadeTarefa> pr = EnumSet.noneOf(PrioridadeTarefa.class);
+        if (prioridades != null) prioridades.forEach(p -> pr.add(valor(PrioridadeTarefa.class, p, "priority")));
+        LocalDate de = data(criadaDe, "createdFrom");
+        LocalDate ate = data(criadaAte, "createdTo");
+        if (de != null && ate != null && de.isAfter(ate)) {
+            throw new IllegalArgumentException("createdFrom depois de createdTo");
+        }
+        boolean desc = false;
+        if (direcao != null && !direcao.isBlank()) {
+            if (direcao.equalsIgnoreCase("desc")) desc = true;
+            else if (!direcao.equalsIgnoreCase("asc")) throw new IllegalArgumentException("order deve ser asc ou desc");
+        }
+        return new FiltroTarefas(st, pr,
+                vazio(vencimento) ? null : valor(Vencimento.class, vencimento, "due"), de, ate,
+                vazio(ordenacao) ? Ordenacao.POSITION : valor(Ordenacao.class, ordenacao, "sort"), desc);
+    }
+
+    /** Sem filtros e na ordem padrão. */
+    public boolean vazio() {
+        return status.isEmpty() && prioridades.isEmpty() && vencimento == null && criadaDe == null
+                && criadaAte == null && ordenacao == Ordenacao.POSITION && !decrescente;
+    }
+
+    private static <E extends Enum<E>> E valor(Class<E> tipo, String texto, String parametro) {
+        try {
+            // aceita "dueDate", "due_date" e "due-date" para DUE_DATE
+            String nome = texto.trim().replaceAll("([a-z])([A-Z])", "$1_$2").replace('-', '_');
+            return Enum.valueOf(tipo, nome.toUpperCase(Locale.ROOT));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Valor inválido para " + parametro + ": " + texto);
+        }
+    }
+
+    private static LocalDate data(String texto, String parametro) {
+        if (vazio(texto)) return null;
+        try {
+            return LocalDate.parse(texto.trim());
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Data inválida para " + parametro + " (use yyyy-MM-dd): " + texto);
+        }
+    }
+
+    private static boolean vazio(String texto) {
+        return texto == null || texto.isBlank();
+    }
+}
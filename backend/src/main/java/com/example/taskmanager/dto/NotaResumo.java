@@ -0,0 +1,27 @@
+package com.example.taskmanager.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Nota de uma tarefa: autor e destinatário resolvidos pela consulta, tarefa por id e quem já
+ * visualizou por id (lidos numa segunda consulta, para todas as notas de uma vez).
+ */
+public record NotaResumo(Long id, String conteudo, Boolean publica, LocalDateTime dataCriacao, TarefaRef tarefa,
+                         UsuarioResumo autor, UsuarioResumo destinatario, List<Long> usuariosQueVisualizaram) {
+
+    public record TarefaRef(Long id) {}
+
+    /** Usado pelas consultas {@code select new}; as visualizações vêm depois ({@link #comVisualizacoes}). */
+    public NotaResumo(Long id, String conteudo, Boolean publica, LocalDateTime dataCriacao, Long tarefaId,
+                      Long autorId, String autorNome, String autorEmail, String autorNomeUsuario,
+                      Long destId, String destNome, String destEmail, String destNomeUsuario) {
+        this(id, conteudo, publica, dataCriacao, new TarefaRef(tarefaId),
+                UsuarioResumo.de(autorId, autorNome, autorEmail, autorNomeUsuario),
+                UsuarioResumo.de(destId, destNome, destEmail, destNomeUsuario), List.of());
+    }
+
+    public NotaResumo comVisualizacoes(List<Long> usuarios) {
+        return new NotaResumo(id, conteudo, publica, dataCriacao, tarefa, autor, destinatario, List.copyOf(usuarios));
+    }
+}
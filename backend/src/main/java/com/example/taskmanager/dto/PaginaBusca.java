@@ -0,0 +1,10 @@
+package com.example.taskmanager.dto;
+
+import java.util.List;
+
+/**
+ * Uma página de resultados da busca, do mais relevante para o menos. {@code proxima} é o cursor
+ * da página seguinte ({@code after}); nulo quando acabou.
+ */
+public record PaginaBusca(List<ResultadoBusca> resultados, String proxima) {
+}
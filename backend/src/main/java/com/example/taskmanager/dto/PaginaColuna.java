@@ -0,0 +1,21 @@
+package com.example.taskmanager.dto;
+
+import java.util.List;
+
+/**
+ * Uma página das tarefas de uma coluna, na ordem de exibição. {@code proxima} é o cursor para
+ * pedir a página seguinte ({@code after}); nulo quando a coluna acabou.
+ */
+public record PaginaColuna(Long columnId, List<TarefaResumo> tarefas, String proxima) {
+
+    /**
+     * Página a partir de uma leitura de até {@code limite + 1} tarefas: a sobra indica que há
+     * próxima página, e o cursor é "{@code <chaveOrdem>.<id>}" da última tarefa da página.
+     */
+    public static PaginaColuna de(Long columnId, List<TarefaResumo> tarefas, int limite) {
+        if (tarefas.size() <= limite) return new PaginaColuna(columnId, tarefas, null);
+        List<TarefaResumo> pagina = tarefas.subList(0, limite);
+        TarefaResumo ultima = pagina.get(limite - 1);
+        return new PaginaColuna(columnId, List.copyOf(pagina), ultima.chaveOrdem() + "." + ultima.id());
+    }
+}
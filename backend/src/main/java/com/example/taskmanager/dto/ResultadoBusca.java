@@ -0,0 +1,11 @@
+package com.example.taskmanager.dto;
+
+import com.example.taskmanager.model.StatusTarefa;
+
+/**
+ * Tarefa encontrada pela busca. {@code tituloDestacado} e {@code trecho} (da descrição) trazem os
+ * termos encontrados entre {@code <mark>} e {@code </mark>}; o restante do texto vem escapado.
+ */
+public record ResultadoBusca(Long id, String titulo, String tituloDestacado, String trecho, StatusTarefa status,
+                             Long boardId, String boardNome, Long columnId, double relevancia) {
+}
@@ -0,0 +1,17 @@
+package com.example.taskmanager.dto;
+
+import com.example.taskmanager.model.PrioridadeTarefa;
+import com.example.taskmanager.model.StatusTarefa;
+
+import java.time.LocalDateTime;
+
+/**
+ * Tarefa como aparece nas listagens: campos planos, com board e coluna por id (e título/ordem da
+ * coluna para exibição), lidos numa única consulta com join na coluna, sem carregar entidades.
+ */
+public record TarefaResumo(Long id, String titulo, String descricao, StatusTarefa status,
+                           PrioridadeTarefa prioridade, LocalDateTime dataCriacao,
+                           LocalDateTime dataConclusao, LocalDateTime dataLimite, Integer posicao,
+                           String chaveOrdem, long versao, Long boardId, Long columnId,
+                           String columnTitulo, Integer columnOrdem) {
+}
@@ -0,0 +1,12 @@
+package com.example.taskmanager.dto;
+
+/**
+ * Usuário como aparece dentro de outras respostas (dono da board, autor da nota, etc.).
+ */
+public record UsuarioResumo(Long id, String nome, String email, String nomeUsuario) {
+
+    /** Nulo quando o join não encontrou usuário (relações opcionais). */
+    static UsuarioResumo de(Long id, String nome, String email, String nomeUsuario) {
+        return id == null ? null : new UsuarioResumo(id, nome, email, nomeUsuario);
+    }
+}
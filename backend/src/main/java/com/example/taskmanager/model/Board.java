@@ -28,6 +28,10 @@ public class Board {
     @Column(length = 16)
     private String icon; // emoji ou pequeno identificador
 
+    @Version
+    @Column(nullable = false)
+    private long versao; // Controle otimista (If-Match em renomear); a sequência de eventos é boards.seq
+
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
     public String getNome() { return nome; }
@@ -36,6 +40,7 @@ public class Board {
     public void setUsuario(Usuario usuario) { this.usuario = usuario; }
     public LocalDateTime getCriadoEm() { return criadoEm; }
     public void setCriadoEm(LocalDateTime criadoEm) { this.criadoEm = criadoEm; }
+    public long getVersao() { return versao; }
     public String getIcon() { return icon; }
     public void setIcon(String icon) { this.icon = icon; }
 }
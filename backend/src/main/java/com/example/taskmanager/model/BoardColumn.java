@@ -21,6 +21,10 @@ public class BoardColumn {
     @Column(nullable = false)
     private Integer ordem;
 
+    @Version
+    @Column(nullable = false)
+    private long versao; // Controle otimista (If-Match em renomear)
+
     // Campo opcional para mapear antigo status caso precise migrar
     @Column(length = 30)
     private String legacyStatus;
@@ -33,6 +37,7 @@ public class BoardColumn {
     public void setTitulo(String titulo) { this.titulo = titulo; }
     public Integer getOrdem() { return ordem; }
     public void setOrdem(Integer ordem) { this.ordem = ordem; }
+    public long getVersao() { return versao; }
     public String getLegacyStatus() { return legacyStatus; }
     public void setLegacyStatus(String legacyStatus) { this.legacyStatus = legacyStatus; }
 }
@@ -19,6 +19,13 @@ public enum PrioridadeTarefa {
         return valor;
     }
 
+    /**
+     * Peso para ordenação (BAIXA = 1 ... URGENTE = 4); a ordem alfabética dos nomes não serve.
+     */
+    public int getPeso() {
+        return ordinal() + 1;
+    }
+
     @Override
     public String toString() {
         return valor;
@@ -42,7 +42,14 @@ public class Tarefa {
     @Column(length = 10)
     private PrioridadeTarefa prioridade = PrioridadeTarefa.NORMAL; // Prioridade da tarefa
 
-    private Integer posicao; // Ordem dentro da coluna (status ou column)
+    private Integer posicao; // Ordem dentro da coluna (status ou column); legado, a ordem da coluna vem de chaveOrdem
+
+    @Column(name = "chave_ordem", nullable = false, length = 64)
+    private String chaveOrdem; // Chave fracionária de ordenação na coluna (ver ChaveOrdem)
+
+    @Version
+    @Column(nullable = false)
+    private long versao; // Controle otimista (If-Match); incrementada pelo Hibernate a cada alteração e acompanha os patches realtime
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "board_id", foreignKey = @ForeignKey(name = "fk_tarefa_board"))
@@ -111,6 +118,11 @@ public class Tarefa {
     public Integer getPosicao() { return posicao; }
     public void setPosicao(Integer posicao) { this.posicao = posicao; }
 
+    public String getChaveOrdem() { return chaveOrdem; }
+    public void setChaveOrdem(String chaveOrdem) { this.chaveOrdem = chaveOrdem; }
+
+    public long getVersao() { return versao; }
+
     public Usuario getUsuario() { return usuario; }
     public void setUsuario(Usuario usuario) { this.usuario = usuario; }
     public Board getBoard() { return board; }
@@ -0,0 +1,202 @@
+package com.example.taskmanager.realtime;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Quem está com cada board aberta. O cliente manda heartbeats enquanto vê a board; quem para de
+ * mandar expira pelo TTL. Tudo em mapas concorrentes, sem lock: um heartbeat de quem já está
+ * presente só troca o horário no mapa.
+ * <p>
+ * Com várias instâncias, cada uma conhece os heartbeats que recebeu e os propaga como
+ * {@link Sinal} pelo barramento: na hora para quem entra ou sai, e em lote por board a cada
+ * renovação para quem continua. A visão global guarda uma entrada por (usuário, instância),
+ * então a saída numa instância não apaga quem ainda manda heartbeats para outra.
+ * <p>
+ * Os clientes recebem só diferenças (entraram/saíram), no máximo uma vez por intervalo de
+ * anúncio e só para boards em que algo mudou: o custo acompanha as mudanças de presença, não o
+ * número de pessoas vendo.
+ */
+class BoardPresence {
+
+    /** Quem vê a board, com o nome para exibição. */
+    record Visitante(String email, String nome) {}
+
+    /**
+     * Sinal entre instâncias: quem continua presente pelos heartbeats recebidos em
+     * {@code instancia} e quem saiu dela.
+     */
+    record Sinal(String instancia, List<Visitante> presentes, List<String> saidas) {}
+
+    /** Recebe as diferenças de uma board desde o último anúncio. */
+    @FunctionalInterface
+    interface Anunciador {
+        void anunciar(Long boardId, List<Visitante> entraram, List<String> sairam);
+    }
+
+    private record Chave(String email, String instancia) {}
+
+    private record Entrada(String nome, long expiraEm) {}
+
+    private record Heartbeat(String nome, long em) {}
+
+    private final String instancia = UUID.randomUUID().toString();
+    private final long ttlMs;
+    private final BiConsumer<Long, Sinal> publicador;
+    private final Anunciador anunciador;
+
+    // heartbeats recebidos nesta instância: boardId -> email -> último heartbeat
+    private final Map<Long, Map<String, Heartbeat>> locais = new ConcurrentHashMap<>();
+    // visão de todas as instâncias: boardId -> (email, instância) -> expiração
+    private final Map<Long, Map<Chave, Entrada>> presencas = new ConcurrentHashMap<>();
+    // o que os clientes de cada board já sabem: boardId -> email -> nome
+    private final Map<Long, Map<String, String>> anunciados = new ConcurrentHashMap<>();
+    // boards cuja presença pode ter mudado desde o último anúncio
+    private final Set<Long> alteradas = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong heartbeats = new AtomicLong();
+    private final AtomicLong sinais = new AtomicLong();
+    private final AtomicLong anuncios = new AtomicLong();
+
+    BoardPresence(long ttlMs, BiConsumer<Long, Sinal> publicador, Anunciador anunciador) {
+        this.ttlMs = ttlMs;
+        this.publicador = publicador;
+        this.anunciador = anunciador;
+    }
+
+    /**
+     * Heartbeat de quem já está presente nesta instância (acesso já verificado); retorna false
+     * se o usuário ainda não entrou, e então quem chama verifica o acesso e usa {@link #entrar}.
+     */
+    boolean renovar(Long boardId, String email) {
+        Map<String, Heartbeat> daBoard = locais.get(boardId);
+        if (daBoard == null) return false;
+        long agora = System.currentTimeMillis();
+        if (daBoard.computeIfPresent(email, (e, hb) -> new Heartbeat(hb.nome(), agora)) == null) return false;
+        heartbeats.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Primeiro heartbeat do usuário nesta instância; a entrada é propagada na hora.
+     */
+    void entrar(Long boardId, String email, String nome) {
+        heartbeats.incrementAndGet();
+        Heartbeat anterior = locais.computeIfAbsent(boardId, k -> new ConcurrentHashMap<>())
+                .put(email, new Heartbeat(nome, System.currentTimeMillis()));
+        if (anterior == null) publicar(boardId, new Sinal(instancia, List.of(new Visitante(email, nome)), List.of()));
+    }
+
+    /** Saída explícita (cliente fechou a board ou perdeu o acesso). */
+    void sair(Long boardId, String email) {
+        Map<String, Heartbeat> daBoard = locais.get(boardId);
+        if (daBoard != null && daBoard.remove(email) != null) {
+            publicar(boardId, new Sinal(instancia, List.of(), List.of(email)));
+        }
+    }
+
+    private void publicar(Long boardId, Sinal sinal) {
+        sinais.incrementAndGet();
+        publicador.accept(boardId, sinal);
+    }
+
+    /**
+     * Aplica um sinal vindo do barramento (de qualquer instância, inclusive esta).
+     */
+    void aplicar(Long boardId, Sinal sinal) {
+        long expiraEm = System.currentTimeMillis() + ttlMs;
+        Map<Chave, Entrada> daBoard = presencas.computeIfAbsent(boardId, k -> new ConcurrentHashMap<>());
+        for (Visitante v : sinal.presentes()) {
+            if (daBoard.put(new Chave(v.email(), sinal.instancia()), new Entrada(v.nome(), expiraEm)) == null) {
+                alteradas.add(boardId);
+            }
+        }
+        for (String email : sinal.saidas()) {
+            if (daBoard.remove(new Chave(email, sinal.instancia())) != null) alteradas.add(boardId);
+        }
+    }
+
+    /**
+     * Propaga quem continua mandando heartbeats (um sinal por board), a saída de quem parou e
+     * expira entradas de instâncias que pararam de renovar.
+     */
+    void propagar() {
+        long agora = System.currentTimeMillis();
+        for (Map.Entry<Long, Map<String, Heartbeat>> board : locais.entrySet()) {
+            List<Visitante> presentes = new ArrayList<>();
+            List<String> saidas = new ArrayList<>();
+            board.getValue().forEach((email, hb) -> {
+                if (hb.em() + ttlMs < agora) {
+                    if (board.getValue().remove(email, hb)) saidas.add(email);
+                } else {
+                    presentes.add(new Visitante(email, hb.nome()));
+                }
+            });
+            if (!presentes.isEmpty() || !saidas.isEmpty()) {
+                publicar(board.getKey(), new Sinal(instancia, presentes, saidas));
+            }
+            locais.computeIfPresent(board.getKey(), (k, m) -> m.isEmpty() ? null : m);
+        }
+        for (Map.Entry<Long, Map<Chave, Entrada>> board : presencas.entrySet()) {
+            if (board.getValue().values().removeIf(e -> e.expiraEm() < agora)) alteradas.add(board.getKey());
+            presencas.computeIfPresent(board.getKey(), (k, m) -> m.isEmpty() ? null : m);
+        }
+    }
+
+    /**
+     * Anuncia a diferença de cada board alterada desde o último anúncio.
+     */
+    void anunciar() {
+        for (Long boardId : alteradas) {
+            alteradas.remove(boardId);
+            Map<String, String> atual = atuais(boardId);
+            Map<String, String> ultimo = atual.isEmpty() ? anunciados.remove(boardId) : anunciados.put(boardId, atual);
+            Map<String, String> anterior = ultimo == null ? Map.of() : ultimo;
+            List<Visitante> entraram = new ArrayList<>();
+            List<String> sairam = new ArrayList<>();
+            atual.forEach((email, nome) -> {
+                if (!anterior.containsKey(email)) entraram.add(new Visitante(email, nome));
+            });
+            for (String email : anterior.keySet()) {
+                if (!atual.containsKey(email)) sairam.add(email);
+            }
+            if (!entraram.isEmpty() || !sairam.isEmpty()) {
+                anuncios.incrementAndGet();
+                anunciador.anunciar(boardId, entraram, sairam);
+            }
+        }
+    }
+
+    /** Quem está vendo a board agora, segundo todas as instâncias. */
+    List<Visitante> presentes(Long boardId) {
+        List<Visitante> out = new ArrayList<>();
+        atuais(boardId).forEach((email, nome) -> out.add(new Visitante(email, nome)));
+        return out;
+    }
+
+    private Map<String, String> atuais(Long boardId) {
+        long agora = System.currentTimeMillis();
+        Map<String, String> atual = new LinkedHashMap<>();
+        presencas.getOrDefault(boardId, Map.of()).forEach((chave, entrada) -> {
+            if (entrada.expiraEm() >= agora) atual.putIfAbsent(chave.email(), entrada.nome());
+        });
+        return atual;
+    }
+
+    Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("presenceTtlMs", ttlMs);
+        stats.put("presenceBoards", presencas.size());
+        stats.put("presenceHeartbeats", heartbeats.get());
+        stats.put("presenceSignals", sinais.get());
+        stats.put("presenceDiffs", anuncios.get());
+        return stats;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.taskmanager.realtime;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Conversão JSON → CBOR dos eventos para as conexões WebSocket binárias. Copia os tokens do
+ * JSON já serializado direto para o gerador CBOR, sem montar árvore nem voltar às entidades.
+ */
+@Component
+public class CborCodec {
+
+    private final JsonFactory json = new JsonFactory();
+    private final CBORFactory cborFactory = new CBORFactory();
+    private final CBORMapper mapper = CBORMapper.builder(cborFactory)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    private final AtomicLong convertidos = new AtomicLong();
+    private final AtomicLong bytesJson = new AtomicLong();
+    private final AtomicLong bytesCbor = new AtomicLong();
+    private final AtomicLong nanos = new AtomicLong();
+
+    public byte[] converter(byte[] origem) {
+        long inicio = System.nanoTime();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(origem.length);
+        try (JsonParser p = json.createParser(origem); JsonGenerator g = cborFactory.createGenerator(out)) {
+            while (p.nextToken() != null) g.copyCurrentEvent(p);
+        } catch (IOException e) {
+            throw new IllegalStateException("Falha ao converter evento realtime para CBOR", e);
+        }
+        byte[] cbor = out.toByteArray();
+        nanos.addAndGet(System.nanoTime() - inicio);
+        convertidos.incrementAndGet();
+        bytesJson.addAndGet(origem.length);
+        bytesCbor.addAndGet(cbor.length);
+        return cbor;
+    }
+
+    /** Mapper para ler mensagens binárias enviadas pelo cliente. */
+    public CBORMapper mapper() { return mapper; }
+
+    Map<String, Object> stats() {
+        return Map.of(
+                "cborEncoded", convertidos.get(),
+                "cborEncodeNanos", nanos.get(),
+                "cborSourceJsonBytes", bytesJson.get(),
+                "cborBytes", bytesCbor.get());
+    }
+}
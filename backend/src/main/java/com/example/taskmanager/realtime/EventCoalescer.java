@@ -0,0 +1,149 @@
+package com.example.taskmanager.realtime;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Junta os eventos de uma board que chegam dentro de uma janela curta (ex.: um drag-and-drop
+ * gera reordenar + moverColuna em milissegundos) num único frame BATCH. Um evento com a mesma
+ * chave (e autor) do último evento do lote é mesclado a ele (patches da mesma tarefa viram um
+ * só); separados por outros eventos, os dois são mantidos para não inverter a ordem.
+ * <p>
+ * Os eventos chegam já serializados (JSON), pois as entidades só podem ser lidas na thread da
+ * requisição; o lote é montado concatenando os bytes.
+ */
+class EventCoalescer {
+
+    private static final byte[] BATCH_INICIO = "{\"type\":\"BATCH\",\"boardId\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BATCH_EVENTOS = ",\"events\":[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BATCH_FIM = "]}".getBytes(StandardCharsets.UTF_8);
+
+    /** Combina dois eventos de mesma chave; retorna null quando não dá para mesclar (mantém os dois). */
+    @FunctionalInterface
+    interface Mesclador {
+        byte[] mesclar(String chave, byte[] anterior, byte[] novo);
+    }
+
+    /**
+     * Recebe os eventos do lote de uma board (um ou vários), com a maior sequência de board
+     * incluída; quem publica monta o frame com {@link #lote}.
+     */
+    @FunctionalInterface
+    interface Publicador {
+        void publicar(Long boardId, long seq, List<EventoInfo> infos, List<byte[]> eventos);
+    }
+
+    private final long janelaMs;
+    private final Mesclador mesclador;
+    private final Publicador publicador;
+    private final Map<Long, Lote> pendentes = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService agendador;
+
+    private final AtomicLong eventosRecebidos = new AtomicLong();
+    private final AtomicLong framesPublicados = new AtomicLong();
+
+    /** Eventos de uma board aguardando o fim da janela, na ordem de chegada. */
+    private static final class Lote {
+        private final List<String> chaves = new ArrayList<>();
+        private final List<EventoInfo> infos = new ArrayList<>();
+        private final List<byte[]> eventos = new ArrayList<>();
+        private long seq;
+    }
+
+    EventCoalescer(long janelaMs, Mesclador mesclador, Publicador publicador) {
+        this.janelaMs = janelaMs;
+        this.mesclador = mesclador;
+        this.publicador = publicador;
+        this.agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sse-coalescer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Adiciona o evento ao lote da board. {@code chave} nula nunca mescla.
+     */
+    void submit(Long boardId, String chave, long seq, EventoInfo info, byte[] json) {
+        eventosRecebidos.incrementAndGet();
+        boolean[] novo = new boolean[1];
+        pendentes.compute(boardId, (id, lote) -> {
+            if (lote == null) {
+                lote = new Lote();
+                novo[0] = true;
+            }
+            lote.seq = Math.max(lote.seq, seq);
+            int ultimo = lote.eventos.size() - 1;
+            // autores diferentes não mesclam: o filtro "sem as minhas ações" perderia a alteração do outro
+            if (chave != null && ultimo >= 0 && chave.equals(lote.chaves.get(ultimo))
+                    && Objects.equals(info.autor(), lote.infos.get(ultimo).autor())) {
+                byte[] mesclado = mesclador.mesclar(chave, lote.eventos.get(ultimo), json);
+                if (mesclado != null) {
+                    lote.eventos.set(ultimo, mesclado);
+                    return lote;
+                }
+            }
+            lote.chaves.add(chave);
+            lote.infos.add(info);
+            lote.eventos.add(json);
+            return lote;
+        });
+        if (novo[0]) {
+            agendador.schedule(() -> flush(boardId), janelaMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Publica imediatamente o lote pendente da board (usado antes de eventos que não passam pela janela).
+     */
+    void flush(Long boardId) {
+        Lote lote = pendentes.remove(boardId);
+        if (lote == null || lote.eventos.isEmpty()) return;
+        framesPublicados.incrementAndGet();
+        publicador.publicar(boardId, lote.seq, lote.infos, lote.eventos);
+    }
+
+    /**
+     * O evento único como está, ou vários num frame BATCH, concatenando os bytes.
+     */
+    static byte[] lote(Long boardId, List<byte[]> eventos) {
+        if (eventos.size() == 1) return eventos.get(0);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(BATCH_INICIO);
+        out.writeBytes(String.valueOf(boardId).getBytes(StandardCharsets.UTF_8));
+        out.writeBytes(BATCH_EVENTOS);
+        boolean primeiro = true;
+        for (byte[] json : eventos) {
+            if (!primeiro) out.write(',');
+            out.writeBytes(json);
+            primeiro = false;
+        }
+        out.writeBytes(BATCH_FIM);
+        return out.toByteArray();
+    }
+
+    Map<String, Object> stats() {
+        long recebidos = eventosRecebidos.get();
+        long publicados = framesPublicados.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("coalesceWindowMs", janelaMs);
+        stats.put("coalescedEventsIn", recebidos);
+        stats.put("coalescedFramesOut", publicados);
+        stats.put("coalescingRatio", publicados == 0 ? 1.0 : (double) recebidos / publicados);
+        return stats;
+    }
+
+    void shutdown() {
+        agendador.shutdownNow();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.taskmanager.realtime;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Buffer circular dos últimos eventos de uma board, usado para reenviar o que um cliente
+ * perdeu ao reconectar com Last-Event-ID. Não é thread-safe: o acesso é serializado
+ * pelo lock da board no {@link StreamRegistry}.
+ */
+class EventRing {
+
+    private final long[] ids;
+    private final SseFrame[] frames;
+    private int inicio;
+    private int tamanho;
+    private long ultimoDescartado; // maior sequência que já saiu do buffer
+    private volatile long ultimaAtividade = System.currentTimeMillis();
+
+    record Entrada(long seq, SseFrame frame) {}
+
+    EventRing(int capacidade, long sequenciaAtual) {
+        this.ids = new long[capacidade];
+        this.frames = new SseFrame[capacidade];
+        // eventos anteriores à criação do buffer não estão disponíveis para replay
+        this.ultimoDescartado = sequenciaAtual;
+    }
+
+    void add(long seq, SseFrame frame) {
+        int capacidade = ids.length;
+        if (tamanho == capacidade) {
+            ultimoDescartado = ids[inicio];
+            frames[inicio] = null;
+            inicio = (inicio + 1) % capacidade;
+            tamanho--;
+        }
+        int pos = (inicio + tamanho) % capacidade;
+        ids[pos] = seq;
+        frames[pos] = frame;
+        tamanho++;
+        ultimaAtividade = System.currentTimeMillis();
+    }
+
+    /**
+     * Indica se todos os eventos posteriores a {@code seq} ainda estão no buffer.
+     */
+    boolean cobre(long seq) {
+        return seq >= ultimoDescartado;
+    }
+
+    /**
+     * Eventos com sequência maior que {@code seq}, em ordem.
+     */
+    List<Entrada> desde(long seq) {
+        List<Entrada> out = new ArrayList<>();
+        for (int i = 0; i < tamanho; i++) {
+            int pos = (inicio + i) % ids.length;
+            if (ids[pos] > seq) out.add(new Entrada(ids[pos], frames[pos]));
+        }
+        return out;
+    }
+
+    void tocar() { ultimaAtividade = System.currentTimeMillis(); }
+
+    long getUltimaAtividade() { return ultimaAtividade; }
+}
@@ -0,0 +1,203 @@
+package com.example.taskmanager.realtime;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Entrega os eventos de cada board em ordem de sequência. Dois commits seguidos na mesma board
+ * publicam em threads diferentes (ou chegam por conexões diferentes do barramento), então N+1
+ * pode chegar antes de N; o cliente descarta o que vier com seq menor que a última vista.
+ * <p>
+ * Um evento adiantado fica retido até a chegada dos anteriores ou até o prazo
+ * ({@code esperaMs}); vencido o prazo, a lacuna é dada como perdida e a fila segue. Sequências
+ * que esta instância sabe que não vai publicar (evento sem audiência ou omitido) são informadas
+ * por {@link #pular}, para não esperar por elas. Eventos com seq já entregue são descartados
+ * (republicações).
+ * <p>
+ * Uma board sem fila (início da instância, ou esquecida por {@link #podar}) não tem linha de
+ * base: os primeiros eventos ficam retidos pelo prazo e a menor sequência vista nele vira a base.
+ * Assim N+1 chegando antes de N numa board nova não faz N ser descartado como atrasado.
+ */
+class EventSequencer {
+
+    private final long esperaMs;
+    private final Consumer<RealtimeMessage> entrega;
+    private final Map<Long, Fila> filas = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService agendador;
+
+    private final AtomicLong retidos = new AtomicLong();
+    private final AtomicLong lacunas = new AtomicLong();
+    private final AtomicLong atrasados = new AtomicLong();
+
+    /**
+     * Estado de uma board; acessado só com o {@code lock} (e não synchronized: a entrega espera o
+     * lock de publicação, o que prenderia uma virtual thread ao carrier).
+     */
+    private static final class Fila {
+        private final ReentrantLock lock = new ReentrantLock();
+        private long esperado; // próxima sequência a entregar; 0 = sem linha de base (retendo)
+        private final TreeMap<Long, RealtimeMessage> adiantados = new TreeMap<>();
+        private final TreeSet<Long> pulados = new TreeSet<>();
+        private boolean prazoAgendado;
+        private long ultimoUso;
+    }
+
+    EventSequencer(long esperaMs, Consumer<RealtimeMessage> entrega) {
+        this.esperaMs = esperaMs;
+        this.entrega = entrega;
+        this.agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sse-sequencer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Entrega o evento agora, se é o próximo da board (seguido dos retidos que ele libera), ou o
+     * retém até a vez dele. Sem sequência (board removida), entrega direto.
+     */
+    void submit(RealtimeMessage mensagem) {
+        long seq = mensagem.seq();
+        if (seq <= 0) {
+            entrega.accept(mensagem);
+            return;
+        }
+        Fila fila = filas.computeIfAbsent(mensagem.boardId(), id -> new Fila());
+        fila.lock.lock();
+        try {
+            fila.ultimoUso = System.currentTimeMillis();
+            if (fila.esperado == 0) {
+                fila.adiantados.put(seq, mensagem);
+                agendarPrazo(mensagem.boardId(), fila);
+                return;
+            }
+            if (seq < fila.esperado) {
+                atrasados.incrementAndGet();
+                return;
+            }
+            if (seq > fila.esperado) {
+                fila.adiantados.put(seq, mensagem);
+                retidos.incrementAndGet();
+                agendarPrazo(mensagem.boardId(), fila);
+                return;
+            }
+            entrega.accept(mensagem);
+            fila.esperado = seq + 1;
+            drenar(fila);
+        } finally {
+            fila.lock.unlock();
+        }
+    }
+
+    /**
+     * A sequência não será publicada por esta instância: a fila não espera por ela.
+     */
+    void pular(Long boardId, long seq) {
+        Fila fila = filas.get(boardId);
+        if (fila == null || seq <= 0) return; // sem linha de base, nada a destravar
+        fila.lock.lock();
+        try {
+            if (fila.esperado == 0) {
+                fila.pulados.add(seq); // entra na escolha da linha de base
+                return;
+            }
+            if (seq < fila.esperado) return;
+            if (seq == fila.esperado) {
+                fila.esperado++;
+                drenar(fila);
+            } else {
+                fila.pulados.add(seq);
+            }
+        } finally {
+            fila.lock.unlock();
+        }
+    }
+
+    /** Entrega os retidos que ficaram em sequência. Chamado com o lock da fila. */
+    private void drenar(Fila fila) {
+        while (true) {
+            RealtimeMessage proxima = fila.adiantados.remove(fila.esperado);
+            if (proxima != null) {
+                entrega.accept(proxima);
+            } else if (!fila.pulados.remove(fila.esperado)) {
+                return;
+            }
+            fila.esperado++;
+        }
+    }
+
+    private void agendarPrazo(Long boardId, Fila fila) {
+        if (fila.prazoAgendado) return;
+        fila.prazoAgendado = true;
+        agendador.schedule(() -> vencer(boardId, fila), esperaMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Prazo vencido: numa fila sem linha de base, a menor sequência retida ou pulada vira a base;
+     * nas demais, a lacuna antes do primeiro retido não vem mais. A fila segue dali.
+     */
+    private void vencer(Long boardId, Fila fila) {
+        fila.lock.lock();
+        try {
+            fila.prazoAgendado = false;
+            if (fila.esperado == 0) {
+                long base = fila.adiantados.isEmpty() ? Long.MAX_VALUE : fila.adiantados.firstKey();
+                if (!fila.pulados.isEmpty()) base = Math.min(base, fila.pulados.first());
+                if (base == Long.MAX_VALUE) return;
+                fila.esperado = base;
+                drenar(fila);
+            }
+            if (fila.adiantados.isEmpty()) return;
+            long primeiro = fila.adiantados.firstKey();
+            if (primeiro > fila.esperado) {
+                lacunas.incrementAndGet();
+                fila.esperado = primeiro;
+                fila.pulados.headSet(primeiro).clear();
+            }
+            drenar(fila);
+            if (!fila.adiantados.isEmpty()) agendarPrazo(boardId, fila);
+        } finally {
+            fila.lock.unlock();
+        }
+    }
+
+    /**
+     * Esquece as boards sem nada retido e paradas há mais de {@code ociosoMs}; o próximo evento
+     * delas vira a nova linha de base.
+     */
+    void podar(long ociosoMs) {
+        long limite = System.currentTimeMillis() - ociosoMs;
+        filas.values().removeIf(fila -> {
+            // ocupada agora: fica para a próxima poda
+            if (!fila.lock.tryLock()) return false;
+            try {
+                return fila.adiantados.isEmpty() && fila.ultimoUso < limite;
+            } finally {
+                fila.lock.unlock();
+            }
+        });
+    }
+
+    Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("orderWaitMs", esperaMs);
+        stats.put("orderHeld", retidos.get());
+        stats.put("orderGapsSkipped", lacunas.get());
+        stats.put("orderLateDropped", atrasados.get());
+        stats.put("orderBoards", filas.size());
+        return stats;
+    }
+
+    void shutdown() {
+        agendador.shutdownNow();
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.taskmanager.realtime;
+
+/**
+ * O que os filtros de inscrição precisam saber de um evento, sem abrir o JSON.
+ *
+ * @param tipo     campo "type" do evento (TASK_PATCH, BOARD_UPDATED...)
+ * @param tarefaId tarefa a que o evento se refere; null para eventos da board como um todo
+ * @param autor    email de quem fez a alteração; null quando desconhecido
+ */
+public record EventoInfo(String tipo, Long tarefaId, String autor) {
+}
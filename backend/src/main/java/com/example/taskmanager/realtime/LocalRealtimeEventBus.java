@@ -0,0 +1,26 @@
+package com.example.taskmanager.realtime;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+
+/**
+ * Barramento de uma única instância: a mensagem publicada é entregue na hora, na mesma thread.
+ */
+@Component
+@ConditionalOnProperty(name = "app.realtime.bus", havingValue = "local", matchIfMissing = true)
+public class LocalRealtimeEventBus implements RealtimeEventBus {
+
+    private volatile Consumer<RealtimeMessage> entrega = m -> {};
+
+    @Override
+    public void start(Consumer<RealtimeMessage> entrega, Runnable aoPerderEventos) {
+        this.entrega = entrega;
+    }
+
+    @Override
+    public void publish(RealtimeMessage mensagem) {
+        entrega.accept(mensagem);
+    }
+}
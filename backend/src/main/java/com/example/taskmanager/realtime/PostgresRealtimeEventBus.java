@@ -0,0 +1,247 @@
+package com.example.taskmanager.realtime;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Barramento entre instâncias sobre LISTEN/NOTIFY do PostgreSQL. Cada instância entrega suas
+ * próprias mensagens localmente na hora e as envia por NOTIFY; as notificações que voltam com
+ * o próprio node id são ignoradas.
+ * <p>
+ * O payload do NOTIFY é limitado (8000 bytes por padrão no servidor): mensagens maiores que
+ * {@code app.realtime.bus.notify-max-bytes} são gravadas em {@code realtime_payload} e só o id
+ * trafega; quem recebe busca o corpo pelo id. As linhas são apagadas após a retenção. A tabela
+ * vem de docs/sql/017.
+ * <p>
+ * O NOTIFY roda numa transação própria: o {@link StreamPublisher} já publica depois do commit
+ * da alteração, quando a conexão da transação original não deve mais ser usada.
+ */
+@Component
+@ConditionalOnProperty(name = "app.realtime.bus", havingValue = "postgres")
+public class PostgresRealtimeEventBus implements RealtimeEventBus {
+    private static final Logger logger = LoggerFactory.getLogger(PostgresRealtimeEventBus.class);
+
+    /** Formato no fio; nomes curtos para caber mais payload no NOTIFY. */
+    record Envelope(String n, RealtimeMessage.Tipo t, Long b, String e, String k, long s,
+                    String y, Long i, String a, String p, Long r, Long o) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate novaTransacao;
+    private final DataSourceProperties dataSourceProperties;
+    private final ObjectMapper objectMapper;
+    private final String nodeId;
+    private final String canal;
+    private final int maxBytesNotify;
+
+    @Value("${app.realtime.bus.payload-retention-ms:60000}")
+    private long retencaoPayloadMs;
+
+    @Value("${app.realtime.bus.reconnect-delay-ms:2000}")
+    private long esperaReconexaoMs;
+
+    private volatile Consumer<RealtimeMessage> entrega = m -> {};
+    private volatile Runnable aoPerderEventos = () -> {};
+    private volatile boolean ativo;
+    private Thread listener;
+
+    private final AtomicLong publicadas = new AtomicLong();
+    private final AtomicLong recebidas = new AtomicLong();
+    private final AtomicLong proprias = new AtomicLong();
+    private final AtomicLong porReferencia = new AtomicLong();
+    private final AtomicLong falhas = new AtomicLong();
+    private final AtomicLong reconexoes = new AtomicLong();
+
+    public PostgresRealtimeEventBus(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                    DataSourceProperties dataSourceProperties, ObjectMapper objectMapper,
+                                    @Value("${app.realtime.bus.node-id:}") String nodeId,
+                                    @Value("${app.realtime.bus.channel:orbitr_realtime}") String canal,
+                                    @Value("${app.realtime.bus.notify-max-bytes:7000}") int maxBytesNotify) {
+        if (!canal.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalArgumentException("Nome de canal inválido para LISTEN/NOTIFY: " + canal);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.novaTransacao = new TransactionTemplate(transactionManager);
+        this.novaTransacao.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.dataSourceProperties = dataSourceProperties;
+        this.objectMapper = objectMapper;
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        this.canal = canal;
+        this.maxBytesNotify = maxBytesNotify;
+    }
+
+    @Override
+    public void start(Consumer<RealtimeMessage> entrega, Runnable aoPerderEventos) {
+        this.entrega = entrega;
+        this.aoPerderEventos = aoPerderEventos;
+        ativo = true;
+        listener = new Thread(this::escutar, "realtime-bus-listener");
+        listener.setDaemon(true);
+        listener.start();
+        logger.info("Barramento realtime via PostgreSQL no canal '{}' (node {})", canal, this.nodeId);
+    }
+
+    @Override
+    public void publish(RealtimeMessage mensagem) {
+        entrega.accept(mensagem); // conexões desta instância não esperam o banco
+        EventoInfo info = mensagem.info();
+        String texto = serializar(new Envelope(nodeId, mensagem.tipo(), mensagem.boardId(), mensagem.email(),
+                mensagem.chave(), mensagem.seq(), info.tipo(), info.tarefaId(), info.autor(),
+                new String(mensagem.json(), StandardCharsets.UTF_8), null, mensagem.outbox()));
+        try {
+            novaTransacao.executeWithoutResult(s -> notificar(texto));
+            publicadas.incrementAndGet();
+        } catch (DataAccessException e) {
+            falhas.incrementAndGet();
+            logger.warn("Falha ao publicar evento realtime no PostgreSQL: {}", e.getMessage());
+        }
+    }
+
+    private void notificar(String texto) {
+        if (texto.getBytes(StandardCharsets.UTF_8).length > maxBytesNotify) {
+            Long id = jdbcTemplate.queryForObject(
+                    "INSERT INTO realtime_payload (corpo) VALUES (?) RETURNING id", Long.class, texto);
+            texto = serializar(new Envelope(nodeId, null, null, null, null, 0L, null, null, null, null, id, null));
+            porReferencia.incrementAndGet();
+        }
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, canal, texto);
+    }
+
+    @Override
+    public boolean isDistributed() { return true; }
+
+    /**
+     * Mantém uma conexão dedicada (fora do pool) em LISTEN; ao reconectar, avisa que eventos
+     * de outras instâncias podem ter sido perdidos no intervalo.
+     */
+    private void escutar() {
+        boolean reconexao = false;
+        while (ativo) {
+            try (Connection conexao = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement st = conexao.createStatement()) {
+                    st.execute("LISTEN " + canal);
+                }
+                if (reconexao) {
+                    reconexoes.incrementAndGet();
+                    aoPerderEventos.run();
+                }
+                reconexao = true;
+                PGConnection pg = conexao.unwrap(PGConnection.class);
+                while (ativo) {
+                    PGNotification[] notificacoes = pg.getNotifications(1000);
+                    if (notificacoes == null) continue;
+                    for (PGNotification n : notificacoes) {
+                        receber(n.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!ativo) return;
+                falhas.incrementAndGet();
+                logger.warn("Conexão LISTEN do barramento realtime caiu: {}", e.getMessage());
+                try {
+                    Thread.sleep(esperaReconexaoMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void receber(String texto) {
+        try {
+            Envelope env = objectMapper.readValue(texto, Envelope.class);
+            if (nodeId.equals(env.n())) {
+                proprias.incrementAndGet(); // já entregue localmente na publicação
+                return;
+            }
+            if (env.r() != null) {
+                List<String> corpo = jdbcTemplate.queryForList(
+                        "SELECT corpo FROM realtime_payload WHERE id = ?", String.class, env.r());
+                if (corpo.isEmpty()) {
+                    logger.warn("Payload realtime {} não encontrado (já expirado?)", env.r());
+                    aoPerderEventos.run();
+                    return;
+                }
+                env = objectMapper.readValue(corpo.get(0), Envelope.class);
+            }
+            recebidas.incrementAndGet();
+            entrega.accept(new RealtimeMessage(env.t(), env.b(), env.e(), env.k(), env.s(),
+                    new EventoInfo(env.y(), env.i(), env.a()), env.p().getBytes(StandardCharsets.UTF_8), env.o()));
+        } catch (JsonProcessingException | DataAccessException e) {
+            falhas.incrementAndGet();
+            logger.warn("Evento realtime inválido recebido do PostgreSQL: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            falhas.incrementAndGet();
+            logger.error("Erro ao entregar evento realtime de outra instância", e);
+        }
+    }
+
+    private String serializar(Envelope envelope) {
+        try {
+            return objectMapper.writeValueAsString(envelope);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao serializar evento realtime", e);
+        }
+    }
+
+    /**
+     * Apaga payloads por referência que todas as instâncias já tiveram tempo de ler.
+     */
+    @Scheduled(fixedDelayString = "${app.realtime.bus.payload-retention-ms:60000}")
+    public void limparPayloads() {
+        if (!ativo) return;
+        try {
+            jdbcTemplate.update("DELETE FROM realtime_payload WHERE criado_em < now() - make_interval(secs => ?)",
+                    retencaoPayloadMs / 1000.0);
+        } catch (DataAccessException e) {
+            logger.warn("Falha ao limpar realtime_payload: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("busNodeId", nodeId);
+        stats.put("busPublished", publicadas.get());
+        stats.put("busReceived", recebidas.get());
+        stats.put("busOwnIgnored", proprias.get());
+        stats.put("busByReference", porReferencia.get());
+        stats.put("busFailures", falhas.get());
+        stats.put("busReconnects", reconexoes.get());
+        return stats;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        ativo = false;
+        if (listener != null) listener.interrupt();
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.taskmanager.realtime;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Transporte dos eventos realtime entre instâncias do backend. O {@link StreamPublisher}
+ * publica aqui e recebe de volta (de todas as instâncias, incluindo a própria) o que deve
+ * entregar às suas conexões locais.
+ * <p>
+ * Implementações: {@link LocalRealtimeEventBus} (uma instância, padrão) e
+ * {@link PostgresRealtimeEventBus} (LISTEN/NOTIFY), escolhidas por {@code app.realtime.bus}.
+ */
+public interface RealtimeEventBus {
+
+    /**
+     * Começa a entregar mensagens.
+     *
+     * @param entrega         chamado para cada mensagem a ser entregue localmente
+     * @param aoPerderEventos chamado quando mensagens de outras instâncias podem ter sido perdidas
+     *                        (ex.: reconexão do listener); os clientes locais devem ressincronizar
+     */
+    void start(Consumer<RealtimeMessage> entrega, Runnable aoPerderEventos);
+
+    void publish(RealtimeMessage mensagem);
+
+    /**
+     * Se há outras instâncias ouvindo; quando não há, quem publica pode pular eventos sem audiência local.
+     */
+    default boolean isDistributed() { return false; }
+
+    default Map<String, Object> stats() { return Map.of(); }
+}
@@ -0,0 +1,38 @@
+package com.example.taskmanager.realtime;
+
+/**
+ * Evento realtime já serializado, como trafega no {@link RealtimeEventBus}. Cada instância que o
+ * recebe faz o fan-out só para as suas conexões locais (e atribui os ids SSE localmente).
+ *
+ * @param tipo    como o evento é roteado (PRESENCE: sinal de presença entre instâncias, não vai aos clientes)
+ * @param boardId board afetada (eventos de board, compartilhamento)
+ * @param email   usuário destino (USER) ou usuário incluído/removido do board (BOARD_SHARED/UNSHARED)
+ * @param chave   chave de coalescência; eventos consecutivos com a mesma chave na janela são mesclados
+ * @param seq     sequência de mutações da board após o evento (0 quando não se aplica)
+ * @param info    tipo, tarefa e autor do evento, para os filtros de inscrição
+ * @param json    payload JSON do evento
+ * @param outbox  id da linha no outbox (nulo sem outbox); o relay pode republicar a mesma linha,
+ *                e quem recebe descarta o repetido por este id
+ */
+public record RealtimeMessage(Tipo tipo, Long boardId, String email, String chave, long seq, EventoInfo info, byte[] json,
+                              Long outbox) {
+
+    public enum Tipo { BOARD, BOARD_SHARED, BOARD_UNSHARED, USER, ALL, PRESENCE }
+
+    public RealtimeMessage(Tipo tipo, Long boardId, String email, String chave, long seq, EventoInfo info, byte[] json) {
+        this(tipo, boardId, email, chave, seq, info, json, null);
+    }
+
+    /** A mesma mensagem, gravada na linha {@code id} do outbox. */
+    public RealtimeMessage comOutbox(Long id) {
+        return new RealtimeMessage(tipo, boardId, email, chave, seq, info, json, id);
+    }
+
+    public static RealtimeMessage user(String email, EventoInfo info, byte[] json) {
+        return new RealtimeMessage(Tipo.USER, null, email, null, 0L, info, json);
+    }
+
+    public static RealtimeMessage all(EventoInfo info, byte[] json) {
+        return new RealtimeMessage(Tipo.ALL, null, null, null, 0L, info, json);
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.taskmanager.realtime;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outbox transacional dos eventos realtime ({@code app.realtime.outbox.enabled=true}). O evento é
+ * gravado em {@code realtime_outbox} na mesma transação da alteração e publicado após o commit;
+ * se a instância cair entre o commit e a publicação, o relay publica as linhas pendentes
+ * depois. A tabela vem de docs/sql/018.
+ * <p>
+ * A carência do relay conta a partir do início da transação ({@code criado_em}): uma transação
+ * mais longa que ela é vista como pendente logo no commit e a linha sai duas vezes, pelo commit e
+ * pelo relay. Por isso a mensagem leva o id da linha e cada instância descarta, na entrega, um id
+ * que já entregou ({@link #primeiraEntrega}); as duas publicações acontecem depois do commit, a
+ * no máximo um intervalo do relay uma da outra.
+ */
+@Component
+@ConditionalOnProperty(name = "app.realtime.outbox.enabled", havingValue = "true")
+public class RealtimeOutbox {
+    private static final Logger logger = LoggerFactory.getLogger(RealtimeOutbox.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate novaTransacao;
+    private final RealtimeEventBus bus;
+
+    @Value("${app.realtime.outbox.grace-ms:10000}")
+    private long carenciaMs;
+
+    @Value("${app.realtime.outbox.retention-ms:3600000}")
+    private long retencaoMs;
+
+    @Value("${app.realtime.outbox.batch-size:100}")
+    private int tamanhoLote;
+
+    @Value("${app.realtime.outbox.dedupe-ms:60000}")
+    private long janelaDuplicadosMs;
+
+    private final AtomicLong registrados = new AtomicLong();
+    private final AtomicLong reenviados = new AtomicLong();
+    private final AtomicLong duplicados = new AtomicLong();
+    // ids já entregues nesta instância -> quando
+    private final Map<Long, Long> entregues = new ConcurrentHashMap<>();
+
+    public RealtimeOutbox(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, RealtimeEventBus bus) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.novaTransacao = new TransactionTemplate(transactionManager);
+        this.novaTransacao.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.bus = bus;
+    }
+
+    /**
+     * Grava o evento na transação corrente; retorna o id para marcar a publicação depois do commit.
+     */
+    Long registrar(RealtimeMessage mensagem) {
+        registrados.incrementAndGet();
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO realtime_outbox (tipo, board_id, email, chave, seq, evento, tarefa_id, autor, payload) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) RETURNING id",
+                Long.class, mensagem.tipo().name(), mensagem.boardId(), mensagem.email(), mensagem.chave(), mensagem.seq(),
+                mensagem.info().tipo(), mensagem.info().tarefaId(), mensagem.info().autor(),
+                new String(mensagem.json(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Se a mensagem ainda não foi entregue nesta instância; falso para a segunda publicação da
+     * mesma linha do outbox. Mensagens fora do outbox sempre passam.
+     */
+    boolean primeiraEntrega(RealtimeMessage mensagem) {
+        if (mensagem.outbox() == null) return true;
+        if (entregues.putIfAbsent(mensagem.outbox(), System.currentTimeMillis()) == null) return true;
+        duplicados.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Chamado após o commit, quando a transação original já não aceita escrita.
+     */
+    void marcarPublicado(Long id) {
+        try {
+            novaTransacao.executeWithoutResult(s ->
+                    jdbcTemplate.update("UPDATE realtime_outbox SET publicado_em = now() WHERE id = ?", id));
+        } catch (DataAccessException e) {
+            logger.warn("Falha ao marcar evento {} do outbox como publicado: {}", id, e.getMessage());
+        }
+    }
+
+    /**
+     * Publica eventos confirmados que não foram marcados como publicados (queda entre o commit e a
+     * publicação). A carência evita competir com o afterCommit ainda em curso; SKIP LOCKED deixa
+     * várias instâncias rodarem o relay sem publicar a mesma linha duas vezes.
+     */
+    @Scheduled(fixedDelayString = "${app.realtime.outbox.relay-interval-ms:5000}")
+    public void relay() {
+        try {
+            novaTransacao.executeWithoutResult(s -> {
+                List<Map<String, Object>> pendentes = jdbcTemplate.queryForList(
+                        "SELECT id, tipo, board_id, email, chave, seq, evento, tarefa_id, autor, payload FROM realtime_outbox "
+                                + "WHERE publicado_em IS NULL AND criado_em < now() - make_interval(secs => ?) "
+                                + "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED",
+                        carenciaMs / 1000.0, tamanhoLote);
+                for (Map<String, Object> linha : pendentes) {
+                    Number boardId = (Number) linha.get("board_id");
+                    Number tarefaId = (Number) linha.get("tarefa_id");
+                    bus.publish(new RealtimeMessage(
+                            RealtimeMessage.Tipo.valueOf((String) linha.get("tipo")),
+                            boardId == null ? null : boardId.longValue(),
+                            (String) linha.get("email"),
+                            (String) linha.get("chave"),
+                            ((Number) linha.get("seq")).longValue(),
+                            new EventoInfo((String) linha.get("evento"),
+                                    tarefaId == null ? null : tarefaId.longValue(), (String) linha.get("autor")),
+                            ((String) linha.get("payload")).getBytes(StandardCharsets.UTF_8),
+                            ((Number) linha.get("id")).longValue()));
+                    jdbcTemplate.update("UPDATE realtime_outbox SET publicado_em = now() WHERE id = ?", linha.get("id"));
+                    reenviados.incrementAndGet();
+                }
+                jdbcTemplate.update("DELETE FROM realtime_outbox WHERE publicado_em < now() - make_interval(secs => ?)",
+                        retencaoMs / 1000.0);
+            });
+        } catch (DataAccessException e) {
+            logger.warn("Falha no relay do outbox realtime: {}", e.getMessage());
+        }
+        long limite = System.currentTimeMillis() - janelaDuplicadosMs;
+        entregues.values().removeIf(quando -> quando < limite);
+    }
+
+    Map<String, Object> stats() {
+        return Map.of("outboxRegistered", registrados.get(), "outboxRelayed", reenviados.get(),
+                "outboxDuplicatesDropped", duplicados.get());
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.taskmanager.realtime;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Endpoint WebSocket do stream realtime. Uma conexão multiplexa várias boards: o cliente envia
+ * {@code {"op":"subscribe","boardId":1,"snapshot":true}} ou {@code {"op":"unsubscribe","boardId":1}}
+ * e recebe SUBSCRIBED/UNSUBSCRIBED, SNAPSHOT e os mesmos eventos do SSE, um por frame. O heartbeat
+ * de presença também pode ir pela conexão: {@code {"op":"presence","boardId":1}} (responde com
+ * quem está vendo a board) e {@code {"op":"leave","boardId":1}}.
+ * <p>
+ * Com {@code ?format=cbor} os eventos vão em frames binários CBOR (e os comandos podem ir em CBOR
+ * também); o padrão é JSON em frames de texto. Os filtros do SSE (types, tasks, excludeSelf)
+ * também valem na query do handshake.
+ */
+public class RealtimeWebSocketHandler extends AbstractWebSocketHandler {
+    private static final Logger logger = LoggerFactory.getLogger(RealtimeWebSocketHandler.class);
+
+    private static final String SUBSCRIBER = "realtime.subscriber";
+
+    /** Comando enviado pelo cliente. */
+    record Comando(String op, Long boardId, Boolean snapshot) {}
+
+    private final TaskStreamService streamService;
+    private final ObjectMapper objectMapper;
+    private final CborCodec cbor;
+
+    public RealtimeWebSocketHandler(TaskStreamService streamService, ObjectMapper objectMapper, CborCodec cbor) {
+        this.streamService = streamService;
+        this.objectMapper = objectMapper;
+        this.cbor = cbor;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        Principal principal = session.getPrincipal();
+        if (principal == null) {
+            session.close(CloseStatus.POLICY_VIOLATION);
+            return;
+        }
+        MultiValueMap<String, String> params = session.getUri() == null ? new LinkedMultiValueMap<>()
+                : UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams();
+        String format = params.getFirst("format");
+        WebSocketTransport.Formato formato = "cbor".equalsIgnoreCase(format)
+                ? WebSocketTransport.Formato.CBOR : WebSocketTransport.Formato.JSON;
+        try {
+            StreamSubscriber subscriber = streamService.conectar(principal.getName(),
+                    new WebSocketTransport(session, formato, cbor), filtro(params));
+            session.getAttributes().put(SUBSCRIBER, subscriber);
+        } catch (ResponseStatusException e) {
+            session.close(CloseStatus.SERVICE_OVERLOAD.withReason(e.getReason()));
+        } catch (IllegalArgumentException e) {
+            session.close(CloseStatus.BAD_DATA.withReason(e.getMessage()));
+        }
+    }
+
+    /**
+     * Mesmos filtros do SSE, na query do handshake: types e tasks separados por vírgula, excludeSelf.
+     */
+    private static StreamFilter filtro(MultiValueMap<String, String> params) {
+        List<String> tipos = lista(params.get("types"));
+        List<Long> tarefas = new ArrayList<>();
+        for (String id : lista(params.get("tasks"))) {
+            try {
+                tarefas.add(Long.parseLong(id));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Id de tarefa inválido: " + id);
+            }
+        }
+        return StreamFilter.of(tipos, tarefas, Boolean.parseBoolean(params.getFirst("excludeSelf")));
+    }
+
+    private static List<String> lista(List<String> valores) {
+        List<String> out = new ArrayList<>();
+        if (valores == null) return out;
+        for (String v : valores) {
+            for (String parte : v.split(",")) {
+                if (!parte.isBlank()) out.add(parte.trim());
+            }
+        }
+        return out;
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        executar(session, () -> objectMapper.readValue(message.getPayload(), Comando.class));
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+        ByteBuffer payload = message.getPayload();
+        byte[] bytes = new byte[payload.remaining()];
+        payload.get(bytes);
+        executar(session, () -> cbor.mapper().readValue(bytes, Comando.class));
+    }
+
+    private interface Leitor {
+        Comando ler() throws IOException;
+    }
+
+    private void executar(WebSocketSession session, Leitor leitor) {
+        StreamSubscriber subscriber = (StreamSubscriber) session.getAttributes().get(SUBSCRIBER);
+        if (subscriber == null) return;
+        try {
+            Comando comando = leitor.ler();
+            if (comando.boardId() == null) throw new IllegalArgumentException("boardId é obrigatório");
+            switch (comando.op() == null ? "" : comando.op()) {
+                case "subscribe" -> streamService.inscrever(subscriber, comando.boardId(), Boolean.TRUE.equals(comando.snapshot()));
+                case "unsubscribe" -> streamService.desinscrever(subscriber, comando.boardId());
+                case "presence" -> streamService.registrarPresenca(subscriber, comando.boardId());
+                case "leave" -> streamService.sairDaBoard(comando.boardId(), subscriber.getEmail());
+                default -> throw new IllegalArgumentException("Operação desconhecida: " + comando.op());
+            }
+        } catch (IOException e) {
+            streamService.enviarErro(subscriber, "Comando inválido");
+        } catch (IllegalArgumentException e) {
+            streamService.enviarErro(subscriber, e.getMessage());
+        }
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        logger.debug("Erro na conexão WebSocket {}: {}", session.getId(), exception.getMessage());
+        fechar(session);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        fechar(session);
+    }
+
+    private static void fechar(WebSocketSession session) {
+        StreamSubscriber subscriber = (StreamSubscriber) session.getAttributes().remove(SUBSCRIBER);
+        if (subscriber != null) subscriber.fechar();
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.taskmanager.realtime;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * Frame SSE completo ("id:...\nevent:...\ndata:...\n\n") já codificado em bytes. É montado uma vez
+ * por evento e o mesmo buffer imutável é escrito em todas as conexões inscritas.
+ * <p>
+ * Também guarda o JSON puro, que as conexões WebSocket enviam como frame de texto, e a versão
+ * CBOR, convertida na primeira conexão binária que a pede e reaproveitada pelas demais.
+ * <p>
+ * Frames de board levam ainda os {@link EventoInfo} dos eventos que contêm (um, ou vários num
+ * BATCH) e o JSON de cada um, para que conexões com {@link StreamFilter} recebam só a parte que
+ * pediram sem reserializar nada.
+ */
+public final class SseFrame {
+
+    private static final byte[] ID = "id:".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] EVENT = "event:".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DATA = "data:".getBytes(StandardCharsets.UTF_8);
+    private static final byte NL = '\n';
+
+    /** Linha de comentário ignorada pelo EventSource; mantém a conexão viva e detecta clientes mortos. */
+    public static final SseFrame HEARTBEAT = new SseFrame(":hb\n\n".getBytes(StandardCharsets.UTF_8),
+            null, null, List.of(), List.of(), true);
+
+    private final Set<DataWithMediaType> data;
+    private final int tamanho;
+    private final String id;
+    private final byte[] json;
+    private final List<EventoInfo> eventos;
+    private final List<byte[]> partes;
+    private final boolean heartbeat;
+    private volatile byte[] cbor;
+    private volatile String texto;
+
+    private SseFrame(byte[] bytes, String id, byte[] json, List<EventoInfo> eventos, List<byte[]> partes,
+                     boolean heartbeat) {
+        this.data = Set.of(new DataWithMediaType(bytes, MediaType.TEXT_EVENT_STREAM));
+        this.tamanho = bytes.length;
+        this.id = id;
+        this.json = json;
+        this.eventos = eventos;
+        this.partes = partes;
+        this.heartbeat = heartbeat;
+    }
+
+    /**
+     * Serializa o payload em JSON (sem quebras de linha, como o Jackson gera por padrão).
+     */
+    public static byte[] json(ObjectMapper mapper, Object payload) {
+        try {
+            return mapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao serializar evento realtime", e);
+        }
+    }
+
+    /**
+     * Monta o frame de um evento; {@code id} nulo omite o campo (o cliente mantém o último id recebido).
+     */
+    public static SseFrame of(String id, String evento, byte[] json) {
+        return of(id, evento, json, List.of(), List.of());
+    }
+
+    /**
+     * Frame de board com os eventos que contém; {@code partes} é o JSON de cada evento, na mesma
+     * ordem de {@code eventos} (igual a {@code json} quando há um só).
+     */
+    public static SseFrame of(String id, String evento, byte[] json, List<EventoInfo> eventos, List<byte[]> partes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length + 64);
+        if (id != null) {
+            out.writeBytes(ID);
+            out.writeBytes(id.getBytes(StandardCharsets.UTF_8));
+            out.write(NL);
+        }
+        out.writeBytes(EVENT);
+        out.writeBytes(evento.getBytes(StandardCharsets.UTF_8));
+        out.write(NL);
+        out.writeBytes(DATA);
+        out.writeBytes(json);
+        out.write(NL);
+        out.write(NL);
+        return new SseFrame(out.toByteArray(), id, json, eventos, partes, false);
+    }
+
+    /**
+     * Marca no buffer de replay um evento que não foi serializado por não haver interessados;
+     * nunca é escrito.
+     */
+    static SseFrame omitido(EventoInfo evento) {
+        return new SseFrame(new byte[0], null, null, List.of(evento), List.of(), false);
+    }
+
+    /** Conteúdo pronto para {@code SseEmitter.send(Set)}; escrito como bytes crus. */
+    public Set<DataWithMediaType> data() { return data; }
+
+    public int tamanho() { return tamanho; }
+
+    /** Payload JSON sem o enquadramento SSE (null no heartbeat). */
+    public byte[] json() { return json; }
+
+    public String id() { return id; }
+
+    /** Eventos contidos no frame; vazio em frames de controle, que nunca são filtrados. */
+    public List<EventoInfo> eventos() { return eventos; }
+
+    /** JSON de cada evento, alinhado com {@link #eventos()}. */
+    List<byte[]> partes() { return partes; }
+
+    boolean isOmitido() { return json == null && !heartbeat; }
+
+    /**
+     * Payload em CBOR, convertido do JSON na primeira chamada. Duas conexões podem converter ao
+     * mesmo tempo; o resultado é o mesmo e só um fica guardado.
+     */
+    public byte[] cbor(UnaryOperator<byte[]> conversor) {
+        byte[] c = cbor;
+        if (c == null) cbor = c = conversor.apply(json);
+        return c;
+    }
+
+    /**
+     * Payload JSON como texto, para os frames de texto do WebSocket: decodificado uma vez por
+     * evento, não uma vez por conexão.
+     */
+    public String texto() {
+        String t = texto;
+        if (t == null) texto = t = new String(json, StandardCharsets.UTF_8);
+        return t;
+    }
+
+    public boolean isHeartbeat() { return heartbeat; }
+}
@@ -0,0 +1,35 @@
+package com.example.taskmanager.realtime;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+
+/**
+ * Conexão SSE: o frame pronto ("id/event/data") é escrito como bytes crus no emitter.
+ */
+public class SseTransport implements StreamTransport {
+
+    private final SseEmitter emitter;
+
+    public SseTransport(SseEmitter emitter) {
+        this.emitter = emitter;
+    }
+
+    @Override
+    public String nome() { return "sse"; }
+
+    @Override
+    public int enviar(SseFrame frame) throws IOException {
+        emitter.send(frame.data());
+        return frame.tamanho();
+    }
+
+    /** {@code ResponseBodyEmitter.send} é synchronized e escreve no socket com o monitor. */
+    @Override
+    public boolean escritaPrendeCarrier() { return true; }
+
+    @Override
+    public void encerrar() {
+        try { emitter.complete(); } catch (Exception ignored) {}
+    }
+}
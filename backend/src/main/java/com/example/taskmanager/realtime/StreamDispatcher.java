@@ -0,0 +1,169 @@
+package com.example.taskmanager.realtime;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Escreve os eventos nas conexões (SSE ou WebSocket) fora da thread da requisição. Cada
+ * conexão tem uma fila limitada drenada por um pool pequeno de escritores, no máximo uma
+ * drenagem por conexão de cada vez (a ordem por conexão é preservada). Quando a fila de um cliente lento
+ * estoura, o evento é descartado (DROP) ou a conexão é encerrada (EVICT).
+ * <p>
+ * Com {@code spring.threads.virtual.enabled} cada drenagem roda numa virtual thread própria
+ * em vez do pool fixo; a ordem por conexão continua garantida pela drenagem única. Transportes
+ * cuja escrita bloqueia dentro de synchronized ({@link StreamTransport#escritaPrendeCarrier()},
+ * hoje o SSE) continuam no pool fixo, para não prender carriers com sockets lentos.
+ */
+@Component
+public class StreamDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(StreamDispatcher.class);
+
+    public enum OverflowPolicy { DROP, EVICT }
+
+    private final int capacidadeFila;
+    private final OverflowPolicy politica;
+    private final ExecutorService escritores;
+    private final ExecutorService escritoresPlataforma;
+
+    private final AtomicLong enfileirados = new AtomicLong();
+    private final AtomicLong enviados = new AtomicLong();
+    private final AtomicLong bytesEnviados = new AtomicLong();
+    private final AtomicLong descartados = new AtomicLong();
+    private final AtomicLong despejados = new AtomicLong();
+    private final AtomicLong falhasEnvio = new AtomicLong();
+    private final AtomicLong ceifados = new AtomicLong();
+    // transporte ("sse", "ws") -> {frames, bytes}
+    private final Map<String, AtomicLong[]> porTransporte = new ConcurrentHashMap<>();
+
+    public StreamDispatcher(@Value("${app.realtime.queue-capacity:256}") int capacidadeFila,
+                            @Value("${app.realtime.overflow-policy:EVICT}") OverflowPolicy politica,
+                            @Value("${app.realtime.writer-threads:4}") int threads,
+                            @Value("${spring.threads.virtual.enabled:false}") boolean virtual) {
+        this.capacidadeFila = capacidadeFila;
+        this.politica = politica;
+        this.escritoresPlataforma = Executors.newFixedThreadPool(threads, threadFactory());
+        // com virtual threads, uma por drenagem: um socket travado não segura um escritor do pool
+        this.escritores = virtual
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sse-writer-v", 1).factory())
+                : escritoresPlataforma;
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger seq = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "sse-writer-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * Enfileira o evento para a conexão e agenda a drenagem; nunca bloqueia quem publica.
+     */
+    public void enqueue(StreamSubscriber subscriber, SseFrame evento) {
+        if (subscriber.isFechado()) return;
+        if (!subscriber.offer(evento, capacidadeFila)) {
+            if (politica == OverflowPolicy.EVICT) {
+                despejados.incrementAndGet();
+                logger.debug("Conexão {} de {} despejada: fila cheia ({} eventos)", subscriber.getTransport().nome(),
+                        subscriber.getEmail(), capacidadeFila);
+                subscriber.fechar();
+            } else {
+                descartados.incrementAndGet();
+            }
+            return;
+        }
+        enfileirados.incrementAndGet();
+        agendar(subscriber);
+    }
+
+    private void agendar(StreamSubscriber subscriber) {
+        if (!subscriber.iniciarDrenagem()) return; // já existe um escritor ativo para esta conexão
+        try {
+            ExecutorService executor = subscriber.getTransport().escritaPrendeCarrier() ? escritoresPlataforma : escritores;
+            executor.execute(() -> drenar(subscriber));
+        } catch (RejectedExecutionException e) {
+            subscriber.terminarDrenagem();
+            subscriber.fechar();
+        }
+    }
+
+    private void drenar(StreamSubscriber subscriber) {
+        try {
+            SseFrame evento;
+            while ((evento = subscriber.poll()) != null) {
+                if (!escrever(subscriber, evento)) return;
+            }
+        } finally {
+            subscriber.terminarDrenagem();
+        }
+        // um evento pode ter chegado entre o último poll e o fim da drenagem
+        if (subscriber.temPendentes() && !subscriber.isFechado()) agendar(subscriber);
+    }
+
+    private boolean escrever(StreamSubscriber subscriber, SseFrame evento) {
+        try {
+            StreamTransport transport = subscriber.getTransport();
+            int bytes = transport.enviar(evento);
+            subscriber.marcarEscrita();
+            enviados.incrementAndGet();
+            bytesEnviados.addAndGet(bytes);
+            AtomicLong[] contadores = porTransporte.computeIfAbsent(transport.nome(),
+                    k -> new AtomicLong[] { new AtomicLong(), new AtomicLong() });
+            contadores[0].incrementAndGet();
+            contadores[1].addAndGet(bytes);
+            return true;
+        } catch (Exception e) {
+            if (evento.isHeartbeat()) ceifados.incrementAndGet(); else falhasEnvio.incrementAndGet();
+            subscriber.fechar();
+            return false;
+        }
+    }
+
+    /**
+     * Encerra uma conexão cujo escritor está travado (cliente morto que não drena o socket).
+     * O transporte é fechado fora da thread chamadora, pois o envio travado segura o seu lock.
+     */
+    public void ceifar(StreamSubscriber subscriber) {
+        if (subscriber.isFechado()) return;
+        ceifados.incrementAndGet();
+        Thread.startVirtualThread(subscriber::fechar);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queueCapacity", capacidadeFila);
+        stats.put("overflowPolicy", politica.name());
+        stats.put("enqueued", enfileirados.get());
+        stats.put("sent", enviados.get());
+        stats.put("bytesSent", bytesEnviados.get());
+        stats.put("dropped", descartados.get());
+        stats.put("evicted", despejados.get());
+        stats.put("sendFailures", falhasEnvio.get());
+        stats.put("reaped", ceifados.get());
+        porTransporte.forEach((nome, c) -> {
+            stats.put(nome + "Sent", c[0].get());
+            stats.put(nome + "BytesSent", c[1].get());
+        });
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        escritores.shutdownNow();
+        escritoresPlataforma.shutdownNow();
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.taskmanager.realtime;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Filtro declarado pelo cliente ao conectar: tipos de evento, tarefas e "sem as minhas ações"
+ * (as boards já são filtradas pela inscrição nos canais). Montado uma vez por conexão e
+ * avaliado sobre {@link EventoInfo}, antes de serializar ou enfileirar.
+ * <p>
+ * O filtro de tarefas só restringe eventos de uma tarefa; eventos da board inteira
+ * (colunas, reordenação, BOARD_UPDATED) passam. Eventos de controle (INIT, SNAPSHOT,
+ * RESYNC_REQUIRED...) nunca são filtrados.
+ *
+ * @param tipos           tipos aceitos; null aceita todos
+ * @param tarefas         tarefas aceitas; null aceita todas
+ * @param excluirProprios descarta eventos cujo autor é o próprio usuário da conexão
+ */
+public record StreamFilter(Set<String> tipos, Set<Long> tarefas, boolean excluirProprios) {
+
+    public static final StreamFilter TODOS = new StreamFilter(null, null, false);
+
+    /** Listas nulas ou vazias não filtram. */
+    public static StreamFilter of(Collection<String> tipos, Collection<Long> tarefas, boolean excluirProprios) {
+        Set<String> t = tipos == null || tipos.isEmpty() ? null : Set.copyOf(tipos);
+        Set<Long> ids = tarefas == null || tarefas.isEmpty() ? null : Set.copyOf(tarefas);
+        if (t == null && ids == null && !excluirProprios) return TODOS;
+        return new StreamFilter(t, ids, excluirProprios);
+    }
+
+    public boolean aceitaTudo() {
+        return tipos == null && tarefas == null && !excluirProprios;
+    }
+
+    boolean aceita(EventoInfo evento, String email) {
+        if (tipos != null && !tipos.contains(evento.tipo())) return false;
+        if (tarefas != null && evento.tarefaId() != null && !tarefas.contains(evento.tarefaId())) return false;
+        return !excluirProprios || evento.autor() == null || !evento.autor().equals(email);
+    }
+
+    boolean aceitaAlgum(List<EventoInfo> eventos, String email) {
+        for (EventoInfo e : eventos) {
+            if (aceita(e, email)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.taskmanager.realtime;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serialização dos eventos e o recorte de cada frame pelo filtro da conexão. Cada evento é
+ * serializado uma única vez ({@link SseFrame}) e o mesmo buffer vai para todas as conexões.
+ */
+@Component
+class StreamFrames {
+
+    private final ObjectMapper objectMapper;
+    private final StreamDispatcher dispatcher;
+
+    private final AtomicLong framesCodificados = new AtomicLong();
+    private final AtomicLong nanosCodificacao = new AtomicLong();
+    private final AtomicLong filtrados = new AtomicLong();
+
+    StreamFrames(ObjectMapper objectMapper, StreamDispatcher dispatcher) {
+        this.objectMapper = objectMapper;
+        this.dispatcher = dispatcher;
+    }
+
+    byte[] encode(Object payload) {
+        long inicio = System.nanoTime();
+        byte[] json = SseFrame.json(objectMapper, payload);
+        nanosCodificacao.addAndGet(System.nanoTime() - inicio);
+        framesCodificados.incrementAndGet();
+        return json;
+    }
+
+    /** Evento de controle (sem id, fora do replay) só para esta conexão. */
+    void enviar(StreamSubscriber subscriber, Object payload) {
+        dispatcher.enqueue(subscriber, SseFrame.of(null, "task", encode(payload)));
+    }
+
+    /**
+     * Envia um evento sem id (não entra no replay), ex.: eventos pessoais sem board.
+     */
+    void broadcast(Set<StreamSubscriber> subscribers, EventoInfo info, byte[] json) {
+        if (subscribers == null || subscribers.isEmpty()) return;
+        SseFrame frame = SseFrame.of(null, "task", json, List.of(info), List.of(json));
+        for (StreamSubscriber subscriber : subscribers) {
+            if (subscriber.aceita(info)) dispatcher.enqueue(subscriber, frame);
+            else filtrados.incrementAndGet();
+        }
+    }
+
+    /**
+     * Versão do frame para a conexão conforme o seu filtro: o frame inteiro, só os eventos aceitos
+     * (novo BATCH com o mesmo id) ou null se nada interessa. Conexões com o mesmo filtro
+     * compartilham o recorte via {@code cache} (opcional).
+     */
+    SseFrame selecionar(StreamSubscriber subscriber, SseFrame frame, Long boardId, Map<Object, SseFrame> cache) {
+        StreamFilter filtro = subscriber.getFiltro();
+        if (filtro.aceitaTudo() || frame.eventos().isEmpty()) return frame;
+        Object chave = filtro.excluirProprios() ? List.of(filtro, subscriber.getEmail()) : filtro;
+        if (cache != null && cache.containsKey(chave)) return cache.get(chave);
+        List<EventoInfo> infos = new ArrayList<>();
+        List<byte[]> partes = new ArrayList<>();
+        for (int i = 0; i < frame.eventos().size(); i++) {
+            if (subscriber.aceita(frame.eventos().get(i))) {
+                infos.add(frame.eventos().get(i));
+                partes.add(frame.partes().get(i));
+            }
+        }
+        SseFrame recorte;
+        if (infos.isEmpty()) {
+            recorte = null;
+            filtrados.incrementAndGet();
+        } else if (infos.size() == frame.eventos().size()) {
+            recorte = frame;
+        } else {
+            recorte = SseFrame.of(frame.id(), "task", EventCoalescer.lote(boardId, partes), infos, partes);
+        }
+        if (cache != null) cache.put(chave, recorte);
+        return recorte;
+    }
+
+    Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("framesEncoded", framesCodificados.get());
+        stats.put("encodeNanos", nanosCodificacao.get());
+        stats.put("filteredOut", filtrados.get());
+        return stats;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.taskmanager.realtime;
+
+import com.example.taskmanager.model.Usuario;
+import com.example.taskmanager.repository.UsuarioRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Presença nas boards ({@link BoardPresence}) ligada ao stream: heartbeats dos clientes, sinais
+ * entre instâncias pelo barramento e os anúncios PRESENCE às conexões da board.
+ */
+@Component
+class StreamPresence {
+    private static final Logger logger = LoggerFactory.getLogger(StreamPresence.class);
+
+    private final StreamRegistry registry;
+    private final StreamFrames frames;
+    private final RealtimeEventBus bus;
+    private final ObjectMapper objectMapper;
+    private final UsuarioRepository usuarioRepository;
+
+    @Value("${app.realtime.presence.ttl-ms:45000}")
+    private long ttlPresencaMs;
+
+    private BoardPresence presenca;
+
+    StreamPresence(StreamRegistry registry, StreamFrames frames, RealtimeEventBus bus, ObjectMapper objectMapper,
+                   UsuarioRepository usuarioRepository) {
+        this.registry = registry;
+        this.frames = frames;
+        this.bus = bus;
+        this.objectMapper = objectMapper;
+        this.usuarioRepository = usuarioRepository;
+    }
+
+    @PostConstruct
+    void init() {
+        presenca = new BoardPresence(ttlPresencaMs,
+                (boardId, sinal) -> bus.publish(new RealtimeMessage(RealtimeMessage.Tipo.PRESENCE, boardId, null, null, 0L,
+                        new EventoInfo("PRESENCE", null, null), SseFrame.json(objectMapper, sinal))),
+                this::anunciar);
+    }
+
+    /**
+     * Heartbeat: o usuário está vendo a board. Só o primeiro heartbeat de cada usuário nesta
+     * instância verifica o acesso e busca o nome; os seguintes só renovam o horário.
+     *
+     * @return quem está vendo a board agora
+     */
+    List<Map<String, Object>> registrar(Long boardId, String email) {
+        if (!presenca.renovar(boardId, email)) {
+            if (!registry.temAcesso(boardId, email)) {
+                throw new IllegalArgumentException("Acesso negado ao board");
+            }
+            presenca.entrar(boardId, email, usuarioRepository.findByEmail(email).map(Usuario::getNome).orElse(email));
+        }
+        return visitantes(presenca.presentes(boardId));
+    }
+
+    void sair(Long boardId, String email) {
+        presenca.sair(boardId, email);
+    }
+
+    /** Sinal de presença de outra instância, recebido pelo barramento. */
+    void aplicar(Long boardId, byte[] json) {
+        try {
+            presenca.aplicar(boardId, objectMapper.readValue(json, BoardPresence.Sinal.class));
+        } catch (IOException e) {
+            logger.warn("Sinal de presença inválido para a board {}: {}", boardId, e.getMessage());
+        }
+    }
+
+    /**
+     * Envia às conexões locais da board quem entrou e quem saiu desde o último anúncio.
+     */
+    private void anunciar(Long boardId, List<BoardPresence.Visitante> entraram, List<String> sairam) {
+        Set<StreamSubscriber> inscritos = registry.daBoard(boardId);
+        if (inscritos.isEmpty()) return;
+        EventoInfo info = new EventoInfo("PRESENCE", null, null);
+        if (inscritos.stream().noneMatch(s -> s.aceita(info))) return;
+        frames.broadcast(inscritos, info, frames.encode(Map.of(
+                "type", "PRESENCE",
+                "boardId", boardId,
+                "joined", visitantes(entraram),
+                "left", sairam
+        )));
+    }
+
+    private static List<Map<String, Object>> visitantes(List<BoardPresence.Visitante> lista) {
+        return lista.stream().<Map<String, Object>>map(v -> Map.of("email", v.email(), "nome", v.nome())).toList();
+    }
+
+    @Scheduled(fixedDelayString = "${app.realtime.presence.announce-interval-ms:1000}")
+    public void anunciarPresencas() {
+        presenca.anunciar();
+    }
+
+    @Scheduled(fixedDelayString = "${app.realtime.presence.refresh-interval-ms:15000}")
+    public void propagarPresencas() {
+        presenca.propagar();
+    }
+
+    Map<String, Object> stats() {
+        return presenca.stats();
+    }
+}
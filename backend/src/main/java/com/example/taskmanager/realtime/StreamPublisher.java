@@ -0,0 +1,534 @@
+package com.example.taskmanager.realtime;
+
+import com.example.taskmanager.model.Tarefa;
+import com.example.taskmanager.repository.BoardSequenceRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Caminho de um evento até as conexões: sequência da board, publicação no {@link RealtimeEventBus}
+ * depois do commit (com o outbox, gravado na transação), e na entrega de cada instância a janela
+ * de coalescência, o buffer de replay e o fan-out para os inscritos da board.
+ * <p>
+ * Com várias instâncias, cada uma recebe os eventos de todas e entrega só às suas conexões; os
+ * ids SSE são locais, então um cliente que reconecta em outra instância recebe RESYNC_REQUIRED.
+ */
+@Component
+class StreamPublisher {
+    private static final Logger logger = LoggerFactory.getLogger(StreamPublisher.class);
+
+    private final StreamRegistry registry;
+    private final StreamFrames frames;
+    private final StreamReplay replay;
+    private final StreamPresence presenca;
+    private final StreamDispatcher dispatcher;
+    private final BoardSequenceRepository sequenceRepository;
+    private final ObjectMapper objectMapper;
+    private final RealtimeEventBus bus;
+    private final RealtimeOutbox outbox; // null quando o outbox está desativado
+
+    @Value("${app.realtime.coalesce-window-ms:0}")
+    private long janelaCoalescenciaMs;
+
+    @Value("${app.realtime.order-wait-ms:200}")
+    private long esperaOrdemMs;
+
+    private EventCoalescer coalescer; // null quando a janela está desativada
+    private EventSequencer ordem; // null quando a reordenação está desativada
+
+    private final AtomicLong adiados = new AtomicLong();
+    private final AtomicLong omitidos = new AtomicLong();
+
+    StreamPublisher(StreamRegistry registry, StreamFrames frames, StreamReplay replay, StreamPresence presenca,
+                    StreamDispatcher dispatcher, BoardSequenceRepository sequenceRepository, ObjectMapper objectMapper,
+                    RealtimeEventBus bus, Optional<RealtimeOutbox> outbox) {
+        this.registry = registry;
+        this.frames = frames;
+        this.replay = replay;
+        this.presenca = presenca;
+        this.dispatcher = dispatcher;
+        this.sequenceRepository = sequenceRepository;
+        this.objectMapper = objectMapper;
+        this.bus = bus;
+        this.outbox = outbox.orElse(null);
+    }
+
+    @PostConstruct
+    void init() {
+        if (janelaCoalescenciaMs > 0) {
+            coalescer = new EventCoalescer(janelaCoalescenciaMs, this::mesclar,
+                    (boardId, seq, infos, eventos) -> publicar(boardId, Set.of(), seq, infos, eventos));
+        }
+        if (esperaOrdemMs > 0) {
+            ordem = new EventSequencer(esperaOrdemMs, this::entregarNaOrdem);
+        }
+        bus.start(this::entregar, replay::resyncLocal);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (coalescer != null) coalescer.shutdown();
+        if (ordem != null) ordem.shutdown();
+    }
+
+    /**
+     * Evento de board. A sequência da board (enviada no payload como "seq") só é atribuída no
+     * commit, junto com a dos outros eventos da transação (ver {@link EventosDaTransacao}); fora
+     * de uma transação, na hora. A sequência avança mesmo sem ninguém assistindo, pois também é a
+     * versão da board no ETag e no SNAPSHOT.
+     */
+    void noBoard(RealtimeMessage.Tipo tipo, Long boardId, String email, String chave, Map<String, Object> payload) {
+        EventoInfo info = infoDe(payload);
+        Set<StreamSubscriber> inscritos = registry.daBoard(boardId);
+        Entrada entrada;
+        if (tipo == RealtimeMessage.Tipo.BOARD && semAudiencia(boardId)) {
+            entrada = Entrada.descartada(boardId, info, false);
+        } else if (tipo == RealtimeMessage.Tipo.BOARD && !inscritos.isEmpty() && semInteressados(inscritos, info)) {
+            // sem inscritos (só o buffer retido) o evento é serializado para o replay, como sempre
+            entrada = Entrada.descartada(boardId, info, true);
+        } else {
+            Map<String, Object> comBoard = new LinkedHashMap<>(payload);
+            comBoard.putIfAbsent("boardId", boardId);
+            entrada = Entrada.deBoard(tipo, boardId, email, chave, info, frames.encode(comBoard));
+        }
+        EventosDaTransacao transacao = transacaoCorrente();
+        if (transacao != null) {
+            transacao.entradas.add(entrada);
+            adiados.incrementAndGet();
+            return;
+        }
+        numerar(List.of(entrada));
+        concluir(entrada);
+    }
+
+    /** Evento pessoal, para as conexões do usuário. */
+    void paraUsuario(String email, Map<String, Object> payload) {
+        EventoInfo info = infoDe(payload);
+        if (semInteressados(registry.doUsuario(email), info)) return;
+        emitir(RealtimeMessage.user(email, info, frames.encode(payload)));
+    }
+
+    /** Evento sem board, para todas as conexões. */
+    void paraTodos(Map<String, Object> payload) {
+        EventoInfo info = infoDe(payload);
+        if (semInteressados(registry.todas(), info)) return;
+        emitir(RealtimeMessage.all(info, frames.encode(payload)));
+    }
+
+    /**
+     * Publica a mensagem no barramento; dentro de uma transação, só depois do commit (e nada no
+     * rollback), para que o cliente nunca receba algo que ainda não está visível.
+     */
+    private void emitir(RealtimeMessage mensagem) {
+        EventosDaTransacao transacao = transacaoCorrente();
+        if (transacao == null) {
+            bus.publish(mensagem);
+        } else {
+            transacao.entradas.add(Entrada.pronta(mensagem));
+            adiados.incrementAndGet();
+        }
+    }
+
+    /**
+     * Evento emitido e ainda não publicado. Eventos de board recebem a sequência em
+     * {@link #numerar}; sem {@code json}, o evento não sai desta instância (sem audiência, ou
+     * {@code omitido} pelo filtro dos inscritos) mas consome a sua sequência do mesmo jeito.
+     */
+    private static final class Entrada {
+        private final RealtimeMessage.Tipo tipo;
+        private final Long boardId;
+        private final String email;
+        private final String chave;
+        private final EventoInfo info;
+        private final byte[] json;
+        private final boolean omitido;
+        private RealtimeMessage mensagem;
+        private Long outboxId;
+        private long seq;
+
+        private Entrada(RealtimeMessage.Tipo tipo, Long boardId, String email, String chave, EventoInfo info,
+                        byte[] json, boolean omitido) {
+            this.tipo = tipo;
+            this.boardId = boardId;
+            this.email = email;
+            this.chave = chave;
+            this.info = info;
+            this.json = json;
+            this.omitido = omitido;
+        }
+
+        static Entrada deBoard(RealtimeMessage.Tipo tipo, Long boardId, String email, String chave, EventoInfo info, byte[] json) {
+            return new Entrada(tipo, boardId, email, chave, info, json, false);
+        }
+
+        static Entrada descartada(Long boardId, EventoInfo info, boolean omitido) {
+            return new Entrada(RealtimeMessage.Tipo.BOARD, boardId, null, null, info, null, omitido);
+        }
+
+        /** Evento pessoal ou global: não tem sequência de board. */
+        static Entrada pronta(RealtimeMessage mensagem) {
+            Entrada e = new Entrada(mensagem.tipo(), null, null, null, mensagem.info(), null, false);
+            e.mensagem = mensagem;
+            return e;
+        }
+    }
+
+    /**
+     * Atribui as sequências dos eventos de board, em ordem de emissão: um UPDATE por board que
+     * reserva todos os números de uma vez, com as boards em ordem de id para que duas transações
+     * nunca esperem uma pela outra em ordem inversa.
+     */
+    private void numerar(List<Entrada> entradas) {
+        Map<Long, Integer> porBoard = new TreeMap<>();
+        for (Entrada e : entradas) {
+            if (e.boardId != null) porBoard.merge(e.boardId, 1, Integer::sum);
+        }
+        Map<Long, Long> proxima = new HashMap<>();
+        porBoard.forEach((boardId, quantidade) -> {
+            long ultima = sequenceRepository.incrementar(boardId, quantidade);
+            proxima.put(boardId, ultima == 0 ? 0L : ultima - quantidade + 1);
+        });
+        for (Entrada e : entradas) {
+            if (e.boardId == null) continue;
+            e.seq = proxima.get(e.boardId);
+            if (e.seq != 0) proxima.put(e.boardId, e.seq + 1);
+            if (e.json != null) {
+                e.mensagem = new RealtimeMessage(e.tipo, e.boardId, e.email, e.chave, e.seq, e.info, comSeq(e.json, e.seq));
+            }
+        }
+    }
+
+    /** Acrescenta "seq" ao objeto JSON já serializado, sem serializar o payload de novo. */
+    private static byte[] comSeq(byte[] json, long seq) {
+        byte[] campo = ((json.length > 2 ? ",\"seq\":" : "\"seq\":") + seq + "}").getBytes(StandardCharsets.UTF_8);
+        byte[] saida = Arrays.copyOf(json, json.length - 1 + campo.length);
+        System.arraycopy(campo, 0, saida, json.length - 1, campo.length);
+        return saida;
+    }
+
+    /**
+     * Publica o evento; o que não sai desta instância deixa a sua marca no buffer de replay e
+     * libera a sua sequência na reordenação.
+     */
+    private void concluir(Entrada e) {
+        if (e.mensagem != null) {
+            bus.publish(e.outboxId == null ? e.mensagem : e.mensagem.comOutbox(e.outboxId));
+            if (e.outboxId != null) outbox.marcarPublicado(e.outboxId);
+            return;
+        }
+        if (e.omitido) omitir(e.boardId, e.info);
+        if (e.boardId != null && ordem != null) ordem.pular(e.boardId, e.seq);
+    }
+
+    /**
+     * Eventos de uma transação, publicados só depois do commit. No {@code beforeCommit} recebem as
+     * sequências ({@link #numerar}) e, com o outbox ativo, são gravados na própria transação para
+     * sobreviver a uma queda. Assim o lock da linha da board vai do fim da transação ao commit, e
+     * não do primeiro evento até o commit.
+     */
+    private final class EventosDaTransacao implements TransactionSynchronization {
+        private final List<Entrada> entradas = new ArrayList<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            numerar(entradas);
+            if (outbox == null) return;
+            for (Entrada e : entradas) {
+                if (e.mensagem != null) e.outboxId = outbox.registrar(e.mensagem);
+            }
+        }
+
+        @Override
+        public void afterCommit() {
+            for (Entrada e : entradas) {
+                try {
+                    concluir(e);
+                } catch (RuntimeException ex) {
+                    // a alteração já foi confirmada: não propaga para quem fez o commit
+                    logger.error("Falha ao publicar evento realtime após o commit", ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Os eventos pendentes da transação corrente (criados no primeiro evento); null fora de uma
+     * transação. Procurados entre as sincronizações, que o Spring suspende numa REQUIRES_NEW.
+     */
+    private EventosDaTransacao transacaoCorrente() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        for (TransactionSynchronization s : TransactionSynchronizationManager.getSynchronizations()) {
+            if (s instanceof EventosDaTransacao eventos) return eventos;
+        }
+        EventosDaTransacao eventos = new EventosDaTransacao();
+        TransactionSynchronizationManager.registerSynchronization(eventos);
+        return eventos;
+    }
+
+    /**
+     * Evento que nenhum inscrito local aceita: não é serializado, mas deixa uma marca no buffer
+     * de replay para que uma reconexão cujo filtro o aceitaria receba RESYNC_REQUIRED.
+     */
+    private void omitir(Long boardId, EventoInfo info) {
+        omitidos.incrementAndGet();
+        ReentrantLock lock = registry.lockDaBoard(boardId);
+        lock.lock();
+        try {
+            EventRing ring = registry.ring(boardId);
+            if (ring != null) ring.add(registry.proximaSequencia(), SseFrame.omitido(info));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Entrega local de uma mensagem do barramento (publicada por esta ou por outra instância).
+     * Eventos de board passam antes pela reordenação, que os libera em ordem de sequência.
+     */
+    private void entregar(RealtimeMessage mensagem) {
+        if (outbox != null && !outbox.primeiraEntrega(mensagem)) return; // republicada pelo relay
+        switch (mensagem.tipo()) {
+            case BOARD, BOARD_SHARED, BOARD_UNSHARED -> {
+                if (ordem != null) ordem.submit(mensagem);
+                else entregarNaOrdem(mensagem);
+            }
+            case PRESENCE -> presenca.aplicar(mensagem.boardId(), mensagem.json());
+            case USER -> frames.broadcast(registry.doUsuario(mensagem.email()), mensagem.info(), mensagem.json());
+            case ALL -> frames.broadcast(new LinkedHashSet<>(registry.todas()), mensagem.info(), mensagem.json());
+        }
+    }
+
+    private void entregarNaOrdem(RealtimeMessage mensagem) {
+        switch (mensagem.tipo()) {
+            case BOARD -> entregarNoBoard(mensagem.boardId(), mensagem.chave(), mensagem.seq(), mensagem.info(), mensagem.json());
+            case BOARD_SHARED -> entregarCompartilhamento(mensagem.boardId(), mensagem.email(), mensagem.seq(), mensagem.info(), mensagem.json());
+            case BOARD_UNSHARED -> entregarDescompartilhamento(mensagem.boardId(), mensagem.email(), mensagem.seq(), mensagem.info(), mensagem.json());
+            default -> throw new IllegalArgumentException("Evento fora de board: " + mensagem.tipo());
+        }
+    }
+
+    /** Esquece o estado de reordenação das boards paradas há mais de um minuto. */
+    @Scheduled(fixedDelay = 60_000)
+    public void podarOrdem() {
+        if (ordem != null) ordem.podar(60_000);
+    }
+
+    /**
+     * Evento de board que pode passar pela janela de coalescência; eventos com a mesma
+     * {@code chave} na janela ficam só com o último (chave nula nunca colapsa).
+     */
+    private void entregarNoBoard(Long boardId, String chave, long seq, EventoInfo info, byte[] json) {
+        if (!registry.assistida(boardId)) return; // ninguém assistindo nesta instância
+        if (coalescer != null) {
+            coalescer.submit(boardId, chave, seq, info, json);
+        } else {
+            publicar(boardId, Set.of(), seq, List.of(info), List.of(json));
+        }
+    }
+
+    /**
+     * As conexões locais do usuário passam a receber a board (ou, se acompanham só boards
+     * escolhidas, recebem ao menos este evento).
+     */
+    private void entregarCompartilhamento(Long boardId, String email, long seq, EventoInfo info, byte[] json) {
+        Set<StreamSubscriber> extras = new LinkedHashSet<>();
+        for (StreamSubscriber s : registry.doUsuario(email)) {
+            if (s.getBoardIds().contains(boardId)) continue; // já recebe pelo canal do board
+            if (s.isTodosBoards()) inscrever(s, boardId);
+            else extras.add(s);
+        }
+        publishToBoard(boardId, extras, seq, info, json);
+    }
+
+    private void inscrever(StreamSubscriber subscriber, Long boardId) {
+        ReentrantLock lock = registry.lockDaBoard(boardId);
+        lock.lock();
+        try {
+            registry.inscrever(subscriber, boardId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * O usuário removido perde o acesso: recebe este último evento e sai do canal da board.
+     */
+    private void entregarDescompartilhamento(Long boardId, String email, long seq, EventoInfo info, byte[] json) {
+        Set<StreamSubscriber> extras = new LinkedHashSet<>();
+        if (email != null) {
+            ReentrantLock lock = registry.lockDaBoard(boardId);
+            lock.lock();
+            try {
+                for (StreamSubscriber s : registry.doUsuario(email)) {
+                    registry.desinscrever(s, boardId);
+                    extras.add(s);
+                }
+            } finally {
+                lock.unlock();
+            }
+            presenca.sair(boardId, email); // perdeu o acesso: não espera o TTL
+        }
+        publishToBoard(boardId, extras, seq, info, json);
+    }
+
+    /**
+     * Mescla eventos consecutivos de mesma chave na janela de coalescência: patches da mesma
+     * tarefa somam os campos (o mais novo vence); reordenações somam os patches por tarefa;
+     * snapshots completos ficam só com o último.
+     */
+    private byte[] mesclar(String chave, byte[] anterior, byte[] novo) {
+        boolean patch = chave.startsWith("TASK_PATCH:");
+        if (!patch && !chave.equals("TASKS_REORDERED")) return novo;
+        try {
+            ObjectNode a = (ObjectNode) objectMapper.readTree(anterior);
+            ObjectNode b = (ObjectNode) objectMapper.readTree(novo);
+            if (patch) {
+                mesclarPatch(a, b);
+            } else {
+                Map<Long, ObjectNode> porTarefa = new LinkedHashMap<>();
+                for (JsonNode t : a.withArray("tasks")) porTarefa.put(t.get("id").asLong(), (ObjectNode) t);
+                for (JsonNode t : b.withArray("tasks")) {
+                    ObjectNode existente = porTarefa.get(t.get("id").asLong());
+                    if (existente != null) mesclarPatch(existente, (ObjectNode) t);
+                    else porTarefa.put(t.get("id").asLong(), (ObjectNode) t);
+                }
+                ArrayNode tasks = a.putArray("tasks");
+                porTarefa.values().forEach(tasks::add);
+            }
+            if (b.has("seq")) a.set("seq", b.get("seq"));
+            return objectMapper.writeValueAsBytes(a);
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Eventos {} não mesclados: {}", chave, e.getMessage());
+            return null;
+        }
+    }
+
+    private static void mesclarPatch(ObjectNode anterior, ObjectNode novo) {
+        anterior.withObject("changes").setAll((ObjectNode) novo.get("changes"));
+        anterior.set("version", novo.get("version"));
+        if (novo.has("seq")) anterior.set("seq", novo.get("seq"));
+        if (novo.has("by")) anterior.set("by", novo.get("by"));
+    }
+
+    /**
+     * Evento de board entregue na hora (também às conexões extras); o lote pendente da
+     * board sai antes para não inverter a ordem.
+     */
+    private void publishToBoard(Long boardId, Set<StreamSubscriber> extras, long seq, EventoInfo info, byte[] json) {
+        if (coalescer != null) coalescer.flush(boardId);
+        if (!registry.assistida(boardId) && extras.isEmpty()) return;
+        publicar(boardId, extras, seq, List.of(info), List.of(json));
+    }
+
+    /**
+     * Publica um evento de board (ou o lote da janela de coalescência): recebe a próxima
+     * sequência, entra no buffer de replay e vai para os inscritos da board mais as conexões
+     * extras informadas, cada uma com o recorte que o seu filtro aceita. Só o lock desta board
+     * fica travado; as demais publicam em paralelo.
+     */
+    private void publicar(Long boardId, Set<StreamSubscriber> extras, long boardSeq,
+                          List<EventoInfo> infos, List<byte[]> partes) {
+        ReentrantLock lock = registry.lockDaBoard(boardId);
+        lock.lock();
+        StreamRegistry.Numero numero = registry.numerar();
+        try {
+            SseFrame frame = SseFrame.of(registry.id(numero.cursor()), "task", EventCoalescer.lote(boardId, partes),
+                    List.copyOf(infos), List.copyOf(partes));
+            EventRing ring = registry.ring(boardId);
+            if (ring != null) ring.add(numero.seq(), frame);
+            Map<Object, SseFrame> porFiltro = new HashMap<>();
+            for (StreamSubscriber subscriber : registry.daBoard(boardId)) {
+                if (subscriber.filtrar(boardId, boardSeq, frame)) continue; // retido ou já no snapshot
+                SseFrame parte = frames.selecionar(subscriber, frame, boardId, porFiltro);
+                if (parte != null) dispatcher.enqueue(subscriber, parte);
+            }
+            for (StreamSubscriber subscriber : extras) {
+                SseFrame parte = frames.selecionar(subscriber, frame, boardId, porFiltro);
+                if (parte != null) dispatcher.enqueue(subscriber, parte);
+            }
+        } finally {
+            registry.concluir(numero);
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sem outras instâncias, um evento de board sem inscritos locais nem precisa ser serializado.
+     */
+    private boolean semAudiencia(Long boardId) {
+        return !bus.isDistributed() && !registry.assistida(boardId);
+    }
+
+    /**
+     * Sem outras instâncias, nenhuma das conexões informadas aceita o evento: não vale serializar.
+     * Com o barramento distribuído não dá para saber o que as outras instâncias querem.
+     */
+    private boolean semInteressados(Collection<StreamSubscriber> conexoes, EventoInfo info) {
+        if (bus.isDistributed()) return false;
+        for (StreamSubscriber s : conexoes) {
+            if (s.aceita(info)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Tipo, tarefa e autor do evento; o autor é o usuário autenticado na thread que emite.
+     */
+    private static EventoInfo infoDe(Map<String, Object> payload) {
+        Object tipo = payload.get("type");
+        Long tarefaId = null;
+        if (payload.get("task") instanceof Tarefa t) {
+            tarefaId = t.getId();
+        } else if (payload.get("tarefaId") instanceof Number n) {
+            tarefaId = n.longValue();
+        } else if (tipo instanceof String s && s.startsWith("TASK_") && payload.get("id") instanceof Number n) {
+            tarefaId = n.longValue();
+        }
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        String autor = auth != null && auth.isAuthenticated() ? auth.getName() : null;
+        return new EventoInfo(tipo == null ? null : tipo.toString(), tarefaId, autor);
+    }
+
+    Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("notEncoded", omitidos.get());
+        if (coalescer != null) stats.putAll(coalescer.stats());
+        if (ordem != null) stats.putAll(ordem.stats());
+        stats.put("deferredUntilCommit", adiados.get());
+        stats.putAll(bus.stats());
+        if (outbox != null) stats.putAll(outbox.stats());
+        return stats;
+    }
+}
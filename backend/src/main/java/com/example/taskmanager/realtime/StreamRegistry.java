@@ -0,0 +1,315 @@
+package com.example.taskmanager.realtime;
+
+import com.example.taskmanager.repository.BoardRepository;
+import com.example.taskmanager.repository.BoardShareRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Conexões abertas nesta instância: canais por board e por usuário, o buffer de replay de cada
+ * board assistida ({@link EventRing}) e os limites de conexões por usuário e por instância.
+ * <p>
+ * O lock da board ({@link #lockDaBoard}, um de {@value #LOCKS} por hash do id) serializa a
+ * numeração, a escrita no buffer e o enfileiramento de cada evento da board, e também a inscrição
+ * com replay: nenhum evento da board cai entre o replay e o stream. Boards diferentes publicam em
+ * paralelo.
+ * <p>
+ * Por isso uma conexão em duas boards pode receber a sequência 11 (board B) antes da 10 (board A).
+ * O id "{época}-{n}" de cada frame não é a sua sequência, e sim o cursor de {@link #numerar}: a
+ * maior sequência abaixo da qual todos os eventos já foram enfileirados quando ela foi numerada.
+ * Reconectando com esse id, o replay inclui tudo o que a conexão pode ter perdido. Os eventos
+ * repetidos são descartados pelo cliente pela sequência da board.
+ */
+@Component
+class StreamRegistry {
+
+    // boardId -> conexões inscritas no board
+    private final Map<Long, Set<StreamSubscriber>> boardChannels = new ConcurrentHashMap<>();
+    // email -> conexões do usuário (eventos pessoais, ex.: board compartilhado com ele)
+    private final Map<String, Set<StreamSubscriber>> userChannels = new ConcurrentHashMap<>();
+    // boardId -> últimos eventos da board, para replay na reconexão
+    private final Map<Long, EventRing> rings = new ConcurrentHashMap<>();
+
+    static final int LOCKS = 64;
+    private final ReentrantLock[] locks = new ReentrantLock[LOCKS];
+    // numeração e sequências em publicação (numeradas, ainda enfileirando); trecho curto, sem I/O
+    private final ReentrantLock numeracao = new ReentrantLock();
+    private final ConcurrentSkipListSet<Long> emPublicacao = new ConcurrentSkipListSet<>();
+    private final AtomicLong sequencia = new AtomicLong();
+    // Muda a cada inicialização: ids de outra instância/execução forçam resync
+    private final String epoca = Long.toString(System.currentTimeMillis(), 36);
+
+    private final BoardRepository boardRepository;
+    private final BoardShareRepository boardShareRepository;
+    private final StreamDispatcher dispatcher;
+
+    @Value("${app.realtime.replay-buffer-size:512}")
+    private int capacidadeReplay;
+
+    @Value("${app.realtime.replay-retention-ms:300000}")
+    private long retencaoReplayMs;
+
+    @Value("${app.realtime.heartbeat-interval-ms:15000}")
+    private long intervaloHeartbeatMs;
+
+    @Value("${app.realtime.max-connections-per-user:10}")
+    private int maxConexoesPorUsuario;
+
+    @Value("${app.realtime.max-connections:10000}")
+    private int maxConexoes;
+
+    private final AtomicInteger conexoesAtivas = new AtomicInteger();
+    // vagas reservadas por usuário (o limite por usuário conta reservas, não só conexões já registradas)
+    private final Map<String, Integer> conexoesPorUsuario = new ConcurrentHashMap<>();
+    private final AtomicLong rejeitadas = new AtomicLong();
+
+    StreamRegistry(BoardRepository boardRepository, BoardShareRepository boardShareRepository,
+                   StreamDispatcher dispatcher) {
+        this.boardRepository = boardRepository;
+        this.boardShareRepository = boardShareRepository;
+        this.dispatcher = dispatcher;
+        for (int i = 0; i < LOCKS; i++) locks[i] = new ReentrantLock();
+    }
+
+    boolean temAcesso(Long boardId, String email) {
+        return boardRepository.existsByIdAndUsuarioEmail(boardId, email)
+                || boardShareRepository.existsByBoardIdAndSharedWithEmail(boardId, email);
+    }
+
+    /** Boards próprias e compartilhadas do usuário. */
+    Set<Long> boardsDoUsuario(String email, Set<Long> destino) {
+        destino.addAll(boardRepository.findIdsByUsuarioEmail(email));
+        destino.addAll(boardShareRepository.findBoardIdsBySharedWithEmail(email));
+        return destino;
+    }
+
+    /**
+     * Reserva uma vaga nos limites por usuário e da instância (a checagem e o incremento de cada
+     * limite são uma só operação atômica); a vaga volta quando a conexão fecha ({@link #remover}),
+     * e quem abre deve fechar a conexão se algo falhar depois da reserva.
+     */
+    void reservar(String email) {
+        boolean[] excedeu = {false};
+        conexoesPorUsuario.compute(email, (k, n) -> {
+            int atuais = n == null ? 0 : n;
+            if (atuais >= maxConexoesPorUsuario) {
+                excedeu[0] = true;
+                return n;
+            }
+            return atuais + 1;
+        });
+        if (excedeu[0]) {
+            rejeitadas.incrementAndGet();
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Limite de conexões realtime por usuário atingido");
+        }
+        if (conexoesAtivas.incrementAndGet() > maxConexoes) {
+            liberar(email);
+            rejeitadas.incrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Limite de conexões realtime da instância atingido");
+        }
+    }
+
+    private void liberar(String email) {
+        conexoesAtivas.decrementAndGet();
+        conexoesPorUsuario.computeIfPresent(email, (k, n) -> n > 1 ? n - 1 : null);
+    }
+
+    /** Registra a conexão no canal do usuário (eventos pessoais). */
+    void adicionar(StreamSubscriber subscriber) {
+        userChannels.computeIfAbsent(subscriber.getEmail(), k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+    }
+
+    /**
+     * Inscreve a conexão no canal da board, criando o buffer de replay se a board não era
+     * assistida. Chamado com o lock da board.
+     */
+    void inscrever(StreamSubscriber subscriber, Long boardId) {
+        rings.computeIfAbsent(boardId, k -> new EventRing(capacidadeReplay, sequencia.get()));
+        subscriber.getBoardIds().add(boardId);
+        boardChannels.computeIfAbsent(boardId, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        if (subscriber.isFechado()) desinscrever(subscriber, boardId); // fechou durante a inscrição
+    }
+
+    void desinscrever(StreamSubscriber subscriber, Long boardId) {
+        subscriber.getBoardIds().remove(boardId);
+        removeFromChannel(boardChannels, boardId, subscriber);
+        EventRing ring = rings.get(boardId);
+        if (ring != null) ring.tocar(); // retenção do buffer conta a partir da última saída
+    }
+
+    /** Conexão encerrada: sai de todos os canais e devolve a vaga. */
+    void remover(StreamSubscriber subscriber) {
+        for (Long boardId : subscriber.getBoardIds()) {
+            removeFromChannel(boardChannels, boardId, subscriber);
+            EventRing ring = rings.get(boardId);
+            if (ring != null) ring.tocar();
+        }
+        removeFromChannel(userChannels, subscriber.getEmail(), subscriber);
+        liberar(subscriber.getEmail());
+    }
+
+    private static <K> void removeFromChannel(Map<K, Set<StreamSubscriber>> channels, K key, StreamSubscriber subscriber) {
+        channels.computeIfPresent(key, (k, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    Set<StreamSubscriber> daBoard(Long boardId) {
+        return boardChannels.getOrDefault(boardId, Set.of());
+    }
+
+    Set<StreamSubscriber> doUsuario(String email) {
+        return email == null ? Set.of() : userChannels.getOrDefault(email, Set.of());
+    }
+
+    List<StreamSubscriber> todas() {
+        return userChannels.values().stream().flatMap(Set::stream).toList();
+    }
+
+    Collection<Set<StreamSubscriber>> porUsuario() {
+        return userChannels.values();
+    }
+
+    /** Se alguma conexão desta instância assiste (ou assistiu há pouco) a board. */
+    boolean assistida(Long boardId) {
+        return rings.containsKey(boardId);
+    }
+
+    EventRing ring(Long boardId) {
+        return rings.get(boardId);
+    }
+
+    /** Lock de publicação e inscrição da board. */
+    ReentrantLock lockDaBoard(Long boardId) {
+        return locks[indice(boardId)];
+    }
+
+    private static int indice(Long boardId) {
+        return Math.floorMod(Long.hashCode(boardId), LOCKS);
+    }
+
+    /**
+     * Trava os locks de várias boards, sempre na mesma ordem (sem deadlock entre inscrições).
+     *
+     * @return os locks travados, para {@link #destravar}
+     */
+    List<ReentrantLock> travar(Collection<Long> boardIds) {
+        List<ReentrantLock> travados = boardIds.stream().map(StreamRegistry::indice).distinct().sorted()
+                .map(i -> locks[i]).toList();
+        travados.forEach(ReentrantLock::lock);
+        return travados;
+    }
+
+    void destravar(List<ReentrantLock> travados) {
+        for (int i = travados.size() - 1; i >= 0; i--) travados.get(i).unlock();
+    }
+
+    /**
+     * Sequência de um evento que vai ser enfileirado e o cursor do seu id: a maior sequência
+     * abaixo da qual não há nada em publicação. Chamado com o lock da board; termina com
+     * {@link #concluir}.
+     */
+    Numero numerar() {
+        numeracao.lock();
+        try {
+            long seq = sequencia.incrementAndGet();
+            emPublicacao.add(seq);
+            return new Numero(seq, emPublicacao.first() - 1);
+        } finally {
+            numeracao.unlock();
+        }
+    }
+
+    /** O evento já foi enfileirado em todas as conexões. */
+    void concluir(Numero numero) {
+        emPublicacao.remove(numero.seq());
+    }
+
+    record Numero(long seq, long cursor) {}
+
+    /** Sequência de um evento que não é enfileirado (marca no buffer); chamado com o lock da board. */
+    long proximaSequencia() {
+        return sequencia.incrementAndGet();
+    }
+
+    String id(long seq) {
+        return epoca + "-" + seq;
+    }
+
+    /**
+     * Extrai a sequência de um id "{época}-{n}"; null se o id é de outra execução ou inválido.
+     */
+    Long sequenciaDe(String lastEventId) {
+        int sep = lastEventId.lastIndexOf('-');
+        if (sep <= 0 || !lastEventId.substring(0, sep).equals(epoca)) return null;
+        try {
+            return Long.parseLong(lastEventId.substring(sep + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Envia heartbeat a todas as conexões; uma escrita que falha encerra a conexão. Conexões cujo
+     * escritor não conclui nada há três intervalos (socket travado) são ceifadas.
+     */
+    @Scheduled(fixedDelayString = "${app.realtime.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        long limite = System.currentTimeMillis() - 3 * intervaloHeartbeatMs;
+        for (Set<StreamSubscriber> conexoes : userChannels.values()) {
+            for (StreamSubscriber s : conexoes) {
+                if (s.tamanhoFila() > 0 && s.getUltimaEscrita() < limite) {
+                    dispatcher.ceifar(s);
+                } else {
+                    dispatcher.enqueue(s, SseFrame.HEARTBEAT);
+                }
+            }
+        }
+    }
+
+    /**
+     * Descarta buffers de replay de boards sem inscritos há mais que a retenção configurada.
+     */
+    @Scheduled(fixedDelayString = "${app.realtime.replay-retention-ms:300000}")
+    public void podarBuffers() {
+        long limite = System.currentTimeMillis() - retencaoReplayMs;
+        for (Long boardId : rings.keySet()) {
+            ReentrantLock lock = lockDaBoard(boardId);
+            lock.lock();
+            try {
+                EventRing ring = rings.get(boardId);
+                if (ring != null && !boardChannels.containsKey(boardId) && ring.getUltimaAtividade() < limite) {
+                    rings.remove(boardId);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("connections", conexoesAtivas.get());
+        stats.put("maxConnections", maxConexoes);
+        stats.put("maxConnectionsPerUser", maxConexoesPorUsuario);
+        stats.put("rejected", rejeitadas.get());
+        stats.put("boardChannels", boardChannels.size());
+        stats.put("replayBuffers", rings.size());
+        return stats;
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.taskmanager.realtime;
+
+import com.example.taskmanager.service.BoardSnapshotService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * O que uma conexão recebe ao se inscrever para alcançar o stream: os eventos perdidos desde o
+ * Last-Event-ID (do {@link EventRing} da board), um SNAPSHOT da board, ou RESYNC_REQUIRED
+ * quando nenhum dos dois cobre o intervalo.
+ */
+@Component
+class StreamReplay {
+    private static final Logger logger = LoggerFactory.getLogger(StreamReplay.class);
+
+    private final StreamRegistry registry;
+    private final StreamFrames frames;
+    private final StreamDispatcher dispatcher;
+    private final BoardSnapshotService snapshotService;
+
+    private final AtomicLong replays = new AtomicLong();
+    private final AtomicLong resyncs = new AtomicLong();
+    private final AtomicLong snapshots = new AtomicLong();
+
+    StreamReplay(StreamRegistry registry, StreamFrames frames, StreamDispatcher dispatcher,
+                 BoardSnapshotService snapshotService) {
+        this.registry = registry;
+        this.frames = frames;
+        this.dispatcher = dispatcher;
+        this.snapshotService = snapshotService;
+    }
+
+    /**
+     * Reenvia o que a conexão perdeu. Um evento omitido (não serializado por falta de interessados)
+     * que o filtro desta conexão aceitaria força o resync da board. Chamado com os locks das boards.
+     * {@code ultimo} é o cursor do último id recebido: o que vier repetido o cliente descarta pela
+     * sequência da board.
+     *
+     * @param avisar se as boards que o buffer não cobre recebem RESYNC_REQUIRED (falso quando quem
+     *               chama vai mandar um SNAPSHOT delas)
+     * @return as boards que o buffer não cobre
+     */
+    List<Long> replay(StreamSubscriber subscriber, Set<Long> inscricoes, Set<Long> comBuffer, Long ultimo,
+                      boolean avisar) {
+        List<Long> resync = new ArrayList<>();
+        List<EventRing.Entrada> perdidos = new ArrayList<>();
+        for (Long boardId : inscricoes) {
+            EventRing ring = registry.ring(boardId);
+            if (ultimo == null || !comBuffer.contains(boardId) || ring == null || !ring.cobre(ultimo)) {
+                resync.add(boardId);
+                continue;
+            }
+            List<EventRing.Entrada> daBoard = new ArrayList<>();
+            boolean lacuna = false;
+            for (EventRing.Entrada e : ring.desde(ultimo)) {
+                if (!e.frame().isOmitido()) {
+                    SseFrame frame = frames.selecionar(subscriber, e.frame(), boardId, null);
+                    if (frame != null) daBoard.add(new EventRing.Entrada(e.seq(), frame));
+                } else if (subscriber.getFiltro().aceitaAlgum(e.frame().eventos(), subscriber.getEmail())) {
+                    lacuna = true;
+                    break;
+                }
+            }
+            if (lacuna) resync.add(boardId); else perdidos.addAll(daBoard);
+        }
+        if (avisar && !resync.isEmpty()) {
+            frames.enviar(subscriber, Map.of("type", "RESYNC_REQUIRED", "boardIds", resync));
+        }
+        perdidos.sort(Comparator.comparingLong(EventRing.Entrada::seq));
+        for (EventRing.Entrada e : perdidos) {
+            dispatcher.enqueue(subscriber, e.frame());
+        }
+        replays.incrementAndGet();
+        if (avisar && !resync.isEmpty()) resyncs.incrementAndGet();
+        return resync;
+    }
+
+    /**
+     * Lê o SNAPSHOT da board e o envia seguido dos eventos retidos durante a leitura que ele não
+     * reflete (seq maior que a do snapshot). Chamado sem o lock da board: a leitura vai ao banco.
+     */
+    void enviarSnapshot(StreamSubscriber subscriber, Long boardId) {
+        long corte = 0L;
+        SseFrame frame = null;
+        try {
+            Map<String, Object> snap = snapshotService.carregar(boardId);
+            corte = (Long) snap.get("seq");
+            frame = SseFrame.of(null, "task", frames.encode(snap));
+        } catch (RuntimeException e) {
+            logger.warn("Falha ao carregar snapshot da board {}: {}", boardId, e.getMessage());
+        }
+        ReentrantLock lock = registry.lockDaBoard(boardId);
+        lock.lock();
+        try {
+            if (frame != null) {
+                dispatcher.enqueue(subscriber, frame);
+            } else {
+                frames.enviar(subscriber, Map.of("type", "RESYNC_REQUIRED", "boardIds", List.of(boardId)));
+            }
+            for (SseFrame retido : subscriber.liberar(boardId, corte)) {
+                SseFrame parte = frames.selecionar(subscriber, retido, boardId, null);
+                if (parte != null) dispatcher.enqueue(subscriber, parte);
+            }
+            snapshots.incrementAndGet();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Mensagens de outras instâncias podem ter sido perdidas: todas as conexões locais
+     * recarregam suas boards.
+     */
+    void resyncLocal() {
+        for (Set<StreamSubscriber> conexoes : registry.porUsuario()) {
+            for (StreamSubscriber s : conexoes) {
+                if (s.getBoardIds().isEmpty()) continue;
+                frames.enviar(s, Map.of("type", "RESYNC_REQUIRED", "boardIds", List.copyOf(s.getBoardIds())));
+            }
+        }
+        resyncs.incrementAndGet();
+    }
+
+    Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("replays", replays.get());
+        stats.put("resyncs", resyncs.get());
+        stats.put("snapshots", snapshots.get());
+        return stats;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.taskmanager.realtime;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Conexão realtime de um usuário (SSE ou WebSocket, ver {@link StreamTransport}), os boards em
+ * que ela está inscrita e a fila de eventos ainda não escritos (drenada pelo {@link StreamDispatcher}).
+ */
+public class StreamSubscriber {
+
+    private final StreamTransport transport;
+    private final String email;
+    private final boolean todosBoards; // inscrito em todos os boards acessíveis (acompanha novos compartilhamentos)
+    private final Set<Long> boardIds = ConcurrentHashMap.newKeySet();
+    private final StreamFilter filtro;
+    private final Consumer<StreamSubscriber> aoFechar;
+
+    private final Queue<SseFrame> pendentes = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger tamanhoFila = new AtomicInteger();
+    private final AtomicBoolean drenando = new AtomicBoolean();
+    private final AtomicBoolean fechado = new AtomicBoolean();
+    private volatile long ultimaEscrita = System.currentTimeMillis();
+
+    // Inscrição com snapshot: eventos da board retidos enquanto o snapshot é lido, e o corte
+    // (sequência do snapshot) abaixo do qual eventos atrasados são descartados.
+    private final Map<Long, List<EventRing.Entrada>> retidos = new ConcurrentHashMap<>();
+    private final Map<Long, Long> cortes = new ConcurrentHashMap<>();
+
+    public StreamSubscriber(StreamTransport transport, String email, boolean todosBoards, StreamFilter filtro,
+                            Consumer<StreamSubscriber> aoFechar) {
+        this.transport = transport;
+        this.email = email;
+        this.todosBoards = todosBoards;
+        this.filtro = filtro;
+        this.aoFechar = aoFechar;
+    }
+
+    public StreamTransport getTransport() { return transport; }
+    public String getEmail() { return email; }
+    public boolean isTodosBoards() { return todosBoards; }
+    public StreamFilter getFiltro() { return filtro; }
+
+    /** O filtro da conexão aceita o evento. */
+    boolean aceita(EventoInfo evento) { return filtro.aceita(evento, email); }
+    public Set<Long> getBoardIds() { return boardIds; }
+    public boolean isFechado() { return fechado.get(); }
+
+    /**
+     * Enfileira um evento; retorna false se a fila já está no limite.
+     */
+    boolean offer(SseFrame evento, int capacidade) {
+        if (tamanhoFila.incrementAndGet() > capacidade) {
+            tamanhoFila.decrementAndGet();
+            return false;
+        }
+        pendentes.add(evento);
+        return true;
+    }
+
+    SseFrame poll() {
+        SseFrame evento = pendentes.poll();
+        if (evento != null) tamanhoFila.decrementAndGet();
+        return evento;
+    }
+
+    boolean temPendentes() { return !pendentes.isEmpty(); }
+    void marcarEscrita() { ultimaEscrita = System.currentTimeMillis(); }
+    long getUltimaEscrita() { return ultimaEscrita; }
+    int tamanhoFila() { return tamanhoFila.get(); }
+
+    void reter(Long boardId) { retidos.put(boardId, new ArrayList<>()); }
+
+    /**
+     * Decide o destino de um evento de board com sequência {@code seq}: retido enquanto o snapshot
+     * da board não saiu (retorna true), ou descartado se já está contido no snapshot (retorna true).
+     */
+    boolean filtrar(Long boardId, long seq, SseFrame frame) {
+        List<EventRing.Entrada> fila = retidos.get(boardId);
+        if (fila != null) {
+            fila.add(new EventRing.Entrada(seq, frame));
+            return true;
+        }
+        Long corte = cortes.get(boardId);
+        return corte != null && seq > 0 && seq <= corte;
+    }
+
+    /**
+     * Fixa o corte da board e devolve os eventos retidos posteriores ao snapshot, em ordem.
+     */
+    List<SseFrame> liberar(Long boardId, long corte) {
+        cortes.put(boardId, corte);
+        List<EventRing.Entrada> fila = retidos.remove(boardId);
+        if (fila == null) return List.of();
+        return fila.stream().filter(e -> e.seq() == 0 || e.seq() > corte).map(EventRing.Entrada::frame).toList();
+    }
+
+    /** Saída da board: descarta retenção e corte, uma nova inscrição começa do zero. */
+    void esquecer(Long boardId) {
+        retidos.remove(boardId);
+        cortes.remove(boardId);
+    }
+
+    /** Garante um único escritor por conexão (preserva a ordem dos eventos). */
+    boolean iniciarDrenagem() { return drenando.compareAndSet(false, true); }
+    void terminarDrenagem() { drenando.set(false); }
+
+    /**
+     * Encerra a conexão uma única vez: remove dos canais e fecha o transporte.
+     */
+    public void fechar() {
+        if (!fechado.compareAndSet(false, true)) return;
+        pendentes.clear();
+        tamanhoFila.set(0);
+        aoFechar.accept(this);
+        transport.encerrar();
+    }
+}
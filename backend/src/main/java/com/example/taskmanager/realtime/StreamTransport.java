@@ -0,0 +1,28 @@
+package com.example.taskmanager.realtime;
+
+import java.io.IOException;
+
+/**
+ * Meio físico de uma conexão realtime (SSE ou WebSocket). Os eventos chegam já codificados
+ * ({@link SseFrame}); cada transporte escreve a representação que lhe cabe.
+ */
+public interface StreamTransport {
+
+    /** Nome curto usado nas estatísticas ("sse", "ws"). */
+    String nome();
+
+    /**
+     * Escreve o frame; chamado só pelo escritor da conexão, um de cada vez. Retorna os bytes escritos.
+     */
+    int enviar(SseFrame frame) throws IOException;
+
+    /**
+     * A escrita pode bloquear dentro de um monitor (synchronized) da biblioteca; numa virtual
+     * thread isso prende o carrier enquanto o socket não drena. O {@link StreamDispatcher} escreve
+     * essas conexões no pool de plataforma.
+     */
+    default boolean escritaPrendeCarrier() { return false; }
+
+    /** Encerra a conexão do lado do servidor; erros são ignorados. */
+    void encerrar();
+}
@@ -3,56 +3,230 @@ package com.example.taskmanager.realtime;
 import com.example.taskmanager.model.Tarefa;
 import com.example.taskmanager.model.Board;
 import com.example.taskmanager.model.Usuario;
-import org.springframework.http.MediaType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.io.IOException;
 import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Stream realtime (SSE ou WebSocket) com canais por board: cada evento vai só às conexões
+ * inscritas na board afetada. Esta classe é a entrada do stream: abre e inscreve conexões e
+ * monta os eventos que os serviços emitem. O resto fica com os colaboradores:
+ * {@link StreamRegistry} (conexões, canais e limites), {@link StreamReplay} (Last-Event-ID,
+ * SNAPSHOT e resync), {@link StreamPresence} (presença) e {@link StreamPublisher} (sequência,
+ * barramento, coalescência e fan-out).
+ */
 @Service
 public class TaskStreamService {
+    private static final Logger logger = LoggerFactory.getLogger(TaskStreamService.class);
 
-    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
     private static final long TIMEOUT = 0L; // never time out (client controls)
 
-    public SseEmitter register() {
+    private final StreamRegistry registry;
+    private final StreamFrames frames;
+    private final StreamReplay replay;
+    private final StreamPresence presenca;
+    private final StreamPublisher publisher;
+    private final StreamDispatcher dispatcher;
+    private final CborCodec cbor;
+
+    public TaskStreamService(StreamRegistry registry, StreamFrames frames, StreamReplay replay, StreamPresence presenca,
+                      StreamPublisher publisher, StreamDispatcher dispatcher, CborCodec cbor) {
+        this.registry = registry;
+        this.frames = frames;
+        this.replay = replay;
+        this.presenca = presenca;
+        this.publisher = publisher;
+        this.dispatcher = dispatcher;
+        this.cbor = cbor;
+    }
+
+    /**
+     * Abre uma conexão para o usuário. Sem boards informados, inscreve em todas as boards
+     * próprias e compartilhadas; caso contrário valida o acesso a cada board pedida.
+     * Com {@code lastEventId} (reconexão), reenvia os eventos perdidos dessas boards.
+     * <p>
+     * Com {@code snapshot}, cada board começa por um evento SNAPSHOT (board, colunas e a primeira
+     * página de cada coluna, com a sequência N que refletem) seguido só dos eventos com seq &gt; N:
+     * carregar a board e acompanhá-la custa uma única requisição, sem janela entre a leitura e o stream.
+     * Na reconexão com os dois, o SNAPSHOT só vai para as boards cujo buffer não cobre o
+     * Last-Event-ID; as demais recebem só os eventos perdidos.
+     * <p>
+     * O {@code filtro} descarta, antes de enfileirar, os eventos que a conexão não pediu.
+     */
+    public SseEmitter register(String email, Collection<Long> boardIds, String lastEventId, boolean snapshot,
+                               StreamFilter filtro) {
+        boolean todos = boardIds == null || boardIds.isEmpty();
+        Set<Long> inscricoes = new LinkedHashSet<>();
+        if (todos) {
+            registry.boardsDoUsuario(email, inscricoes);
+        } else {
+            for (Long boardId : boardIds) {
+                if (!registry.temAcesso(boardId, email)) {
+                    throw new IllegalArgumentException("Acesso negado ao board");
+                }
+                inscricoes.add(boardId);
+            }
+        }
+
+        registry.reservar(email);
         SseEmitter emitter = new SseEmitter(TIMEOUT);
-        emitters.add(emitter);
-        emitter.onCompletion(() -> emitters.remove(emitter));
-        emitter.onTimeout(() -> emitters.remove(emitter));
-        // Send a ping/hello event
-        sendRaw(emitter, Map.of(
-                "type","INIT",
-                "ts", Instant.now().toString()
-        ));
-        return emitter;
+        StreamSubscriber subscriber = new StreamSubscriber(new SseTransport(emitter), email, todos, filtro, registry::remover);
+        try {
+            emitter.onCompletion(subscriber::fechar);
+            emitter.onTimeout(subscriber::fechar);
+            emitter.onError(e -> subscriber.fechar());
+            registry.adicionar(subscriber);
+
+            Set<Long> comSnapshot = new LinkedHashSet<>();
+            // os locks de todas as boards: nada publicado nelas cai entre o replay e o stream
+            List<ReentrantLock> travados = registry.travar(inscricoes);
+            try {
+                Long ultimo = lastEventId == null ? null : registry.sequenciaDe(lastEventId);
+                // buffers que já existiam antes desta inscrição (os criados agora não cobrem o passado)
+                Set<Long> comBuffer = new LinkedHashSet<>();
+                for (Long boardId : inscricoes) {
+                    if (registry.assistida(boardId)) comBuffer.add(boardId);
+                    registry.inscrever(subscriber, boardId);
+                }
+                // Send a ping/hello event
+                frames.enviar(subscriber, Map.of(
+                        "type","INIT",
+                        "ts", Instant.now().toString(),
+                        "boards", inscricoes
+                ));
+                if (lastEventId != null) {
+                    List<Long> semReplay = replay.replay(subscriber, inscricoes, comBuffer, ultimo, !snapshot);
+                    if (snapshot) comSnapshot.addAll(semReplay);
+                } else if (snapshot) {
+                    comSnapshot.addAll(inscricoes);
+                }
+                // a inscrição vem antes da leitura: o que for publicado enquanto o snapshot é lido fica retido
+                comSnapshot.forEach(subscriber::reter);
+            } finally {
+                registry.destravar(travados);
+            }
+            for (Long boardId : comSnapshot) replay.enviarSnapshot(subscriber, boardId);
+            return emitter;
+        } catch (RuntimeException | Error e) {
+            subscriber.fechar(); // devolve a reserva
+            throw e;
+        }
+    }
+
+    /**
+     * Abre uma conexão sem boards (WebSocket): o cliente escolhe as boards depois, com
+     * {@link #inscrever} e {@link #desinscrever}, e já recebe os eventos pessoais.
+     */
+    public StreamSubscriber conectar(String email, StreamTransport transport, StreamFilter filtro) {
+        registry.reservar(email);
+        StreamSubscriber subscriber = new StreamSubscriber(transport, email, false, filtro, registry::remover);
+        try {
+            registry.adicionar(subscriber);
+            frames.enviar(subscriber, Map.of(
+                    "type", "INIT",
+                    "ts", Instant.now().toString(),
+                    "boards", List.of()
+            ));
+            return subscriber;
+        } catch (RuntimeException | Error e) {
+            subscriber.fechar(); // devolve a reserva
+            throw e;
+        }
     }
 
-    private void sendRaw(SseEmitter emitter, Object data) {
-        try { emitter.send(SseEmitter.event().name("task").data(data, MediaType.APPLICATION_JSON)); }
-        catch (IOException e) { emitter.complete(); emitters.remove(emitter); }
+    /**
+     * Inscreve uma conexão aberta em mais uma board, opcionalmente começando por um SNAPSHOT
+     * (mesma garantia do {@link #register}: nada entre a leitura e o stream se perde).
+     */
+    public void inscrever(StreamSubscriber subscriber, Long boardId, boolean snapshot) {
+        if (!registry.temAcesso(boardId, subscriber.getEmail())) {
+            throw new IllegalArgumentException("Acesso negado ao board");
+        }
+        ReentrantLock lock = registry.lockDaBoard(boardId);
+        lock.lock();
+        try {
+            subscriber.esquecer(boardId);
+            registry.inscrever(subscriber, boardId);
+            frames.enviar(subscriber, Map.of("type", "SUBSCRIBED", "boardId", boardId));
+            if (snapshot) subscriber.reter(boardId);
+        } finally {
+            lock.unlock();
+        }
+        if (snapshot) replay.enviarSnapshot(subscriber, boardId);
     }
 
-    private void broadcast(Object payload) {
-        for (SseEmitter emitter : emitters) {
-            sendRaw(emitter, payload);
+    public void desinscrever(StreamSubscriber subscriber, Long boardId) {
+        ReentrantLock lock = registry.lockDaBoard(boardId);
+        lock.lock();
+        try {
+            registry.desinscrever(subscriber, boardId);
+            subscriber.esquecer(boardId);
+            frames.enviar(subscriber, Map.of("type", "UNSUBSCRIBED", "boardId", boardId));
+        } finally {
+            lock.unlock();
         }
     }
 
+    /** Responde na própria conexão a um comando inválido do cliente. */
+    public void enviarErro(StreamSubscriber subscriber, String mensagem) {
+        frames.enviar(subscriber, Map.of("type", "ERROR", "message", mensagem));
+    }
+
     /**
-     * Broadcast an arbitrary payload (useful for ad-hoc events)
+     * Heartbeat de presença: o usuário está vendo a board.
+     *
+     * @return quem está vendo a board agora
+     */
+    public List<Map<String, Object>> registrarPresenca(Long boardId, String email) {
+        return presenca.registrar(boardId, email);
+    }
+
+    /** Heartbeat de presença pela própria conexão (WebSocket); a resposta vai como PRESENCE com "viewers". */
+    public void registrarPresenca(StreamSubscriber subscriber, Long boardId) {
+        List<Map<String, Object>> presentes = presenca.registrar(boardId, subscriber.getEmail());
+        frames.enviar(subscriber, Map.of("type", "PRESENCE", "boardId", boardId, "viewers", presentes));
+    }
+
+    /** O usuário fechou a board; sem isso ele sai quando o TTL expira. */
+    public void sairDaBoard(Long boardId, String email) {
+        presenca.sair(boardId, email);
+    }
+
+    /**
+     * Broadcast an arbitrary payload (useful for ad-hoc events). O payload é roteado pelo
+     * campo "boardId" (ou "board"); eventos sem board vão para todas as conexões.
      */
     public void sendGeneric(Map<String,Object> payload) {
-        broadcast(payload);
+        Long boardId = boardIdOf(payload);
+        if (boardId != null) {
+            publisher.noBoard(RealtimeMessage.Tipo.BOARD, boardId, null, null, payload);
+        } else {
+            logger.debug("Evento {} sem boardId, enviando para todas as conexões", payload.get("type"));
+            publisher.paraTodos(payload);
+        }
+    }
+
+    private static Long boardIdOf(Map<String,Object> payload) {
+        Object id = payload.get("boardId");
+        if (id instanceof Number n) return n.longValue();
+        if (payload.get("board") instanceof Board b) return b.getId();
+        return null;
     }
 
     public void sendTask(String type, Tarefa t) {
         if (t == null) return;
-        broadcast(Map.of(
+        sendTaskPayload(type, t, Map.of(
                 "type", type,
                 "task", t
         ));
@@ -60,39 +234,93 @@ public class TaskStreamService {
 
     public void sendTask(String type, Tarefa t, String actorName) {
         if (t == null) return;
-        broadcast(Map.of(
+        sendTaskPayload(type, t, Map.of(
                 "type", type,
                 "task", t,
                 "by", actorName
         ));
     }
 
-    public void sendDeleted(Long id) {
-        broadcast(Map.of(
-                "type","TASK_DELETED",
-                "id", id
-        ));
+    private void sendTaskPayload(String type, Tarefa t, Map<String,Object> payload) {
+        if (t.getBoard() != null) {
+            // updates da mesma tarefa na janela de coalescência ficam só com o último
+            String chave = "TASK_UPDATED".equals(type) ? type + ":" + t.getId() : null;
+            publisher.noBoard(RealtimeMessage.Tipo.BOARD, t.getBoard().getId(), null, chave, payload);
+        } else if (t.getUsuario() != null) {
+            // tarefa sem board: só interessa ao dono
+            publisher.paraUsuario(t.getUsuario().getEmail(), payload);
+        }
     }
 
-    public void sendReorder(Long boardId) {
-        broadcast(Map.of(
+    /**
+     * Alteração de uma tarefa: só os campos que mudaram, com a versão resultante. O cliente
+     * aplica sobre a cópia local; a tarefa completa só vai no TASK_CREATED.
+     */
+    public void sendTaskPatch(Tarefa t, Map<String,Object> changes, String actorName) {
+        if (t == null || changes.isEmpty()) return;
+        Map<String,Object> payload = new LinkedHashMap<>();
+        payload.put("type", "TASK_PATCH");
+        payload.put("id", t.getId());
+        payload.put("boardId", t.getBoard() == null ? null : t.getBoard().getId());
+        payload.put("version", t.getVersao());
+        payload.put("changes", changes);
+        payload.put("by", actorName);
+        if (t.getBoard() != null) {
+            publisher.noBoard(RealtimeMessage.Tipo.BOARD, t.getBoard().getId(), null, "TASK_PATCH:" + t.getId(), payload);
+        } else if (t.getUsuario() != null) {
+            publisher.paraUsuario(t.getUsuario().getEmail(), payload);
+        }
+    }
+
+    public void sendDeleted(Long id, Long boardId) {
+        Map<String,Object> payload = new HashMap<>();
+        payload.put("type", "TASK_DELETED");
+        payload.put("id", id);
+        payload.put("boardId", boardId);
+        sendGeneric(payload);
+    }
+
+    /**
+     * Reordenação de uma board: uma lista de patches {id, version, changes} com as posições
+     * (e colunas) alteradas, em vez de forçar o cliente a recarregar a board.
+     */
+    public void sendReorder(Long boardId, List<Map<String,Object>> tarefas) {
+        publisher.noBoard(RealtimeMessage.Tipo.BOARD, boardId, null, "TASKS_REORDERED", Map.of(
                 "type","TASKS_REORDERED",
-                "boardId", boardId
+                "boardId", boardId,
+                "tasks", tarefas
         ));
     }
 
-    public void sendBoardShared(Board board, Usuario usuarioComQuemCompartilhou) {
-        // delegate to generic with real name when possible
+    /**
+     * Notifica o board e o usuário com quem foi compartilhado; se ele estiver conectado
+     * acompanhando todas as suas boards, passa a receber também os eventos da nova board.
+     */
+    public void sendBoardShared(Board board, Usuario usuarioComQuemCompartilhou, String actorName) {
         String sharedWith = usuarioComQuemCompartilhou == null ? null : usuarioComQuemCompartilhou.getNome();
-        sendGeneric(Map.of("type","BOARD_SHARED","board",board,"sharedWith",sharedWith));
+        Map<String,Object> payload = new HashMap<>();
+        payload.put("type", "BOARD_SHARED");
+        payload.put("board", board);
+        payload.put("boardId", board.getId());
+        payload.put("sharedWith", sharedWith);
+        payload.put("by", actorName);
+        String email = usuarioComQuemCompartilhou == null ? null : usuarioComQuemCompartilhou.getEmail();
+        publisher.noBoard(RealtimeMessage.Tipo.BOARD_SHARED, board.getId(), email, null, payload);
     }
 
-    public void sendBoardUnshared(Long boardId, String nomeUsuario) {
-        sendGeneric(Map.of("type","BOARD_UNSHARED","boardId",boardId,"unsharedFrom",nomeUsuario));
+    public void sendBoardUnshared(Long boardId, Usuario usuarioRemovido, String actorName) {
+        String nome = usuarioRemovido == null ? null : usuarioRemovido.getNome();
+        Map<String,Object> payload = new HashMap<>();
+        payload.put("type", "BOARD_UNSHARED");
+        payload.put("boardId", boardId);
+        payload.put("unsharedFrom", nome);
+        payload.put("by", actorName);
+        String email = usuarioRemovido == null ? null : usuarioRemovido.getEmail();
+        publisher.noBoard(RealtimeMessage.Tipo.BOARD_UNSHARED, boardId, email, null, payload);
     }
 
     public void sendBoardUpdated(Board board) {
-        broadcast(Map.of(
+        publisher.noBoard(RealtimeMessage.Tipo.BOARD, board.getId(), null, "BOARD_UPDATED", Map.of(
                 "type", "BOARD_UPDATED",
                 "board", board
         ));
@@ -101,4 +329,17 @@ public class TaskStreamService {
     public void sendBoardUpdated(Board board, String actorName) {
         sendGeneric(Map.of("type","BOARD_UPDATED","board",board,"by",actorName));
     }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>(registry.stats());
+        stats.putAll(frames.stats());
+        stats.putAll(cbor.stats());
+        stats.putAll(replay.stats());
+        stats.putAll(publisher.stats());
+        stats.putAll(presenca.stats());
+        stats.putAll(dispatcher.stats());
+        Runtime rt = Runtime.getRuntime();
+        stats.put("heapUsedBytes", rt.totalMemory() - rt.freeMemory());
+        return stats;
+    }
 }
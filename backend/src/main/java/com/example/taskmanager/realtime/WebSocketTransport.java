@@ -0,0 +1,54 @@
+package com.example.taskmanager.realtime;
+
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+
+/**
+ * Conexão WebSocket: cada evento vai num frame próprio, de texto (JSON) ou binário (CBOR).
+ * O heartbeat vira um ping de controle. A sessão só é escrita pelo escritor da conexão no
+ * {@link StreamDispatcher}, que já garante um envio por vez.
+ */
+public class WebSocketTransport implements StreamTransport {
+
+    public enum Formato { JSON, CBOR }
+
+    private final WebSocketSession session;
+    private final Formato formato;
+    private final CborCodec cbor;
+
+    public WebSocketTransport(WebSocketSession session, Formato formato, CborCodec cbor) {
+        this.session = session;
+        this.formato = formato;
+        this.cbor = cbor;
+    }
+
+    public Formato getFormato() { return formato; }
+
+    @Override
+    public String nome() { return "ws"; }
+
+    @Override
+    public int enviar(SseFrame frame) throws IOException {
+        if (frame.isHeartbeat()) {
+            session.sendMessage(new PingMessage());
+            return 0;
+        }
+        if (formato == Formato.CBOR) {
+            byte[] corpo = frame.cbor(cbor::converter);
+            session.sendMessage(new BinaryMessage(corpo));
+            return corpo.length;
+        }
+        session.sendMessage(new TextMessage(frame.texto()));
+        return frame.json().length;
+    }
+
+    @Override
+    public void encerrar() {
+        try { session.close(CloseStatus.NORMAL); } catch (Exception ignored) {}
+    }
+}
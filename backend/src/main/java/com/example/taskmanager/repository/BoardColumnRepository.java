@@ -1,11 +1,18 @@
 package com.example.taskmanager.repository;
 
+import com.example.taskmanager.dto.ColunaResumo;
 import com.example.taskmanager.model.Board;
 import com.example.taskmanager.model.BoardColumn;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 public interface BoardColumnRepository extends JpaRepository<BoardColumn, Long> {
     List<BoardColumn> findByBoardOrderByOrdemAsc(Board board);
+
+    @Query("SELECT new com.example.taskmanager.dto.ColunaResumo(c.id, c.titulo, c.ordem, c.legacyStatus, c.board.id, c.versao) "
+            + "FROM BoardColumn c WHERE c.board.id = :boardId ORDER BY c.ordem ASC")
+    List<ColunaResumo> findResumosByBoardId(@Param("boardId") Long boardId);
 }
@@ -1,11 +1,30 @@
 package com.example.taskmanager.repository;
 
+import com.example.taskmanager.dto.BoardResumo;
 import com.example.taskmanager.model.Board;
 import com.example.taskmanager.model.Usuario;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 public interface BoardRepository extends JpaRepository<Board, Long> {
     List<Board> findByUsuarioOrderByCriadoEmAsc(Usuario usuario);
+
+    // Ids das boards de um usuário (usado nas inscrições do stream realtime)
+    @Query("SELECT b.id FROM Board b WHERE b.usuario.email = :email")
+    List<Long> findIdsByUsuarioEmail(@Param("email") String email);
+
+    // Boards do usuário com o dono, sem carregar entidades (listagens)
+    @Query("SELECT new com.example.taskmanager.dto.BoardResumo(b.id, b.nome, b.icon, b.criadoEm, b.versao, u.id, u.nome, u.email, u.nomeUsuario) "
+            + "FROM Board b JOIN b.usuario u WHERE u.email = :email ORDER BY b.criadoEm ASC")
+    List<BoardResumo> findResumosByUsuarioEmail(@Param("email") String email);
+
+    // Boards compartilhadas com o usuário, com o dono de cada uma
+    @Query("SELECT new com.example.taskmanager.dto.BoardResumo(b.id, b.nome, b.icon, b.criadoEm, b.versao, u.id, u.nome, u.email, u.nomeUsuario) "
+            + "FROM BoardShare s JOIN s.board b JOIN b.usuario u WHERE s.sharedWith.email = :email ORDER BY b.criadoEm ASC")
+    List<BoardResumo> findResumosCompartilhadosCom(@Param("email") String email);
+
+    boolean existsByIdAndUsuarioEmail(Long id, String email);
 }
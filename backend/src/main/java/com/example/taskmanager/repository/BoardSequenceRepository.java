@@ -0,0 +1,54 @@
+package com.example.taskmanager.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Sequência de mutações por board (coluna {@code boards.seq}, fora do mapeamento da entidade
+ * para não entrar no dirty checking). O UPDATE participa da transação corrente: o número fica
+ * visível junto com a alteração. Ele trava a linha da board até o commit, então quem incrementa
+ * o faz só no fim da transação ({@code beforeCommit}), de uma vez para todos os eventos dela:
+ * escritas concorrentes na mesma board disputam o lock apenas durante o commit.
+ */
+@Repository
+public class BoardSequenceRepository {
+
+    /** Sequência da board e o acesso do usuário a ela: OWNER, EDIT, VIEW ou nulo (sem acesso). */
+    public record Versao(long seq, String permissao) {}
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BoardSequenceRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Reserva {@code quantidade} números seguidos e retorna o último; 0 se a board não existe mais.
+     */
+    public long incrementar(Long boardId, int quantidade) {
+        List<Long> seq = jdbcTemplate.queryForList(
+                "UPDATE boards SET seq = seq + ? WHERE id = ? RETURNING seq", Long.class, quantidade, boardId);
+        return seq.isEmpty() ? 0L : seq.get(0);
+    }
+
+    public long atual(Long boardId) {
+        List<Long> seq = jdbcTemplate.queryForList("SELECT seq FROM boards WHERE id = ?", Long.class, boardId);
+        return seq.isEmpty() ? 0L : seq.get(0);
+    }
+
+    /**
+     * Sequência e permissão do usuário numa consulta (linha da board pela chave primária e o
+     * compartilhamento pela unique (board_id, shared_with_id)); vazio se a board não existe.
+     */
+    public Optional<Versao> versao(Long boardId, String email) {
+        return jdbcTemplate.query("SELECT b.seq, CASE WHEN u.email = ? THEN 'OWNER' ELSE "
+                        + "(SELECT s.permission FROM board_shares s JOIN usuarios su ON su.id = s.shared_with_id "
+                        + "WHERE s.board_id = b.id AND su.email = ?) END AS permissao "
+                        + "FROM boards b JOIN usuarios u ON u.id = b.usuario_id WHERE b.id = ?",
+                (rs, i) -> new Versao(rs.getLong("seq"), rs.getString("permissao")), email, email, boardId)
+                .stream().findFirst();
+    }
+}
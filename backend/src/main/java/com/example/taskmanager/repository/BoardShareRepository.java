@@ -1,5 +1,6 @@
 package com.example.taskmanager.repository;
 
+import com.example.taskmanager.dto.BoardShareResumo;
 import com.example.taskmanager.model.Board;
 import com.example.taskmanager.model.BoardShare;
 import com.example.taskmanager.model.Usuario;
@@ -15,6 +16,12 @@ public interface BoardShareRepository extends JpaRepository<BoardShare, Long> {
     // Busca todos os compartilhamentos de um board
     List<BoardShare> findByBoard(Board board);
     
+    // Compartilhamentos de um board com a board e os usuários, sem carregar entidades
+    @Query("SELECT new com.example.taskmanager.dto.BoardShareResumo(s.id, b.id, b.nome, b.icon, "
+            + "sb.id, sb.nome, sb.email, sb.nomeUsuario, sw.id, sw.nome, sw.email, sw.nomeUsuario, s.permission, s.sharedAt) "
+            + "FROM BoardShare s JOIN s.board b JOIN s.sharedBy sb JOIN s.sharedWith sw WHERE b.id = :boardId ORDER BY s.sharedAt ASC")
+    List<BoardShareResumo> findResumosByBoardId(@Param("boardId") Long boardId);
+    
     // Busca todas as boards compartilhadas com um usuário
     List<BoardShare> findBySharedWith(Usuario user);
     
@@ -22,6 +29,12 @@ public interface BoardShareRepository extends JpaRepository<BoardShare, Long> {
     @Query("SELECT bs FROM BoardShare bs JOIN FETCH bs.board b JOIN FETCH b.usuario WHERE bs.sharedWith = :user")
     List<BoardShare> findBySharedWithWithBoardAndOwner(@Param("user") Usuario user);
     
+    // Ids das boards compartilhadas com um usuário (usado nas inscrições do stream realtime)
+    @Query("SELECT bs.board.id FROM BoardShare bs WHERE bs.sharedWith.email = :email")
+    List<Long> findBoardIdsBySharedWithEmail(@Param("email") String email);
+    
+    boolean existsByBoardIdAndSharedWithEmail(Long boardId, String email);
+    
     // Verifica se um board foi compartilhado com um usuário específico
     Optional<BoardShare> findByBoardAndSharedWith(Board board, Usuario user);
     
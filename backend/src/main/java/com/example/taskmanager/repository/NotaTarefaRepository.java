@@ -1,5 +1,6 @@
 package com.example.taskmanager.repository;
 
+import com.example.taskmanager.dto.NotaResumo;
 import com.example.taskmanager.model.Board;
 import com.example.taskmanager.model.BoardColumn;
 import com.example.taskmanager.model.NotaTarefa;
@@ -11,7 +12,9 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repositório para entidade NotaTarefa.
@@ -36,6 +39,22 @@ public interface NotaTarefaRepository extends JpaRepository<NotaTarefa, Long> {
            "ORDER BY n.dataCriacao ASC")
     List<NotaTarefa> findVisibleByTarefaAndUsuario(@Param("tarefa") Tarefa tarefa, @Param("usuario") Usuario usuario);
 
+    String RESUMO = "SELECT new com.example.taskmanager.dto.NotaResumo(n.id, n.conteudo, n.publica, n.dataCriacao, n.tarefa.id, "
+            + "a.id, a.nome, a.email, a.nomeUsuario, d.id, d.nome, d.email, d.nomeUsuario) "
+            + "FROM NotaTarefa n JOIN n.autor a LEFT JOIN n.destinatario d ";
+
+    // Mesma visibilidade de findVisibleByTarefaAndUsuario, como resumos
+    @Query(RESUMO + "WHERE n.tarefa.id = :tarefaId AND (n.publica = true OR d.email = :email OR a.email = :email) "
+            + "ORDER BY n.dataCriacao ASC")
+    List<NotaResumo> findResumosVisiveis(@Param("tarefaId") Long tarefaId, @Param("email") String email);
+
+    @Query(RESUMO + "WHERE n.id = :id")
+    Optional<NotaResumo> findResumoById(@Param("id") Long id);
+
+    // Pares [notaId, usuarioId] de quem visualizou as notas informadas
+    @Query("SELECT n.id, u.id FROM NotaTarefa n JOIN n.usuariosQueVisualizaram u WHERE n.id IN :ids")
+    List<Object[]> findVisualizacoes(@Param("ids") Collection<Long> ids);
+
     List<NotaTarefa> findByTarefaAndPublicaTrueOrderByDataCriacaoAsc(Tarefa tarefa);
 
     List<NotaTarefa> findByTarefaAndAutorOrderByDataCriacaoAsc(Tarefa tarefa, Usuario autor);
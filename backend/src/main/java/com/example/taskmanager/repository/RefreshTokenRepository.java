@@ -2,10 +2,13 @@ package com.example.taskmanager.repository;
 
 import com.example.taskmanager.model.RefreshToken;
 import com.example.taskmanager.model.Usuario;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import java.util.Optional;
 
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+    // o usuário é lido fora de transação (refresh do token)
+    @EntityGraph(attributePaths = "usuario")
     Optional<RefreshToken> findByToken(String token);
     void deleteByUsuario(Usuario usuario);
     java.util.List<RefreshToken> findByUsuario(Usuario usuario);
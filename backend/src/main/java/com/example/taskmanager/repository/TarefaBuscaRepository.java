@@ -0,0 +1,81 @@
+package com.example.taskmanager.repository;
+
+import com.example.taskmanager.dto.ResultadoBusca;
+import com.example.taskmanager.model.StatusTarefa;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.web.util.HtmlUtils;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Busca de tarefas nas boards que o usuário acessa (próprias e compartilhadas com ele): texto
+ * completo na coluna gerada {@code busca} (configuração portuguese, índice GIN) ou semelhança
+ * de trigramas no título (pg_trgm, para erros de digitação). Ver docs/sql/014.
+ * <p>
+ * A ordem é por relevância (ts_rank + similarity) e id, e a paginação continua a partir do par
+ * (relevância, id) do último resultado. O destaque (ts_headline, caro) só é calculado para as
+ * linhas da página.
+ */
+@Repository
+public class TarefaBuscaRepository {
+
+    // marcadores de destaque que não aparecem em texto digitado; viram <mark> depois do escape
+    private static final String INICIO = "\u0001";
+    private static final String FIM = "\u0002";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TarefaBuscaRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Até {@code limite} resultados para {@code termo}, depois de ({@code relevanciaApos},
+     * {@code idApos}) quando informados.
+     */
+    public List<ResultadoBusca> buscar(String email, String termo, Double relevanciaApos, Long idApos, int limite) {
+        // termos como parâmetros diretos (não via CTE), para o planejador usar os dois índices GIN
+        String consulta = "websearch_to_tsquery('portuguese', ?)";
+        String sql = "WITH acessiveis AS ("
+                + "  SELECT b.id FROM boards b JOIN usuarios u ON u.id = b.usuario_id WHERE u.email = ? "
+                + "  UNION SELECT s.board_id FROM board_shares s JOIN usuarios u ON u.id = s.shared_with_id WHERE u.email = ?), "
+                + "achados AS ("
+                + "  SELECT t.id, (ts_rank(t.busca, " + consulta + ") + similarity(t.titulo, ?))::float8 AS relevancia "
+                + "  FROM tarefas t "
+                + "  WHERE t.board_id IN (SELECT id FROM acessiveis) AND (t.busca @@ " + consulta + " OR t.titulo % ?)), "
+                + "pagina AS ("
+                + "  SELECT a.id, a.relevancia FROM achados a "
+                + (relevanciaApos == null ? "" : "WHERE (a.relevancia, a.id) < (?, ?) ")
+                + "  ORDER BY a.relevancia DESC, a.id DESC LIMIT ?) "
+                + "SELECT p.relevancia, t.id, t.titulo, t.status, t.board_id, t.column_id, b.nome AS board_nome, "
+                + "  ts_headline('portuguese', t.titulo, " + consulta + ", ?) AS titulo_destacado, "
+                + "  ts_headline('portuguese', coalesce(t.descricao, ''), " + consulta + ", ?) AS trecho "
+                + "FROM pagina p JOIN tarefas t ON t.id = p.id JOIN boards b ON b.id = t.board_id "
+                + "ORDER BY p.relevancia DESC, p.id DESC";
+        List<Object> params = new ArrayList<>(List.of(email, email, termo, termo, termo, termo));
+        if (relevanciaApos != null) {
+            params.add(relevanciaApos);
+            params.add(idApos);
+        }
+        params.add(limite);
+        params.addAll(List.of(termo, "StartSel=" + INICIO + ", StopSel=" + FIM + ", HighlightAll=true"));
+        params.addAll(List.of(termo, "StartSel=" + INICIO + ", StopSel=" + FIM + ", MaxFragments=2, MaxWords=20, MinWords=5"));
+        return jdbcTemplate.query(sql, TarefaBuscaRepository::resultado, params.toArray());
+    }
+
+    private static ResultadoBusca resultado(ResultSet rs, int i) throws SQLException {
+        return new ResultadoBusca(rs.getLong("id"), rs.getString("titulo"), destacar(rs.getString("titulo_destacado")),
+                destacar(rs.getString("trecho")), StatusTarefa.valueOf(rs.getString("status")),
+                rs.getLong("board_id"), rs.getString("board_nome"), rs.getObject("column_id", Long.class),
+                rs.getDouble("relevancia"));
+    }
+
+    private static String destacar(String texto) {
+        if (texto == null) return null;
+        return HtmlUtils.htmlEscape(texto).replace(INICIO, "<mark>").replace(FIM, "</mark>");
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.taskmanager.repository;
+
+import com.example.taskmanager.dto.FiltroTarefas;
+import com.example.taskmanager.dto.TarefaResumo;
+import com.example.taskmanager.model.PrioridadeTarefa;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Listagens de tarefas com filtros e ordenação ({@link FiltroTarefas}) avaliados no banco, para
+ * que uma visão filtrada de uma board grande traga só as linhas que casam. Os predicados são
+ * escritos para bater com os índices de docs/sql/015: os status abertos vão como literais (o
+ * índice parcial de vencidas depende disso) e a prioridade é ordenada pelo peso do enum, com a
+ * mesma expressão do índice.
+ */
+@Repository
+public class TarefaFiltroRepository {
+
+    /** Peso da prioridade (ver {@link PrioridadeTarefa#getPeso()}); igual à expressão do índice. */
+    static final String PESO_PRIORIDADE = Arrays.stream(PrioridadeTarefa.values())
+            .map(p -> "WHEN '" + p.name() + "' THEN " + p.getPeso())
+            .collect(Collectors.joining(" ", "(CASE t.prioridade ", " END)"));
+
+    private static final String ABERTAS = "t.status IN ('PENDENTE', 'EM_ANDAMENTO')";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TarefaFiltroRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<TarefaResumo> daBoard(Long boardId, FiltroTarefas filtro, LocalDateTime agora) {
+        List<Object> params = new ArrayList<>(List.of(boardId));
+        return listar("t.board_id = ?", params, filtro, agora, false);
+    }
+
+    public List<TarefaResumo> doUsuario(Long usuarioId, FiltroTarefas filtro, LocalDateTime agora) {
+        List<Object> params = new ArrayList<>(List.of(usuarioId));
+        return listar("t.usuario_id = ?", params, filtro, agora, true);
+    }
+
+    /** Boards próprias e compartilhadas com o usuário, e as tarefas dele sem board. */
+    public List<TarefaResumo> acessiveis(String email, FiltroTarefas filtro, LocalDateTime agora) {
+        List<Object> params = new ArrayList<>(List.of(email, email, email));
+        return listar("(t.board_id IN (SELECT b.id FROM boards b JOIN usuarios u ON u.id = b.usuario_id WHERE u.email = ?) "
+                + "OR t.board_id IN (SELECT s.board_id FROM board_shares s JOIN usuarios u ON u.id = s.shared_with_id WHERE u.email = ?) "
+                + "OR (t.board_id IS NULL AND t.usuario_id = (SELECT u.id FROM usuarios u WHERE u.email = ?)))",
+                params, filtro, agora, true);
+    }
+
+    private List<TarefaResumo> listar(String escopo, List<Object> params, FiltroTarefas filtro,
+                                      LocalDateTime agora, boolean variasBoards) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(TarefaPaginaRepository.COLUNAS)
+                .append(" FROM tarefas t LEFT JOIN board_columns c ON c.id = t.column_id WHERE ").append(escopo);
+        // nomes de enum, não texto do usuário: podem ir como literais
+        if (!filtro.status().isEmpty()) sql.append(" AND t.status IN ").append(literais(filtro.status()));
+        if (!filtro.prioridades().isEmpty()) sql.append(" AND t.prioridade IN ").append(literais(filtro.prioridades()));
+        if (filtro.vencimento() == FiltroTarefas.Vencimento.OVERDUE) {
+            sql.append(" AND ").append(ABERTAS).append(" AND t.data_limite < ?");
+            params.add(Timestamp.valueOf(agora));
+        } else if (filtro.vencimento() == FiltroTarefas.Vencimento.WEEK) {
+            LocalDateTime inicio = agora.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay();
+            sql.append(" AND t.data_limite >= ? AND t.data_limite < ?");
+            params.add(Timestamp.valueOf(inicio));
+            params.add(Timestamp.valueOf(inicio.plusWeeks(1)));
+        }
+        if (filtro.criadaDe() != null) {
+            sql.append(" AND t.data_criacao >= ?");
+            params.add(Timestamp.valueOf(filtro.criadaDe().atStartOfDay()));
+        }
+        if (filtro.criadaAte() != null) {
+            sql.append(" AND t.data_criacao < ?");
+            params.add(Timestamp.valueOf(filtro.criadaAte().plusDays(1).atStartOfDay()));
+        }
+        String dir = filtro.decrescente() ? " DESC" : " ASC";
+        sql.append(" ORDER BY ").append(switch (filtro.ordenacao()) {
+            case POSITION -> (variasBoards ? "t.board_id ASC NULLS LAST, " : "")
+                    + "c.ordem ASC NULLS LAST, t.chave_ordem" + dir + ", t.id" + dir;
+            case PRIORITY -> PESO_PRIORIDADE + dir + " NULLS LAST, t.id" + dir;
+            case DUE_DATE -> "t.data_limite" + dir + " NULLS LAST, t.id" + dir;
+            case CREATED_AT -> "t.data_criacao" + dir + ", t.id" + dir;
+        });
+        return jdbcTemplate.query(sql.toString(), TarefaPaginaRepository::resumo, params.toArray());
+    }
+
+    private static String literais(Collection<? extends Enum<?>> valores) {
+        return valores.stream().map(v -> "'" + v.name() + "'").collect(Collectors.joining(", ", "(", ")"));
+    }
+}
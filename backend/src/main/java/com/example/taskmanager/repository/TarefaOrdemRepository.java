@@ -0,0 +1,125 @@
+package com.example.taskmanager.repository;
+
+import com.example.taskmanager.model.StatusTarefa;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ordenação de tarefas em lote, direto em SQL: lê só as colunas de ordenação (sem carregar as
+ * entidades) e grava todas as novas posições (e chaves de ordenação) num único UPDATE, em vez de
+ * um SELECT e um UPDATE por tarefa. Participa da transação corrente.
+ */
+@Repository
+public class TarefaOrdemRepository {
+
+    /** Estado de ordenação de uma tarefa. */
+    public record Linha(Long id, Long boardId, Long columnId, Integer posicao, String chaveOrdem,
+                        StatusTarefa status, long versao) {}
+
+    /** Valores finais de uma tarefa reordenada; {@code versao} é a versão lida, exigida no UPDATE. */
+    public record Alteracao(Long id, long versao, Integer posicao, Long columnId, String chaveOrdem, StatusTarefa status) {}
+
+    /** Maior posição (0 se vazia) e última chave de ordenação (nula se vazia) de uma coluna. */
+    public record Fim(int posicao, String chaveOrdem) {}
+
+    private static final String COLUNAS = "id, board_id, column_id, posicao, chave_ordem, status, versao";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TarefaOrdemRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<Linha> carregar(Collection<Long> ids) {
+        return jdbcTemplate.query("SELECT " + COLUNAS + " FROM tarefas WHERE id = ANY(?)",
+                ps -> ps.setArray(1, array(ps.getConnection(), "bigint", ids)), TarefaOrdemRepository::linha);
+    }
+
+    /**
+     * Tarefas da coluna na ordem atual, bloqueadas até o fim da transação (rebalanceamento das chaves).
+     */
+    public List<Linha> daColunaParaAtualizar(Long columnId) {
+        return jdbcTemplate.query("SELECT " + COLUNAS + " FROM tarefas WHERE column_id = ? "
+                + "ORDER BY chave_ordem, id FOR UPDATE", TarefaOrdemRepository::linha, columnId);
+    }
+
+    /**
+     * Tarefas das colunas na ordem atual de cada uma, bloqueadas até o fim da transação
+     * (reordenação em lote).
+     */
+    public List<Linha> dasColunasParaAtualizar(Collection<Long> columnIds) {
+        return jdbcTemplate.query("SELECT " + COLUNAS + " FROM tarefas WHERE column_id = ANY(?) "
+                        + "ORDER BY column_id, chave_ordem, id FOR UPDATE",
+                ps -> ps.setArray(1, array(ps.getConnection(), "bigint", columnIds)), TarefaOrdemRepository::linha);
+    }
+
+    /**
+     * Fim atual da coluna; os dois max() usam os índices (column_id, posicao) e (column_id, chave_ordem).
+     */
+    public Fim fimDaColuna(Long columnId) {
+        return jdbcTemplate.queryForObject("SELECT coalesce(max(posicao), 0) AS posicao, max(chave_ordem) AS chave_ordem "
+                        + "FROM tarefas WHERE column_id = ?",
+                (rs, i) -> new Fim(rs.getInt("posicao"), rs.getString("chave_ordem")), columnId);
+    }
+
+    private static Linha linha(ResultSet rs, int i) throws SQLException {
+        return new Linha(rs.getLong("id"), rs.getObject("board_id", Long.class),
+                rs.getObject("column_id", Long.class), rs.getObject("posicao", Integer.class),
+                rs.getString("chave_ordem"), StatusTarefa.valueOf(rs.getString("status")), rs.getLong("versao"));
+    }
+
+    /** Board de cada coluna informada (colunas inexistentes ficam de fora). */
+    public Map<Long, Long> boardsDasColunas(Collection<Long> columnIds) {
+        Map<Long, Long> boards = new HashMap<>();
+        jdbcTemplate.query("SELECT id, board_id FROM board_columns WHERE id = ANY(?)",
+                ps -> ps.setArray(1, array(ps.getConnection(), "bigint", columnIds)),
+                rs -> { boards.put(rs.getLong("id"), rs.getLong("board_id")); });
+        return boards;
+    }
+
+    /**
+     * Aplica todas as alterações num único UPDATE e incrementa a versão de cada tarefa;
+     * {@code agora} vira a data de conclusão de quem passa a CONCLUIDA. Como o {@code @Version}
+     * da entidade, só grava as linhas ainda na versão lida.
+     *
+     * @return tarefa -> versão resultante, só das linhas gravadas
+     */
+    public Map<Long, Long> aplicar(List<Alteracao> alteracoes, LocalDateTime agora) {
+        Map<Long, Long> versoes = new HashMap<>();
+        if (alteracoes.isEmpty()) return versoes;
+        jdbcTemplate.query(
+                "UPDATE tarefas t SET posicao = v.posicao, column_id = v.column_id, chave_ordem = v.chave_ordem, "
+                        + "status = v.status, data_conclusao = CASE WHEN v.status = 'CONCLUIDA' AND t.status <> 'CONCLUIDA' "
+                        + "THEN ? ELSE t.data_conclusao END, versao = t.versao + 1 "
+                        + "FROM unnest(?::bigint[], ?::bigint[], ?::int[], ?::bigint[], ?::varchar[], ?::varchar[]) "
+                        + "AS v(id, versao, posicao, column_id, chave_ordem, status) "
+                        + "WHERE t.id = v.id AND t.versao = v.versao RETURNING t.id, t.versao",
+                ps -> {
+                    Connection con = ps.getConnection();
+                    ps.setTimestamp(1, Timestamp.valueOf(agora));
+                    ps.setArray(2, array(con, "bigint", alteracoes.stream().map(Alteracao::id).toList()));
+                    ps.setArray(3, array(con, "bigint", alteracoes.stream().map(Alteracao::versao).toList()));
+                    ps.setArray(4, array(con, "integer", alteracoes.stream().map(Alteracao::posicao).toList()));
+                    ps.setArray(5, array(con, "bigint", alteracoes.stream().map(Alteracao::columnId).toList()));
+                    ps.setArray(6, array(con, "varchar", alteracoes.stream().map(Alteracao::chaveOrdem).toList()));
+                    ps.setArray(7, array(con, "varchar", alteracoes.stream().map(a -> a.status().name()).toList()));
+                },
+                rs -> { versoes.put(rs.getLong(1), rs.getLong(2)); });
+        return versoes;
+    }
+
+    private static Array array(Connection con, String tipo, Collection<?> valores) throws SQLException {
+        return con.createArrayOf(tipo, valores.toArray());
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.taskmanager.repository;
+
+import com.example.taskmanager.dto.TarefaResumo;
+import com.example.taskmanager.model.PrioridadeTarefa;
+import com.example.taskmanager.model.StatusTarefa;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Páginas de tarefas por coluna com paginação por chave (keyset): cada página continua a partir
+ * da última (chave_ordem, id) vista, direto no índice (column_id, chave_ordem, id), então o custo
+ * de uma página não depende de quantas vieram antes nem do tamanho da board.
+ */
+@Repository
+public class TarefaPaginaRepository {
+
+    // também usadas pelas listagens filtradas (TarefaFiltroRepository)
+    static final String COLUNAS = "t.id, t.titulo, t.descricao, t.status, t.prioridade, t.data_criacao, "
+            + "t.data_conclusao, t.data_limite, t.posicao, t.chave_ordem, t.versao, t.board_id, "
+            + "c.id AS coluna, c.titulo AS coluna_titulo, c.ordem AS coluna_ordem";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TarefaPaginaRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Até {@code limite} tarefas da coluna depois de ({@code chaveApos}, {@code idApos}); do
+     * início da coluna se {@code chaveApos} for nula.
+     */
+    public List<TarefaResumo> daColuna(Long columnId, String chaveApos, Long idApos, int limite) {
+        String sql = "SELECT " + COLUNAS + " FROM tarefas t JOIN board_columns c ON c.id = t.column_id "
+                + "WHERE t.column_id = ? " + (chaveApos == null ? "" : "AND (t.chave_ordem, t.id) > (?, ?) ")
+                + "ORDER BY t.chave_ordem, t.id LIMIT ?";
+        return chaveApos == null
+                ? jdbcTemplate.query(sql, TarefaPaginaRepository::resumo, columnId, limite)
+                : jdbcTemplate.query(sql, TarefaPaginaRepository::resumo, columnId, chaveApos, idApos, limite);
+    }
+
+    /**
+     * As primeiras {@code limite} tarefas de cada coluna da board, numa consulta (uma busca no
+     * índice por coluna). Toda coluna aparece no mapa, na ordem da board, mesmo vazia.
+     */
+    public Map<Long, List<TarefaResumo>> primeirasDaBoard(Long boardId, int limite) {
+        Map<Long, List<TarefaResumo>> porColuna = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT " + COLUNAS + " FROM board_columns c "
+                        + "LEFT JOIN LATERAL (SELECT * FROM tarefas x WHERE x.column_id = c.id "
+                        + "ORDER BY x.chave_ordem, x.id LIMIT ?) t ON true "
+                        + "WHERE c.board_id = ? ORDER BY c.ordem, c.id, t.chave_ordem, t.id",
+                rs -> {
+                    List<TarefaResumo> tarefas = porColuna.computeIfAbsent(rs.getLong("coluna"), k -> new ArrayList<>());
+                    if (rs.getObject("id") != null) tarefas.add(resumo(rs, 0));
+                }, limite, boardId);
+        return porColuna;
+    }
+
+    static TarefaResumo resumo(ResultSet rs, int i) throws SQLException {
+        String prioridade = rs.getString("prioridade");
+        return new TarefaResumo(rs.getLong("id"), rs.getString("titulo"), rs.getString("descricao"),
+                StatusTarefa.valueOf(rs.getString("status")),
+                prioridade == null ? null : PrioridadeTarefa.valueOf(prioridade),
+                data(rs, "data_criacao"), data(rs, "data_conclusao"), data(rs, "data_limite"),
+                rs.getObject("posicao", Integer.class), rs.getString("chave_ordem"), rs.getLong("versao"),
+                rs.getObject("board_id", Long.class), rs.getObject("coluna", Long.class), rs.getString("coluna_titulo"),
+                rs.getObject("coluna_ordem", Integer.class));
+    }
+
+    private static LocalDateTime data(ResultSet rs, String coluna) throws SQLException {
+        Timestamp ts = rs.getTimestamp(coluna);
+        return ts == null ? null : ts.toLocalDateTime();
+    }
+}
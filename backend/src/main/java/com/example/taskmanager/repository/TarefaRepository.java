@@ -1,5 +1,6 @@
 package com.example.taskmanager.repository;
 
+import com.example.taskmanager.dto.TarefaResumo;
 import com.example.taskmanager.model.*;
 import com.example.taskmanager.model.Usuario;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -7,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repositório para entidade Tarefa.
@@ -23,6 +25,34 @@ public interface TarefaRepository extends JpaRepository<Tarefa, Long> {
     Integer maxPosicaoByUsuarioAndStatus(@Param("usuario") Usuario usuario, @Param("status") com.example.taskmanager.model.StatusTarefa status);
 
     List<Tarefa> findByBoard(Board board);
+
+    @Query("select t.board.id from Tarefa t where t.id = :id")
+    Optional<Long> findBoardIdById(@Param("id") Long id);
+
+    // Última chave das tarefas sem coluna do usuário (nas colunas, ver AlocadorPosicoes)
+    @Query("select max(t.chaveOrdem) from Tarefa t where t.column is null and t.usuario = :usuario")
+    String maxChaveOrdemSemColunaByUsuario(@Param("usuario") Usuario usuario);
+
+    String RESUMO = "select new com.example.taskmanager.dto.TarefaResumo(t.id, t.titulo, t.descricao, t.status, "
+            + "t.prioridade, t.dataCriacao, t.dataConclusao, t.dataLimite, t.posicao, t.chaveOrdem, t.versao, "
+            + "t.board.id, c.id, c.titulo, c.ordem) from Tarefa t left join t.column c ";
+
+    // Tarefas da board na ordem de exibição (coluna, depois chave de ordenação): listagem e snapshot realtime
+    @Query(RESUMO + "where t.board.id = :boardId order by c.ordem asc nulls last, t.chaveOrdem asc, t.id asc")
+    List<TarefaResumo> findResumosByBoardId(@Param("boardId") Long boardId);
+
+    @Query(RESUMO + "where t.id = :id")
+    Optional<TarefaResumo> findResumoById(@Param("id") Long id);
+
+    @Query(RESUMO + "where t.usuario.id = :usuarioId order by t.board.id asc nulls last, c.ordem asc nulls last, t.chaveOrdem asc, t.id asc")
+    List<TarefaResumo> findResumosByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    // Tarefas que o usuário enxerga: das boards próprias e compartilhadas com ele, e as suas sem board
+    @Query(RESUMO + "where t.board.id in (select b.id from Board b where b.usuario.email = :email) "
+            + "or t.board.id in (select s.board.id from BoardShare s where s.sharedWith.email = :email) "
+            + "or (t.board is null and t.usuario.email = :email) "
+            + "order by t.board.id asc nulls last, c.ordem asc nulls last, t.chaveOrdem asc, t.id asc")
+    List<TarefaResumo> findResumosAcessiveis(@Param("email") String email);
     
     void deleteByBoard(Board board);
     
@@ -17,10 +17,13 @@ import java.io.IOException;
 
 /**
  * Filtro que extrai o token JWT do header Authorization e autentica o contexto.
+ * No handshake WebSocket, onde o navegador não permite headers, aceita {@code ?access_token=}.
  */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final String WEBSOCKET_PATH = "/tarefas/ws";
+
     private final JwtTokenProvider tokenProvider;
     private final UserDetailsService userDetailsService;
 
@@ -34,16 +37,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                                     HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
         String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        String token = null;
         if (header != null && header.startsWith("Bearer ")) {
-            String token = header.substring(7);
-            if (tokenProvider.tokenValido(token)) {
-                String username = tokenProvider.getUsernameDoToken(token);
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-            }
+            token = header.substring(7);
+        } else if (WEBSOCKET_PATH.equals(request.getServletPath())) {
+            token = request.getParameter("access_token");
+        }
+        if (token != null && tokenProvider.tokenValido(token)) {
+            String username = tokenProvider.getUsernameDoToken(token);
+            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            UsernamePasswordAuthenticationToken authentication =
+                    new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+            authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authentication);
         }
         filterChain.doFilter(request, response);
     }
@@ -0,0 +1,81 @@
+package com.example.taskmanager.service;
+
+import com.example.taskmanager.repository.TarefaOrdemRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Próxima posição (e chave de ordenação) no fim de cada coluna, compartilhada por criação e
+ * movimentação de tarefas. Cada coluna tem um contador em memória, recuperado do banco na
+ * primeira vez por um max() indexado em (column_id, ...): alocar não varre a board nem faz
+ * consulta, e alocações concorrentes nunca recebem o mesmo valor (atualização atômica).
+ * <p>
+ * Os contadores só andam para frente: a ressincronização com o banco (para ver o que outras
+ * instâncias alocaram) fica com o maior de memória e banco, então não desfaz uma alocação desta
+ * instância ainda não confirmada. Entre duas ressincronizações, instâncias diferentes podem dar
+ * o mesmo fim de coluna; o empate é desfeito pelo id, e um move entre os dois rebalanceia a coluna.
+ */
+@Component
+public class AlocadorPosicoes {
+
+    /** Posição legada e chave de ordenação alocadas para uma tarefa. */
+    public record Vaga(int posicao, String chaveOrdem) {}
+
+    private record Fim(int posicao, String chaveOrdem, long sincronizadoEm) {
+
+        Fim seguinte() {
+            return new Fim(posicao + 1, ChaveOrdem.depois(chaveOrdem), sincronizadoEm);
+        }
+
+        static Fim maior(Fim a, Fim b) {
+            String chave = a.chaveOrdem == null ? b.chaveOrdem
+                    : b.chaveOrdem == null || a.chaveOrdem.compareTo(b.chaveOrdem) >= 0 ? a.chaveOrdem : b.chaveOrdem;
+            return new Fim(Math.max(a.posicao, b.posicao), chave, Math.max(a.sincronizadoEm, b.sincronizadoEm));
+        }
+    }
+
+    private final TarefaOrdemRepository ordemRepository;
+    private final Map<Long, AtomicReference<Fim>> colunas = new ConcurrentHashMap<>();
+
+    @Value("${app.tarefas.alocador.sync-ms:10000}")
+    private long sincronizacaoMs;
+
+    public AlocadorPosicoes(TarefaOrdemRepository ordemRepository) {
+        this.ordemRepository = ordemRepository;
+    }
+
+    /**
+     * Aloca o fim da coluna: posição maior e chave depois de todas as já alocadas.
+     */
+    public Vaga proxima(Long columnId) {
+        AtomicReference<Fim> fim = colunas.computeIfAbsent(columnId, id -> new AtomicReference<>(doBanco(id)));
+        if (fim.get().sincronizadoEm() + sincronizacaoMs < System.currentTimeMillis()) {
+            fim.accumulateAndGet(doBanco(columnId), Fim::maior);
+        }
+        Fim alocado = fim.updateAndGet(Fim::seguinte);
+        return new Vaga(alocado.posicao(), alocado.chaveOrdem());
+    }
+
+    /**
+     * Registra valores gravados fora do alocador (reordenação em lote), para que as próximas
+     * alocações continuem depois deles.
+     */
+    public void observar(Long columnId, int posicao, String chaveOrdem) {
+        AtomicReference<Fim> fim = colunas.get(columnId);
+        if (fim != null) fim.accumulateAndGet(new Fim(posicao, chaveOrdem, 0L), Fim::maior);
+    }
+
+    /** Descarta o contador de uma coluna removida. */
+    public void esquecer(Long columnId) {
+        colunas.remove(columnId);
+    }
+
+    private Fim doBanco(Long columnId) {
+        TarefaOrdemRepository.Fim fim = ordemRepository.fimDaColuna(columnId);
+        return new Fim(fim.posicao(), fim.chaveOrdem(), System.currentTimeMillis());
+    }
+}
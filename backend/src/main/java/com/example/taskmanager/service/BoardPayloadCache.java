@@ -0,0 +1,89 @@
+package com.example.taskmanager.service;
+
+import com.example.taskmanager.repository.BoardSequenceRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Respostas de leitura de uma board (tarefas, colunas) já serializadas, por versão. A versão é a
+ * sequência da board ({@code boards.seq}), incrementada na mesma transação de toda alteração de
+ * tarefa, coluna, nota ou compartilhamento que emite evento realtime; enquanto ela não muda, a
+ * resposta é a mesma. Daí saem o ETag (fraco) das leituras e a chave do cache: uma leitura
+ * repetida custa só a consulta da versão, sem as listagens nem o Jackson.
+ * <p>
+ * A versão é lida antes dos dados, então o conteúdo guardado é sempre ao menos tão novo quanto
+ * ela. O cache é um LRU limitado por número de entradas; versões antigas saem sozinhas.
+ */
+@Component
+public class BoardPayloadCache {
+
+    /** Versão de uma board para um usuário. */
+    public record Versao(Long boardId, long seq, String permissao) {
+
+        /** ETag fraco: a mesma versão pode vir serializada de formas equivalentes. */
+        public String etag(String recurso) {
+            return "W/\"" + recurso + "-" + boardId + "-" + seq + "-" + permissao + "\"";
+        }
+    }
+
+    private record Chave(String recurso, Long boardId, long seq, String permissao) {}
+
+    private final BoardSequenceRepository sequenceRepository;
+    private final ObjectMapper objectMapper;
+    private final Map<Chave, byte[]> respostas;
+
+    public BoardPayloadCache(BoardSequenceRepository sequenceRepository, ObjectMapper objectMapper,
+                             @Value("${app.boards.payload-cache.max-entries:256}") int maxEntradas) {
+        this.sequenceRepository = sequenceRepository;
+        this.objectMapper = objectMapper;
+        this.respostas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Chave, byte[]> eldest) {
+                return size() > maxEntradas;
+            }
+        };
+    }
+
+    /**
+     * Versão atual da board para {@code email}. Quem não tem acesso recebe 404, como se a board
+     * não existisse, antes de qualquer consulta ao cache.
+     *
+     * @throws ResponseStatusException 404 se a board não existe ou o usuário não tem acesso
+     */
+    public Versao versao(Long boardId, String email) {
+        BoardSequenceRepository.Versao v = sequenceRepository.versao(boardId, email)
+                .filter(encontrada -> encontrada.permissao() != null)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Board não encontrado"));
+        return new Versao(boardId, v.seq(), v.permissao());
+    }
+
+    /**
+     * JSON de {@code recurso} na {@code versao}: do cache, ou de {@code carregar} serializado
+     * (fora do lock; duas leituras simultâneas da mesma versão podem carregar as duas).
+     */
+    public byte[] json(String recurso, Versao versao, Supplier<?> carregar) {
+        Chave chave = new Chave(recurso, versao.boardId(), versao.seq(), versao.permissao());
+        synchronized (respostas) {
+            byte[] guardado = respostas.get(chave);
+            if (guardado != null) return guardado;
+        }
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(carregar.get());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao serializar " + recurso + " da board " + versao.boardId(), e);
+        }
+        synchronized (respostas) {
+            respostas.put(chave, json);
+        }
+        return json;
+    }
+}
@@ -1,5 +1,9 @@
 package com.example.taskmanager.service;
 
+import com.example.taskmanager.dto.BoardResumo;
+import com.example.taskmanager.dto.BoardShareResumo;
+import com.example.taskmanager.dto.BoardsSeparatedResponse;
+import com.example.taskmanager.dto.ColunaResumo;
 import com.example.taskmanager.model.*;
 import com.example.taskmanager.repository.*;
 import com.example.taskmanager.realtime.TaskStreamService;
@@ -26,11 +30,13 @@ public class BoardService {
     private final TaskStreamService taskStreamService;
     private final EmailService emailService;
     private final NotaTarefaRepository notaTarefaRepository;
+    private final AlocadorPosicoes alocador;
 
     public BoardService(BoardRepository boardRepository, BoardColumnRepository columnRepository,
                         UsuarioRepository usuarioRepository, TarefaRepository tarefaRepository,
                         BoardShareRepository boardShareRepository, TaskStreamService taskStreamService,
-                        EmailService emailService, NotaTarefaRepository notaTarefaRepository) {
+                        EmailService emailService, NotaTarefaRepository notaTarefaRepository,
+                        AlocadorPosicoes alocador) {
         this.boardRepository = boardRepository;
         this.columnRepository = columnRepository;
         this.usuarioRepository = usuarioRepository;
@@ -39,6 +45,7 @@ public class BoardService {
         this.taskStreamService = taskStreamService;
         this.emailService = emailService;
         this.notaTarefaRepository = notaTarefaRepository;
+        this.alocador = alocador;
     }
 
     public Board criarParaEmail(String email, String nome, String icon) {
@@ -63,61 +70,27 @@ public class BoardService {
         return salvo;
     }
 
+    /**
+     * Boards próprias seguidas das compartilhadas com o usuário, com o dono já resolvido.
+     */
     @Transactional(readOnly = true)
-    public List<Board> listar(String email) {
-        logger.debug("BOARD LISTAR - Email: {}", email);
-        Usuario usuario = usuarioRepository.findByEmail(email).orElseThrow(() -> new IllegalArgumentException("Usuário não encontrado"));
-        logger.debug("BOARD LISTAR - Usuario ID: {}, Nome: {}", usuario.getId(), usuario.getNome());
-
-        // Boards próprias
-        List<Board> ownBoards = boardRepository.findByUsuarioOrderByCriadoEmAsc(usuario);
-        logger.debug("BOARD LISTAR - Own boards count: {}", ownBoards.size());
-        ownBoards.forEach(b -> logger.trace("Own Board: {} - {}", b.getId(), b.getNome()));
-
-        // Boards compartilhadas comigo - FORÇAR INICIALIZAÇÃO PARA EVITAR PROXY
-        List<BoardShare> sharedBoards = boardShareRepository.findBySharedWith(usuario);
-        List<Board> sharedBoardsList = sharedBoards.stream()
-            .map(share -> {
-                Board board = share.getBoard();
-                // Força a inicialização do proxy do Hibernate
-                board.getId();
-                board.getNome();
-                return board;
-            })
-            .toList();
-        logger.debug("BOARD LISTAR - Shared boards count: {}", sharedBoardsList.size());
-        sharedBoardsList.forEach(b -> logger.trace("Shared Board: {} - {}", b.getId(), b.getNome()));
-
-        // Criar uma nova lista para evitar problemas de referência
-        List<Board> allBoards = new ArrayList<>(ownBoards);
-        allBoards.addAll(sharedBoardsList);
-        logger.debug("BOARD LISTAR - Total boards returned: {}", allBoards.size());
-        return allBoards;
+    public List<BoardResumo> listar(String email) {
+        List<BoardResumo> boards = new ArrayList<>(boardRepository.findResumosByUsuarioEmail(email));
+        boards.addAll(boardRepository.findResumosCompartilhadosCom(email));
+        logger.debug("BOARD LISTAR - {}: {} boards", email, boards.size());
+        return boards;
     }
 
     @Transactional(readOnly = true)
-    public com.example.taskmanager.dto.BoardsSeparatedResponse listarSeparadas(String email) {
-        logger.debug("BOARD LISTAR SEPARADAS - Email: {}", email);
-        Usuario usuario = usuarioRepository.findByEmail(email).orElseThrow(() -> new IllegalArgumentException("Usuário não encontrado"));
-
-        // Boards próprias
-        List<Board> ownBoards = boardRepository.findByUsuarioOrderByCriadoEmAsc(usuario);
-        logger.debug("BOARD LISTAR SEPARADAS - Own boards: {}", ownBoards.size());
-
-        // Boards compartilhadas comigo - usando query com JOIN FETCH para evitar proxies lazy
-        List<BoardShare> sharedBoards = boardShareRepository.findBySharedWithWithBoardAndOwner(usuario);
-        List<Board> sharedBoardsList = sharedBoards.stream()
-            .map(BoardShare::getBoard)
-            .toList();
-        logger.debug("BOARD LISTAR SEPARADAS - Shared boards: {}", sharedBoardsList.size());
-
-        return new com.example.taskmanager.dto.BoardsSeparatedResponse(ownBoards, sharedBoardsList);
+    public BoardsSeparatedResponse listarSeparadas(String email) {
+        return new BoardsSeparatedResponse(boardRepository.findResumosByUsuarioEmail(email),
+                boardRepository.findResumosCompartilhadosCom(email));
     }
 
     @Transactional(readOnly = true)
-    public List<BoardColumn> colunas(Long boardId) {
-        Board b = boardRepository.findById(boardId).orElseThrow(() -> new IllegalArgumentException("Board não encontrado"));
-        return columnRepository.findByBoardOrderByOrdemAsc(b);
+    public List<ColunaResumo> colunas(Long boardId) {
+        if (!boardRepository.existsById(boardId)) throw new IllegalArgumentException("Board não encontrado");
+        return columnRepository.findResumosByBoardId(boardId);
     }
 
     public BoardColumn criarColuna(Long boardId, String titulo) {
@@ -143,16 +116,25 @@ public class BoardService {
         return saved;
     }
     
-    public BoardColumn renomearColuna(Long columnId, String titulo) {
+    /**
+     * Renomeia a coluna; com {@code versaoEsperada} (If-Match), só se ninguém a alterou antes.
+     */
+    public BoardColumn renomearColuna(Long columnId, String titulo, Long versaoEsperada) {
         BoardColumn c = columnRepository.findById(columnId).orElseThrow(() -> new IllegalArgumentException("Coluna não encontrada"));
+        if (versaoEsperada != null && versaoEsperada != c.getVersao()) {
+            throw new ConflitoVersaoException("Coluna alterada por outra requisição", new ColunaResumo(c.getId(), c.getTitulo(),
+                    c.getOrdem(), c.getLegacyStatus(), c.getBoard().getId(), c.getVersao()), c.getVersao());
+        }
         c.setTitulo(titulo);
-        BoardColumn saved = columnRepository.save(c);
+        // flush já aqui: a versão nova vai no evento e no ETag da resposta
+        BoardColumn saved = columnRepository.saveAndFlush(c);
         try {
             Map<String,Object> colDto = Map.of(
                     "id", saved.getId(),
                     "titulo", saved.getTitulo(),
                     "ordem", saved.getOrdem(),
-                    "boardId", saved.getBoard().getId()
+                    "boardId", saved.getBoard().getId(),
+                    "versao", saved.getVersao()
             );
             taskStreamService.sendGeneric(Map.of("type", "COLUMN_UPDATED", "column", colDto, "boardId", saved.getBoard().getId()));
         } catch (Exception e) {
@@ -161,10 +143,19 @@ public class BoardService {
         return saved;
     }
 
-    public Board renomear(Long id, String nome) {
+    /**
+     * Renomeia a board; com {@code versaoEsperada} (If-Match), só se ninguém a alterou antes.
+     */
+    public Board renomear(Long id, String nome, Long versaoEsperada) {
         Board b = boardRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("Board não encontrado"));
+        if (versaoEsperada != null && versaoEsperada != b.getVersao()) {
+            Usuario dono = b.getUsuario();
+            throw new ConflitoVersaoException("Board alterada por outra requisição", new BoardResumo(b.getId(), b.getNome(),
+                    b.getIcon(), b.getCriadoEm(), b.getVersao(), dono.getId(), dono.getNome(), dono.getEmail(),
+                    dono.getNomeUsuario()), b.getVersao());
+        }
         b.setNome(nome);
-        return b;
+        return boardRepository.saveAndFlush(b);
     }
 
     @Transactional
@@ -181,6 +172,7 @@ public class BoardService {
         List<BoardColumn> cols = columnRepository.findByBoardOrderByOrdemAsc(b);
         for (BoardColumn c : cols) {
             columnRepository.delete(c);
+            alocador.esquecer(c.getId());
         }
         
         // Remove o board
@@ -203,6 +195,7 @@ public class BoardService {
 
         // Depois deletar a coluna
         columnRepository.delete(c);
+        alocador.esquecer(columnId);
 
         // Emitir evento realtime para remoção de coluna
         try {
@@ -256,7 +249,7 @@ public class BoardService {
         BoardShare savedShare = boardShareRepository.save(share);
         
     // Envia notificação em tempo real (include shared with real name)
-    taskStreamService.sendGeneric(Map.of("type","BOARD_SHARED","board",board,"sharedWith",usuarioCompartilhar.getNome(),"by",proprietario.getNome()));
+    taskStreamService.sendBoardShared(board, usuarioCompartilhar, proprietario.getNome());
         
         // Envia email de notificação
         try {
@@ -282,7 +275,7 @@ public class BoardService {
         boardShareRepository.deleteByBoardAndSharedWith(board, usuarioRemover);
         
     // Envia notificação em tempo real (use real name)
-    taskStreamService.sendGeneric(Map.of("type","BOARD_UNSHARED","boardId",boardId,"unsharedFrom",usuarioRemover.getNome(),"by",proprietario.getNome()));
+    taskStreamService.sendBoardUnshared(boardId, usuarioRemover, proprietario.getNome());
         
         // Envia email de notificação de remoção
         try {
@@ -297,16 +290,13 @@ public class BoardService {
     }
     
     @Transactional(readOnly = true)
-    public List<BoardShare> listarCompartilhamentos(Long boardId, String emailProprietario) {
-        Board board = boardRepository.findById(boardId).orElseThrow(() -> new IllegalArgumentException("Board não encontrado"));
-        Usuario proprietario = usuarioRepository.findByEmail(emailProprietario).orElseThrow(() -> new IllegalArgumentException("Proprietário não encontrado"));
-        
+    public List<BoardShareResumo> listarCompartilhamentos(Long boardId, String emailProprietario) {
+        if (!boardRepository.existsById(boardId)) throw new IllegalArgumentException("Board não encontrado");
         // Verifica se é o dono do board
-        if (!board.getUsuario().equals(proprietario)) {
+        if (!boardRepository.existsByIdAndUsuarioEmail(boardId, emailProprietario)) {
             throw new IllegalArgumentException("Apenas o proprietário pode ver compartilhamentos");
         }
-        
-        return boardShareRepository.findByBoard(board);
+        return boardShareRepository.findResumosByBoardId(boardId);
     }
     
     @Transactional(readOnly = true)  
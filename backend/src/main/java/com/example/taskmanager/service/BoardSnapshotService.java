@@ -0,0 +1,75 @@
+package com.example.taskmanager.service;
+
+import com.example.taskmanager.dto.PaginaColuna;
+import com.example.taskmanager.model.Board;
+import com.example.taskmanager.model.BoardColumn;
+import com.example.taskmanager.repository.BoardColumnRepository;
+import com.example.taskmanager.repository.BoardRepository;
+import com.example.taskmanager.repository.BoardSequenceRepository;
+import com.example.taskmanager.repository.TarefaPaginaRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estado de uma board (board, colunas e a primeira página de tarefas de cada coluna) junto com a
+ * sequência de mutações que ele reflete. A leitura é feita num único snapshot do banco
+ * (REPEATABLE READ), então o conteúdo corresponde exatamente à sequência N: eventos com seq &gt; N
+ * são o que vem depois. O resto de cada coluna vem sob demanda pelo cursor da página, como na
+ * abertura da board sem realtime.
+ */
+@Service
+public class BoardSnapshotService {
+
+    private final BoardRepository boardRepository;
+    private final BoardColumnRepository columnRepository;
+    private final BoardSequenceRepository sequenceRepository;
+    private final TarefaPaginaRepository paginaRepository;
+    private final int tamanhoPagina;
+
+    public BoardSnapshotService(BoardRepository boardRepository, BoardColumnRepository columnRepository,
+                                BoardSequenceRepository sequenceRepository, TarefaPaginaRepository paginaRepository,
+                                @Value("${app.realtime.snapshot.page-size:50}") int tamanhoPagina) {
+        this.boardRepository = boardRepository;
+        this.columnRepository = columnRepository;
+        this.sequenceRepository = sequenceRepository;
+        this.paginaRepository = paginaRepository;
+        this.tamanhoPagina = tamanhoPagina;
+    }
+
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public Map<String, Object> carregar(Long boardId) {
+        // a primeira leitura fixa o snapshot da transação; a sequência vem do mesmo snapshot
+        long seq = sequenceRepository.atual(boardId);
+        Board board = boardRepository.findById(boardId)
+                .orElseThrow(() -> new IllegalArgumentException("Board não encontrado"));
+        List<Map<String, Object>> colunas = columnRepository.findByBoardOrderByOrdemAsc(board).stream()
+                .map(BoardSnapshotService::coluna)
+                .toList();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("type", "SNAPSHOT");
+        snapshot.put("boardId", boardId);
+        snapshot.put("seq", seq);
+        snapshot.put("board", board);
+        snapshot.put("columns", colunas);
+        List<PaginaColuna> paginas = new ArrayList<>();
+        paginaRepository.primeirasDaBoard(boardId, tamanhoPagina + 1)
+                .forEach((columnId, tarefas) -> paginas.add(PaginaColuna.de(columnId, tarefas, tamanhoPagina)));
+        snapshot.put("pages", paginas);
+        return snapshot;
+    }
+
+    private static Map<String, Object> coluna(BoardColumn c) {
+        Map<String, Object> dto = new LinkedHashMap<>();
+        dto.put("id", c.getId());
+        dto.put("titulo", c.getTitulo());
+        dto.put("ordem", c.getOrdem());
+        return dto;
+    }
+}
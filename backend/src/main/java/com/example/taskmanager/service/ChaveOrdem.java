@@ -0,0 +1,160 @@
+package com.example.taskmanager.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Chaves fracionárias de ordenação (estilo LexoRank) para as tarefas de uma coluna. Uma chave é
+ * uma fração em base 36 ("0.k" → "k") escrita com os dígitos 0-9a-z: a ordem das strings (byte a
+ * byte, por isso a coluna usa COLLATE "C") é a ordem das frações, e entre duas chaves sempre cabe
+ * outra. Mover um cartão vira gravar uma única chave entre as dos vizinhos, sem renumerar os demais.
+ * <p>
+ * As chaves nunca terminam em '0' (0.k0 = 0.k), o que garante que a busca do meio sempre avance.
+ * Nas pontas (início e fim da coluna, o caso comum de quem cria cartões) a chave anda uma unidade
+ * de 36^-6, sem crescer; inserções repetidas entre os mesmos dois vizinhos alongam a chave em ~1
+ * dígito a cada 5, e acima de {@link #COMPRIMENTO_REBALANCEAMENTO} a coluna é redistribuída em
+ * segundo plano ({@link #distribuidas}).
+ */
+public final class ChaveOrdem {
+
+    private static final String DIGITOS = "0123456789abcdefghijklmnopqrstuvwxyz";
+    private static final int BASE = DIGITOS.length();
+
+    /** Comprimento a partir do qual a coluna é agendada para rebalanceamento. */
+    public static final int COMPRIMENTO_REBALANCEAMENTO = 24;
+
+    /** Casas da unidade usada nas pontas: 36^6 (~2 bilhões) inserções antes de alongar. */
+    private static final int CASAS_PONTA = 6;
+
+    /** Comprimento máximo aceito na coluna do banco. */
+    public static final int COMPRIMENTO_MAXIMO = 64;
+
+    private ChaveOrdem() {}
+
+    /**
+     * Chave estritamente entre {@code antes} e {@code depois}; nulo significa sem vizinho daquele lado.
+     *
+     * @throws IllegalArgumentException se {@code antes >= depois} ou uma chave é inválida
+     */
+    public static String entre(String antes, String depois) {
+        String a = antes == null ? "" : antes;
+        validar(a);
+        if (depois != null) {
+            validar(depois);
+            if (depois.isEmpty() || a.compareTo(depois) >= 0) {
+                throw new IllegalArgumentException("Chaves de ordenação fora de ordem: " + antes + " / " + depois);
+            }
+        }
+        if (a.isEmpty() && depois == null) return "i";
+        if (depois == null) return somarUnidade(a, 1).orElseGet(() -> meio(a, null));
+        if (a.isEmpty()) return somarUnidade(depois, -1).orElseGet(() -> meio("", depois));
+        return meio(a, depois);
+    }
+
+    /**
+     * {@code chave ± 36^-max(casas, 6)}; vazio se sair do intervalo (0, 1).
+     */
+    private static Optional<String> somarUnidade(String chave, int sinal) {
+        char[] d = new char[Math.max(chave.length(), CASAS_PONTA)];
+        for (int i = 0; i < d.length; i++) d[i] = i < chave.length() ? chave.charAt(i) : '0';
+        int i = d.length - 1;
+        while (i >= 0) {
+            int v = DIGITOS.indexOf(d[i]) + sinal;
+            if (v >= 0 && v < BASE) {
+                d[i] = DIGITOS.charAt(v);
+                break;
+            }
+            d[i] = sinal > 0 ? '0' : DIGITOS.charAt(BASE - 1);
+            i--;
+        }
+        String r = semZerosFinais(new String(d));
+        return i < 0 || r.isEmpty() ? Optional.empty() : Optional.of(r);
+    }
+
+    /** Chave depois de {@code ultima} (ou a primeira da coluna, se nula). */
+    public static String depois(String ultima) {
+        return entre(ultima, null);
+    }
+
+    /**
+     * {@code n} chaves crescentes igualmente espaçadas e curtas, para redistribuir uma coluna
+     * (ou gerar as chaves de uma lista inteira) preservando a ordem.
+     */
+    public static List<String> distribuidas(int n) {
+        List<String> chaves = new ArrayList<>(n);
+        if (n == 0) return chaves;
+        // largura com folga de ao menos uma "casa" (36 posições livres) entre chaves vizinhas
+        int largura = 1;
+        long capacidade = BASE;
+        while (capacidade / (n + 1L) < BASE) {
+            capacidade *= BASE;
+            largura++;
+        }
+        long passo = capacidade / (n + 1L);
+        for (int i = 1; i <= n; i++) {
+            chaves.add(semZerosFinais(emBase(passo * i, largura)));
+        }
+        return chaves;
+    }
+
+    private static String meio(String a, String b) {
+        if (b != null) {
+            // prefixo comum (a completado com zeros)
+            int n = 0;
+            while (n < b.length() && (n < a.length() ? a.charAt(n) : '0') == b.charAt(n)) n++;
+            if (n > 0) {
+                return b.substring(0, n) + meio(n < a.length() ? a.substring(n) : "", b.substring(n));
+            }
+        }
+        int da = a.isEmpty() ? 0 : DIGITOS.indexOf(a.charAt(0));
+        int db = b == null ? BASE : DIGITOS.indexOf(b.charAt(0));
+        if (db - da > 1) {
+            return String.valueOf(DIGITOS.charAt((da + db + 1) / 2));
+        }
+        // dígitos consecutivos: o primeiro dígito de b basta se b continua depois dele
+        if (b != null && b.length() > 1) {
+            return b.substring(0, 1);
+        }
+        return DIGITOS.charAt(da) + meio(a.length() > 1 ? a.substring(1) : "", null);
+    }
+
+    /**
+     * Se {@code chave} é uma chave de ordenação bem formada (não vazia, só dígitos 0-9a-z, sem '0'
+     * no fim, no máximo {@link #COMPRIMENTO_MAXIMO}), ex.: a de um cursor de paginação.
+     */
+    public static boolean isValida(String chave) {
+        if (chave == null || chave.isEmpty()) return false;
+        try {
+            validar(chave);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static void validar(String chave) {
+        if (chave.length() > COMPRIMENTO_MAXIMO) throw new IllegalArgumentException("Chave de ordenação longa demais");
+        for (int i = 0; i < chave.length(); i++) {
+            if (DIGITOS.indexOf(chave.charAt(i)) < 0) throw new IllegalArgumentException("Chave de ordenação inválida: " + chave);
+        }
+        if (!chave.isEmpty() && chave.charAt(chave.length() - 1) == '0') {
+            throw new IllegalArgumentException("Chave de ordenação inválida: " + chave);
+        }
+    }
+
+    private static String emBase(long valor, int largura) {
+        char[] out = new char[largura];
+        for (int i = largura - 1; i >= 0; i--) {
+            out[i] = DIGITOS.charAt((int) (valor % BASE));
+            valor /= BASE;
+        }
+        return new String(out);
+    }
+
+    private static String semZerosFinais(String s) {
+        int fim = s.length();
+        while (fim > 0 && s.charAt(fim - 1) == '0') fim--;
+        return s.substring(0, fim);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.taskmanager.service;
+
+/**
+ * A versão informada pelo cliente (If-Match) não é mais a atual: outra escrita chegou antes.
+ * Vira 412 com o estado atual no corpo, para o cliente refazer a alteração sem outra leitura.
+ */
+public class ConflitoVersaoException extends RuntimeException {
+
+    private final transient Object atual;
+    private final Long versaoAtual;
+
+    /**
+     * @param atual       estado atual do recurso (ou dos recursos, numa operação em lote)
+     * @param versaoAtual versão atual, para o ETag da resposta; nula em lote
+     */
+    public ConflitoVersaoException(String mensagem, Object atual, Long versaoAtual) {
+        super(mensagem);
+        this.atual = atual;
+        this.versaoAtual = versaoAtual;
+    }
+
+    public Object getAtual() { return atual; }
+
+    public Long getVersaoAtual() { return versaoAtual; }
+}
@@ -10,9 +10,14 @@ import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PreDestroy;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 @Service
 public class EmailService {
     
@@ -20,11 +25,51 @@ public class EmailService {
     
     private final JavaMailSender mailSender;
     private final EmailConfig emailConfig;
+    // O SMTP do Jakarta Mail faz I/O dentro de synchronized, o que prende a virtual thread ao
+    // carrier durante todo o envio; chamado de uma virtual thread, o envio roda aqui.
+    private final ExecutorService envioPlataforma = Executors.newFixedThreadPool(2, r -> {
+        Thread t = new Thread(r, "mail-sender");
+        t.setDaemon(true);
+        return t;
+    });
     
     public EmailService(JavaMailSender mailSender, EmailConfig emailConfig) {
         this.mailSender = mailSender;
         this.emailConfig = emailConfig;
     }
+
+    @PreDestroy
+    void shutdown() {
+        envioPlataforma.shutdown();
+    }
+
+    private void enviar(SimpleMailMessage message) {
+        enviar(() -> mailSender.send(message));
+    }
+
+    private void enviar(MimeMessage message) {
+        enviar(() -> mailSender.send(message));
+    }
+
+    /**
+     * Envia na thread atual, ou numa thread de plataforma se a atual é virtual (a virtual thread
+     * espera sem ocupar o carrier). Exceções chegam ao chamador como no envio direto.
+     */
+    private void enviar(Runnable envio) {
+        if (!Thread.currentThread().isVirtual()) {
+            envio.run();
+            return;
+        }
+        try {
+            envioPlataforma.submit(envio).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Envio de email interrompido", e);
+        }
+    }
     
     /**
      * Envia email simples de compartilhamento de board
@@ -46,7 +91,7 @@ public class EmailService {
                 "🌐 Website: " + emailConfig.getWebsiteUrl()
             );
             
-            mailSender.send(message);
+            enviar(message);
             logger.info("✅ Email de compartilhamento enviado para: {} de: {}", destinatario, emailConfig.getFromName());
             
         } catch (Exception e) {
@@ -71,7 +116,7 @@ public class EmailService {
             String htmlContent = criarTemplateHTML(board, proprietario, destinatario, permissao);
             helper.setText(htmlContent, true);
             
-            mailSender.send(mimeMessage);
+            enviar(mimeMessage);
             logger.info("✅ Email HTML de compartilhamento enviado para: {}", destinatario.getEmail());
             
         } catch (MessagingException e) {
@@ -98,7 +143,7 @@ public class EmailService {
                 "Equipe Orbitr"
             );
             
-            mailSender.send(message);
+            enviar(message);
             logger.info("✅ Email de remoção enviado para: {}", destinatario);
             
         } catch (Exception e) {
@@ -199,7 +244,7 @@ public class EmailService {
                         "Equipe " + emailConfig.getFromName());
             
             logger.info("📧 Enviando email de teste...");
-            mailSender.send(message);
+            enviar(message);
             logger.info("✅ Email de teste enviado com sucesso para: {}", emailTeste);
             return true;
             
@@ -227,7 +272,7 @@ public class EmailService {
         helper.setSubject(subject);
         helper.setText(htmlContent, true); // true indica HTML
         
-        mailSender.send(message);
+        enviar(message);
         logger.info("✅ Email HTML enviado com sucesso para: {}", to);
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.example.taskmanager.service;
 
+import com.example.taskmanager.dto.NotaResumo;
 import com.example.taskmanager.model.NotaTarefa;
 import com.example.taskmanager.model.Tarefa;
 import com.example.taskmanager.model.Usuario;
@@ -9,7 +10,10 @@ import com.example.taskmanager.repository.UsuarioRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Serviço responsável pela lógica de negócio de Notas de Tarefa.
@@ -33,7 +37,7 @@ public class NotaTarefaService {
     /**
      * Cria uma nova nota para uma tarefa
      */
-    public NotaTarefa criarNota(Long tarefaId, String email, String conteudo, Boolean publica, Long destinatarioId) {
+    public NotaResumo criarNota(Long tarefaId, String email, String conteudo, Boolean publica, Long destinatarioId) {
         Tarefa tarefa = tarefaRepository.findById(tarefaId)
                 .orElseThrow(() -> new IllegalArgumentException("Tarefa não encontrada"));
         
@@ -49,27 +53,34 @@ public class NotaTarefaService {
             nota.setDestinatario(destinatario);
         }
 
-        return notaRepository.save(nota);
+        return buscarResumo(notaRepository.save(nota).getId());
     }
 
     /**
      * Lista notas visíveis para um usuário em uma tarefa
      */
     @Transactional(readOnly = true)
-    public List<NotaTarefa> listarNotasVisiveis(Long tarefaId, String email) {
-        Tarefa tarefa = tarefaRepository.findById(tarefaId)
-                .orElseThrow(() -> new IllegalArgumentException("Tarefa não encontrada"));
-        
-        Usuario usuario = usuarioRepository.findByEmail(email)
-                .orElseThrow(() -> new IllegalArgumentException("Usuário não encontrado"));
+    public List<NotaResumo> listarNotasVisiveis(Long tarefaId, String email) {
+        if (!tarefaRepository.existsById(tarefaId)) throw new IllegalArgumentException("Tarefa não encontrada");
+        return comVisualizacoes(notaRepository.findResumosVisiveis(tarefaId, email));
+    }
 
-        return notaRepository.findVisibleByTarefaAndUsuario(tarefa, usuario);
+    /**
+     * Preenche quem visualizou cada nota com uma consulta só para a lista inteira.
+     */
+    private List<NotaResumo> comVisualizacoes(List<NotaResumo> notas) {
+        if (notas.isEmpty()) return notas;
+        Map<Long, List<Long>> porNota = new HashMap<>();
+        for (Object[] par : notaRepository.findVisualizacoes(notas.stream().map(NotaResumo::id).toList())) {
+            porNota.computeIfAbsent((Long) par[0], k -> new ArrayList<>()).add((Long) par[1]);
+        }
+        return notas.stream().map(n -> n.comVisualizacoes(porNota.getOrDefault(n.id(), List.of()))).toList();
     }
 
     /**
      * Marca uma nota como visualizada por um usuário
      */
-    public NotaTarefa marcarComoVista(Long notaId, String email) {
+    public NotaResumo marcarComoVista(Long notaId, String email) {
         NotaTarefa nota = notaRepository.findById(notaId)
                 .orElseThrow(() -> new IllegalArgumentException("Nota não encontrada"));
         
@@ -77,7 +88,7 @@ public class NotaTarefaService {
                 .orElseThrow(() -> new IllegalArgumentException("Usuário não encontrado"));
 
         nota.addVisualizacao(usuario);
-        return notaRepository.save(nota);
+        return buscarResumo(notaRepository.save(nota).getId());
     }
 
     /**
@@ -106,11 +117,20 @@ public class NotaTarefaService {
     }
 
     /**
-     * Busca nota por ID
+     * Busca nota por ID, como resumo (leitura)
      */
     @Transactional(readOnly = true)
-    public NotaTarefa buscarPorId(Long id) {
-        return notaRepository.findById(id)
+    public NotaResumo buscarResumo(Long id) {
+        NotaResumo nota = notaRepository.findResumoById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Nota não encontrada"));
+        return comVisualizacoes(List.of(nota)).get(0);
+    }
+
+    /**
+     * Board da tarefa (para rotear os eventos de nota); null se a tarefa não tem board
+     */
+    @Transactional(readOnly = true)
+    public Long boardDaTarefa(Long tarefaId) {
+        return tarefaRepository.findBoardIdById(tarefaId).orElse(null);
     }
 }
\ No newline at end of file
@@ -1,15 +1,43 @@
 package com.example.taskmanager.service;
 
+import com.example.taskmanager.dto.FiltroTarefas;
+import com.example.taskmanager.dto.PaginaBusca;
+import com.example.taskmanager.dto.PaginaColuna;
+import com.example.taskmanager.dto.ResultadoBusca;
+import com.example.taskmanager.dto.TarefaResumo;
 import com.example.taskmanager.model.*;
 import com.example.taskmanager.repository.TarefaRepository;
 import com.example.taskmanager.repository.BoardColumnRepository;
 import com.example.taskmanager.repository.BoardRepository;
 import com.example.taskmanager.repository.UsuarioRepository;
 import com.example.taskmanager.repository.NotaTarefaRepository;
+import com.example.taskmanager.repository.TarefaOrdemRepository;
+import com.example.taskmanager.repository.TarefaPaginaRepository;
+import com.example.taskmanager.repository.TarefaBuscaRepository;
+import com.example.taskmanager.repository.TarefaFiltroRepository;
+import com.example.taskmanager.realtime.TaskStreamService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Serviço responsável pela lógica de negócio de Tarefas.
@@ -18,18 +46,120 @@ import java.util.List;
 @Transactional
 public class TarefaService {
 
+    private static final Logger logger = LoggerFactory.getLogger(TarefaService.class);
+
     private final TarefaRepository tarefaRepository;
     private final UsuarioRepository usuarioRepository;
     private final BoardRepository boardRepository;
     private final BoardColumnRepository columnRepository;
     private final NotaTarefaRepository notaTarefaRepository;
+    private final TaskStreamService streamService;
+    private final TarefaOrdemRepository ordemRepository;
+    private final AlocadorPosicoes alocador;
+    private final TarefaPaginaRepository paginaRepository;
+    private final TarefaBuscaRepository buscaRepository;
+    private final TarefaFiltroRepository filtroRepository;
+    private final TransactionTemplate novaTransacao;
+    // colunas com chaves de ordenação longas, redistribuídas em segundo plano
+    private final Set<Long> colunasParaRebalancear = ConcurrentHashMap.newKeySet();
 
-    public TarefaService(TarefaRepository tarefaRepository, UsuarioRepository usuarioRepository, BoardRepository boardRepository, BoardColumnRepository columnRepository, NotaTarefaRepository notaTarefaRepository) {
+    public TarefaService(TarefaRepository tarefaRepository, UsuarioRepository usuarioRepository, BoardRepository boardRepository, BoardColumnRepository columnRepository, NotaTarefaRepository notaTarefaRepository, TaskStreamService streamService, TarefaOrdemRepository ordemRepository, AlocadorPosicoes alocador, TarefaPaginaRepository paginaRepository, TarefaBuscaRepository buscaRepository, TarefaFiltroRepository filtroRepository, PlatformTransactionManager transactionManager) {
         this.tarefaRepository = tarefaRepository;
         this.usuarioRepository = usuarioRepository;
         this.boardRepository = boardRepository;
         this.columnRepository = columnRepository;
         this.notaTarefaRepository = notaTarefaRepository;
+        this.streamService = streamService;
+        this.ordemRepository = ordemRepository;
+        this.alocador = alocador;
+        this.paginaRepository = paginaRepository;
+        this.buscaRepository = buscaRepository;
+        this.filtroRepository = filtroRepository;
+        this.novaTransacao = new TransactionTemplate(transactionManager);
+        this.novaTransacao.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /** Maior página aceita nas listagens por coluna. */
+    public static final int LIMITE_MAXIMO_PAGINA = 200;
+
+    /** Maior termo aceito na busca. */
+    public static final int TAMANHO_MAXIMO_BUSCA = 200;
+
+    /**
+     * Campos de uma tarefa que os clientes acompanham; comparar o estado antes e depois de uma
+     * operação dá só o que mudou, que é o que vai no evento realtime.
+     */
+    private record Estado(String titulo, String descricao, StatusTarefa status, PrioridadeTarefa prioridade,
+                          LocalDateTime dataLimite, LocalDateTime dataConclusao, Integer posicao,
+                          String chaveOrdem, Long columnId, Long boardId) {
+
+        static Estado de(Tarefa t) {
+            return new Estado(t.getTitulo(), t.getDescricao(), t.getStatus(), t.getPrioridade(),
+                    t.getDataLimite(), t.getDataConclusao(), t.getPosicao(), t.getChaveOrdem(),
+                    t.getColumn() == null ? null : t.getColumn().getId(),
+                    t.getBoard() == null ? null : t.getBoard().getId());
+        }
+
+        Map<String, Object> diferencas(Estado depois) {
+            Map<String, Object> changes = new LinkedHashMap<>();
+            if (!Objects.equals(titulo, depois.titulo)) changes.put("titulo", depois.titulo);
+            if (!Objects.equals(descricao, depois.descricao)) changes.put("descricao", depois.descricao);
+            if (status != depois.status) changes.put("status", depois.status);
+            if (prioridade != depois.prioridade) changes.put("prioridade", depois.prioridade);
+            if (!Objects.equals(dataLimite, depois.dataLimite)) changes.put("dataLimite", depois.dataLimite);
+            if (!Objects.equals(dataConclusao, depois.dataConclusao)) changes.put("dataConclusao", depois.dataConclusao);
+            if (!Objects.equals(posicao, depois.posicao)) changes.put("posicao", depois.posicao);
+            if (!Objects.equals(chaveOrdem, depois.chaveOrdem)) changes.put("chaveOrdem", depois.chaveOrdem);
+            if (!Objects.equals(columnId, depois.columnId)) changes.put("columnId", depois.columnId);
+            if (!Objects.equals(boardId, depois.boardId)) changes.put("boardId", depois.boardId);
+            return changes;
+        }
+    }
+
+    /**
+     * Publica o que mudou desde {@code antes}. A versão ({@code @Version}) é incrementada pelo
+     * Hibernate no flush, que por isso acontece antes do evento: o patch leva a versão nova, e
+     * uma escrita concorrente aparece aqui (UPDATE ... WHERE versao = ?) e não no commit.
+     */
+    private void publicarAlteracoes(Tarefa t, Estado antes, String email) {
+        Map<String, Object> changes = antes.diferencas(Estado.de(t));
+        if (changes.isEmpty()) return;
+        tarefaRepository.flush();
+        streamService.sendTaskPatch(t, changes, nomeDoAutor(email));
+    }
+
+    /**
+     * Compara a versão que o cliente editou (If-Match; nula = incondicional) com a atual.
+     *
+     * @throws ConflitoVersaoException com a tarefa atual, se outra escrita chegou antes
+     */
+    private void verificarVersao(Tarefa t, Long versaoEsperada) {
+        if (versaoEsperada != null && versaoEsperada != t.getVersao()) {
+            throw new ConflitoVersaoException("Tarefa alterada por outra requisição", buscarResumo(t.getId()), t.getVersao());
+        }
+    }
+
+    private String nomeDoAutor(String email) {
+        if (email == null) return null;
+        return usuarioRepository.findByEmail(email).map(Usuario::getNome).orElse(email);
+    }
+
+    /**
+     * Coloca a tarefa no fim da sua coluna (posição e chave de ordenação vindas do
+     * {@link AlocadorPosicoes}); uma posição já preenchida é mantida. Sem coluna (legado), vai
+     * para o fim das tarefas do usuário.
+     */
+    private void posicionarNoFim(Tarefa tarefa, Usuario usuario) {
+        if (tarefa.getColumn() != null) {
+            AlocadorPosicoes.Vaga vaga = alocador.proxima(tarefa.getColumn().getId());
+            if (tarefa.getPosicao() == null) tarefa.setPosicao(vaga.posicao());
+            tarefa.setChaveOrdem(vaga.chaveOrdem());
+            return;
+        }
+        if (tarefa.getPosicao() == null) {
+            tarefa.setPosicao(tarefaRepository.maxPosicaoByUsuarioAndStatus(usuario, tarefa.getStatus()) + 1);
+        }
+        tarefa.setChaveOrdem(ChaveOrdem.depois(tarefaRepository.maxChaveOrdemSemColunaByUsuario(usuario)));
     }
 
     /**
@@ -39,10 +169,7 @@ public class TarefaService {
         Usuario usuario = usuarioRepository.findById(usuarioId)
                 .orElseThrow(() -> new IllegalArgumentException("Usuário não encontrado"));
         tarefa.setUsuario(usuario);
-        if (tarefa.getPosicao() == null) {
-            int next = tarefaRepository.maxPosicaoByUsuarioAndStatus(usuario, tarefa.getStatus());
-            tarefa.setPosicao(next + 1);
-        }
+        posicionarNoFim(tarefa, usuario);
         return tarefaRepository.save(tarefa);
     }
 
@@ -53,58 +180,124 @@ public class TarefaService {
         Usuario usuario = usuarioRepository.findByEmail(email)
                 .orElseThrow(() -> new IllegalArgumentException("Usuário não encontrado"));
         tarefa.setUsuario(usuario);
-        if (tarefa.getPosicao() == null) {
-            int next = tarefaRepository.maxPosicaoByUsuarioAndStatus(usuario, tarefa.getStatus());
-            tarefa.setPosicao(next + 1);
-        }
-        return tarefaRepository.save(tarefa);
+        posicionarNoFim(tarefa, usuario);
+        Tarefa salva = tarefaRepository.save(tarefa);
+        // criação: o único evento que leva a tarefa completa
+        streamService.sendTask("TASK_CREATED", salva, usuario.getNome());
+        return salva;
     }
 
     /**
-     * Lista todas as tarefas (em produção considerar paginação / filtragem por usuário corrente).
+     * Tarefas das boards que o usuário acessa (próprias e compartilhadas) e as suas sem board,
+     * ordenadas no banco por board, coluna e chave de ordenação (ou como pedir o filtro).
      */
     @Transactional(readOnly = true)
-    public List<Tarefa> listarTodas() {
-        // Em produção: filtrar por usuário autenticado. Aqui mantém todas ordenadas somente para consistência.
-        return tarefaRepository.findAll().stream()
-                .sorted((a,b) -> {
-                    int s = a.getStatus().name().compareTo(b.getStatus().name());
-                    if (s != 0) return s;
-                    Integer pa = a.getPosicao();
-                    Integer pb = b.getPosicao();
-                    if (pa == null && pb == null) return 0;
-                    if (pa == null) return 1;
-                    if (pb == null) return -1;
-                    return pa.compareTo(pb);
-                }).toList();
+    public List<TarefaResumo> listarAcessiveis(String email, FiltroTarefas filtro) {
+        if (filtro.vazio()) return tarefaRepository.findResumosAcessiveis(email);
+        return filtroRepository.acessiveis(email, filtro, LocalDateTime.now());
     }
 
     /**
      * Lista tarefas por usuário.
      */
     @Transactional(readOnly = true)
-    public List<Tarefa> listarPorUsuario(Long usuarioId) {
-        Usuario usuario = usuarioRepository.findById(usuarioId)
-                .orElseThrow(() -> new IllegalArgumentException("Usuário não encontrado"));
-        return tarefaRepository.findByUsuario(usuario);
+    public List<TarefaResumo> listarPorUsuario(Long usuarioId, FiltroTarefas filtro) {
+        if (!usuarioRepository.existsById(usuarioId)) throw new IllegalArgumentException("Usuário não encontrado");
+        if (filtro.vazio()) return tarefaRepository.findResumosByUsuarioId(usuarioId);
+        return filtroRepository.doUsuario(usuarioId, filtro, LocalDateTime.now());
+    }
+
+    /**
+     * Tarefas da board na ordem de exibição (ordem da coluna, depois chave de ordenação), numa
+     * consulta só: o custo depende do tamanho desta board. Com filtro, só as que casam.
+     */
+    @Transactional(readOnly = true)
+    public List<TarefaResumo> listarPorBoard(Long boardId, FiltroTarefas filtro) {
+        if (filtro.vazio()) return tarefaRepository.findResumosByBoardId(boardId);
+        return filtroRepository.daBoard(boardId, filtro, LocalDateTime.now());
+    }
+
+    /**
+     * Uma página das tarefas da coluna, depois do cursor {@code after} (nulo = início da coluna).
+     */
+    @Transactional(readOnly = true)
+    public PaginaColuna paginaDaColuna(Long boardId, Long columnId, String after, int limite) {
+        validarLimite(limite);
+        BoardColumn col = columnRepository.findById(columnId).orElseThrow(() -> new IllegalArgumentException("Coluna não encontrada"));
+        if (!col.getBoard().getId().equals(boardId)) throw new IllegalArgumentException("Coluna não pertence ao board");
+        String chaveApos = null;
+        Long idApos = null;
+        if (after != null && !after.isBlank()) {
+            // cursor "<chaveOrdem>.<id>" da última tarefa da página anterior
+            int ponto = after.lastIndexOf('.');
+            try {
+                chaveApos = after.substring(0, ponto);
+                idApos = Long.parseLong(after.substring(ponto + 1));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            if (!ChaveOrdem.isValida(chaveApos)) throw new IllegalArgumentException("Cursor inválido");
+        }
+        // recebe até limite + 1 tarefas: a sobra só indica que há próxima página
+        return PaginaColuna.de(columnId, paginaRepository.daColuna(columnId, chaveApos, idApos, limite + 1), limite);
+    }
+
+    /**
+     * Abertura da board: a primeira página de cada coluna numa chamada, para o primeiro desenho
+     * não depender do tamanho da board. As demais vêm de {@link #paginaDaColuna}.
+     */
+    @Transactional(readOnly = true)
+    public List<PaginaColuna> primeirasPaginas(Long boardId, int limite) {
+        validarLimite(limite);
+        List<PaginaColuna> paginas = new ArrayList<>();
+        paginaRepository.primeirasDaBoard(boardId, limite + 1)
+                .forEach((columnId, tarefas) -> paginas.add(PaginaColuna.de(columnId, tarefas, limite)));
+        return paginas;
+    }
+
+    /**
+     * Busca por texto nas tarefas das boards que o usuário acessa, das mais relevantes para as
+     * menos, continuando depois do cursor {@code after} (nulo = primeira página).
+     */
+    @Transactional(readOnly = true)
+    public PaginaBusca buscar(String email, String q, String after, int limite) {
+        validarLimite(limite);
+        if (q == null || q.isBlank()) throw new IllegalArgumentException("Informe o termo de busca");
+        String termo = q.strip();
+        if (termo.length() > TAMANHO_MAXIMO_BUSCA) {
+            throw new IllegalArgumentException("Termo de busca maior que " + TAMANHO_MAXIMO_BUSCA + " caracteres");
+        }
+        Double relevanciaApos = null;
+        Long idApos = null;
+        if (after != null && !after.isBlank()) {
+            // cursor "<relevancia>_<id>" do último resultado da página anterior
+            int sep = after.lastIndexOf('_');
+            try {
+                relevanciaApos = Double.parseDouble(after.substring(0, sep));
+                idApos = Long.parseLong(after.substring(sep + 1));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+        }
+        List<ResultadoBusca> resultados = buscaRepository.buscar(email, termo, relevanciaApos, idApos, limite + 1);
+        if (resultados.size() <= limite) return new PaginaBusca(resultados, null);
+        ResultadoBusca ultimo = resultados.get(limite - 1);
+        return new PaginaBusca(List.copyOf(resultados.subList(0, limite)), ultimo.relevancia() + "_" + ultimo.id());
+    }
+
+    private static void validarLimite(int limite) {
+        if (limite < 1 || limite > LIMITE_MAXIMO_PAGINA) {
+            throw new IllegalArgumentException("limit deve estar entre 1 e " + LIMITE_MAXIMO_PAGINA);
+        }
     }
 
+    /**
+     * Busca uma tarefa pelo ID, como resumo (leitura).
+     */
     @Transactional(readOnly = true)
-    public List<Tarefa> listarPorBoard(Board board) {
-        return tarefaRepository.findByBoard(board).stream()
-                .sorted((a,b) -> {
-                    BoardColumn ca = a.getColumn();
-                    BoardColumn cb = b.getColumn();
-                    int co = 0;
-                    if (ca != null && cb != null) co = Integer.compare(ca.getOrdem(), cb.getOrdem());
-                    else if (ca != null) co = -1; else if (cb != null) co = 1;
-                    if (co != 0) return co;
-                    Integer pa = a.getPosicao();
-                    Integer pb = b.getPosicao();
-                    if (pa == null && pb == null) return 0;
-                    if (pa == null) return 1; if (pb == null) return -1;
-                    return pa.compareTo(pb);
-                }).toList();
+    public TarefaResumo buscarResumo(Long id) {
+        return tarefaRepository.findResumoById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Tarefa não encontrada"));
     }
 
     /**
@@ -119,8 +312,10 @@ public class TarefaService {
     /**
      * Atualiza campos de uma tarefa existente.
      */
-    public Tarefa atualizar(Long id, Tarefa dados) {
+    public Tarefa atualizar(Long id, Tarefa dados, String email, Long versaoEsperada) {
         Tarefa existente = buscarPorId(id);
+        verificarVersao(existente, versaoEsperada);
+        Estado antes = Estado.de(existente);
         existente.setTitulo(dados.getTitulo());
         existente.setDescricao(dados.getDescricao());
         if (dados.getDataLimite() != null) {
@@ -132,15 +327,19 @@ public class TarefaService {
         if (dados.getPrioridade() != null) {
             existente.setPrioridade(dados.getPrioridade());
         }
+        publicarAlteracoes(existente, antes, email);
         return tarefaRepository.save(existente);
     }
 
     /**
      * Atualiza status de uma tarefa.
      */
-    public Tarefa atualizarStatus(Long id, StatusTarefa status) {
+    public Tarefa atualizarStatus(Long id, StatusTarefa status, String email, Long versaoEsperada) {
         Tarefa existente = buscarPorId(id);
+        verificarVersao(existente, versaoEsperada);
+        Estado antes = Estado.de(existente);
         existente.setStatus(status);
+        publicarAlteracoes(existente, antes, email);
         return tarefaRepository.save(existente);
     }
 
@@ -148,48 +347,313 @@ public class TarefaService {
      * Remove tarefa.
      */
     @Transactional
-    public void deletar(Long id) {
+    public void deletar(Long id, String email) {
         Tarefa existente = buscarPorId(id);
+        Long boardId = existente.getBoard() != null ? existente.getBoard().getId() : null;
         
         // Primeiro, deletar todas as notas da tarefa
         notaTarefaRepository.deleteByTarefa(existente);
         
         // Depois deletar a tarefa
         tarefaRepository.delete(existente);
+
+        // sendDeleted keeps only id; include actor in a separate event
+        streamService.sendDeleted(id, boardId);
+        Map<String,Object> deletedBy = new java.util.HashMap<>();
+        deletedBy.put("type", "TASK_DELETED_BY");
+        deletedBy.put("id", id);
+        deletedBy.put("boardId", boardId);
+        deletedBy.put("by", nomeDoAutor(email));
+        streamService.sendGeneric(deletedBy);
     }
 
     /**
-     * Reordena e/ou move tarefas de acordo com lista de triples [id,posicao,status].
+     * Reordena e/ou move tarefas de acordo com lista de triples [id,posicao,status] (e columnId e
+     * versão esperada opcionais). Todas as tarefas e colunas devem ser de um mesmo board. A posição
+     * é o índice (a partir de 1) na coluna inteira: as tarefas da coluna que não vieram na lista
+     * mantêm a ordem e a chave, e as enviadas recebem chaves entre as dos vizinhos que ficaram
+     * (se dois vizinhos têm a mesma chave, a coluna toda é redistribuída). Para mover um cartão
+     * só, {@link #mover} grava uma única linha.
+     * <p>
+     * Custo fixo em consultas, qualquer que seja o tamanho da lista: uma leitura das tarefas, uma
+     * das colunas, uma das colunas de destino e um único UPDATE com as tarefas que mudaram (que
+     * também incrementa a versão).
+     * Publica um TASKS_REORDERED com os campos alterados de cada tarefa.
+     * <p>
+     * Controle otimista por item: uma versão esperada diferente da atual, ou uma escrita
+     * concorrente entre a leitura e o UPDATE (que só grava a versão lida), dá
+     * {@link ConflitoVersaoException} com o estado atual das tarefas em conflito, e nada é gravado.
      */
     public void reordenar(List<Object[]> dados) {
-        for (Object[] arr : dados) {
-            Long id = (Long) arr[0];
-            Integer pos = (Integer) arr[1];
-            StatusTarefa status = (StatusTarefa) arr[2];
-            Long columnId = arr.length > 3 ? (Long) arr[3] : null;
-            Tarefa t = buscarPorId(id);
-            if (status != null && status != t.getStatus()) {
-                t.setStatus(status); // legado até remoção
+        Map<Long, Object[]> porId = new LinkedHashMap<>();
+        for (Object[] arr : dados) porId.put((Long) arr[0], arr);
+        if (porId.isEmpty()) return;
+
+        Map<Long, TarefaOrdemRepository.Linha> linhas = new HashMap<>();
+        for (TarefaOrdemRepository.Linha l : ordemRepository.carregar(porId.keySet())) linhas.put(l.id(), l);
+        if (linhas.size() != porId.size()) throw new IllegalArgumentException("Tarefa não encontrada");
+        List<Long> conflitos = porId.values().stream()
+                .filter(arr -> arr.length > 4 && arr[4] != null && (Long) arr[4] != linhas.get((Long) arr[0]).versao())
+                .map(arr -> (Long) arr[0]).toList();
+        if (!conflitos.isEmpty()) throw conflitoEmLote(conflitos);
+        Set<Long> columnIds = new HashSet<>();
+        for (Object[] arr : porId.values()) {
+            if (arr.length > 3 && arr[3] != null) columnIds.add((Long) arr[3]);
+        }
+        Map<Long, Long> boardDaColuna = columnIds.isEmpty() ? Map.of() : ordemRepository.boardsDasColunas(columnIds);
+        if (boardDaColuna.size() != columnIds.size()) throw new IllegalArgumentException("Coluna não encontrada");
+
+        Set<Long> boards = new HashSet<>(boardDaColuna.values());
+        linhas.values().forEach(l -> boards.add(l.boardId()));
+        if (boards.size() != 1 || boards.contains(null)) {
+            throw new IllegalArgumentException("Tarefas e colunas devem pertencer a um único board");
+        }
+        Long boardId = boards.iterator().next();
+
+        // chaves novas por coluna, na ordem das posições enviadas (empate: ordem do payload)
+        Map<Long, List<Object[]>> porColuna = new LinkedHashMap<>();
+        for (Object[] arr : porId.values()) {
+            TarefaOrdemRepository.Linha atual = linhas.get((Long) arr[0]);
+            Long columnId = arr.length > 3 && arr[3] != null ? (Long) arr[3] : atual.columnId();
+            porColuna.computeIfAbsent(columnId, k -> new ArrayList<>()).add(arr);
+        }
+        Map<Long, String> chaves = new HashMap<>();
+        Map<Long, String> fins = new HashMap<>();
+        // tarefas que já estavam nas colunas de destino e não vieram na lista (podem ser redistribuídas)
+        Map<Long, TarefaOrdemRepository.Linha> fixas = new LinkedHashMap<>();
+        Map<Long, List<TarefaOrdemRepository.Linha>> daColuna = new HashMap<>();
+        Set<Long> destinos = new HashSet<>(porColuna.keySet());
+        destinos.remove(null);
+        if (!destinos.isEmpty()) {
+            for (TarefaOrdemRepository.Linha l : ordemRepository.dasColunasParaAtualizar(destinos)) {
+                if (porId.containsKey(l.id())) continue;
+                daColuna.computeIfAbsent(l.columnId(), k -> new ArrayList<>()).add(l);
             }
-            if (columnId != null) {
-                BoardColumn col = columnRepository.findById(columnId).orElseThrow(() -> new IllegalArgumentException("Coluna não encontrada"));
-                t.setColumn(col);
-                t.setBoard(col.getBoard());
+        }
+        porColuna.forEach((columnId, lista) -> {
+            lista.sort(Comparator.comparing((Object[] arr) -> arr[1] != null ? (Integer) arr[1] : linhas.get((Long) arr[0]).posicao(),
+                    Comparator.nullsLast(Comparator.naturalOrder())));
+            List<TarefaOrdemRepository.Linha> ficam = daColuna.getOrDefault(columnId, List.of());
+            String fim = intercalar(lista, ficam, linhas, chaves);
+            if (columnId != null) fins.put(columnId, fim);
+            for (TarefaOrdemRepository.Linha l : ficam) {
+                if (chaves.containsKey(l.id())) fixas.put(l.id(), l);
             }
-            if (pos != null) {
-                t.setPosicao(pos);
+        });
+        Map<Long, Integer> maioresPosicoes = new HashMap<>();
+
+        LocalDateTime agora = LocalDateTime.now();
+        List<TarefaOrdemRepository.Alteracao> alteracoes = new ArrayList<>();
+        Map<Long, Map<String, Object>> mudancas = new LinkedHashMap<>();
+        for (Object[] arr : porId.values()) {
+            TarefaOrdemRepository.Linha atual = linhas.get((Long) arr[0]);
+            Integer pos = arr[1] != null ? (Integer) arr[1] : atual.posicao();
+            StatusTarefa status = arr[2] != null ? (StatusTarefa) arr[2] : atual.status(); // legado até remoção
+            Long columnId = arr.length > 3 && arr[3] != null ? (Long) arr[3] : atual.columnId();
+            String chave = chaves.get(atual.id());
+            Map<String, Object> changes = new LinkedHashMap<>();
+            if (status != atual.status()) {
+                changes.put("status", status);
+                if (status == StatusTarefa.CONCLUIDA) changes.put("dataConclusao", agora);
             }
+            if (!Objects.equals(pos, atual.posicao())) changes.put("posicao", pos);
+            if (!chave.equals(atual.chaveOrdem())) changes.put("chaveOrdem", chave);
+            if (!Objects.equals(columnId, atual.columnId())) changes.put("columnId", columnId);
+            if (changes.isEmpty()) continue;
+            alteracoes.add(new TarefaOrdemRepository.Alteracao(atual.id(), atual.versao(), pos, columnId, chave, status));
+            if (columnId != null && pos != null) maioresPosicoes.merge(columnId, pos, Math::max);
+            mudancas.put(atual.id(), changes);
+        }
+        for (TarefaOrdemRepository.Linha l : fixas.values()) {
+            String chave = chaves.get(l.id());
+            if (chave.equals(l.chaveOrdem())) continue;
+            alteracoes.add(new TarefaOrdemRepository.Alteracao(l.id(), l.versao(), l.posicao(), l.columnId(), chave, l.status()));
+            mudancas.put(l.id(), new LinkedHashMap<>(Map.of("chaveOrdem", chave)));
+        }
+        Map<Long, Long> versoes = ordemRepository.aplicar(alteracoes, agora);
+        if (versoes.size() != alteracoes.size()) {
+            // alguma linha mudou depois da leitura; a exceção desfaz o UPDATE das demais
+            throw conflitoEmLote(alteracoes.stream().map(TarefaOrdemRepository.Alteracao::id)
+                    .filter(id -> !versoes.containsKey(id)).toList());
         }
+        // próximas criações na coluna continuam depois das posições e chaves gravadas aqui
+        fins.forEach((columnId, fim) -> {
+            alocador.observar(columnId, maioresPosicoes.getOrDefault(columnId, 0), fim);
+            if (fim != null && fim.length() > ChaveOrdem.COMPRIMENTO_REBALANCEAMENTO) colunasParaRebalancear.add(columnId);
+        });
+        publicarReordenacao(boardId, mudancas, versoes);
+    }
+
+    /**
+     * Encaixa as tarefas enviadas ({@code lista}, já na ordem das posições) entre as que ficam na
+     * coluna ({@code ficam}, na ordem atual) e preenche {@code chaves}: cada enviada recebe uma chave
+     * entre as dos vizinhos que ficaram. Se dois vizinhos não deixam espaço (chaves iguais, de
+     * alocações concorrentes), a coluna inteira é redistribuída e as que ficam também entram em
+     * {@code chaves}.
+     *
+     * @return a última chave da coluna depois da reordenação
+     */
+    private static String intercalar(List<Object[]> lista, List<TarefaOrdemRepository.Linha> ficam,
+                                     Map<Long, TarefaOrdemRepository.Linha> linhas, Map<Long, String> chaves) {
+        // null = tarefa enviada; as que ficam entram com a própria linha
+        List<TarefaOrdemRepository.Linha> coluna = new ArrayList<>(ficam);
+        List<Long> ordem = new ArrayList<>(ficam.stream().map(TarefaOrdemRepository.Linha::id).toList());
+        for (Object[] arr : lista) {
+            Integer pos = arr[1] != null ? (Integer) arr[1] : linhas.get((Long) arr[0]).posicao();
+            int i = pos == null ? ordem.size() : Math.max(0, Math.min(pos - 1, ordem.size()));
+            ordem.add(i, (Long) arr[0]);
+            coluna.add(i, null);
+        }
+        // chave da próxima tarefa que fica, para cada índice (null = nenhuma até o fim)
+        String[] proximas = new String[coluna.size() + 1];
+        for (int i = coluna.size() - 1; i >= 0; i--) {
+            proximas[i] = coluna.get(i) != null ? coluna.get(i).chaveOrdem() : proximas[i + 1];
+        }
+        Map<Long, String> novas = new HashMap<>();
+        String anterior = null;
+        for (int i = 0; i < coluna.size(); i++) {
+            if (coluna.get(i) != null) {
+                if (coluna.get(i).chaveOrdem() == null) return redistribuir(ordem, chaves);
+                anterior = coluna.get(i).chaveOrdem();
+                continue;
+            }
+            String proxima = proximas[i + 1];
+            if (anterior != null && proxima != null && anterior.compareTo(proxima) >= 0) return redistribuir(ordem, chaves);
+            anterior = ChaveOrdem.entre(anterior, proxima);
+            novas.put(ordem.get(i), anterior);
+        }
+        chaves.putAll(novas);
+        return anterior;
+    }
+
+    private static String redistribuir(List<Long> ordem, Map<Long, String> chaves) {
+        List<String> distribuidas = ChaveOrdem.distribuidas(ordem.size());
+        for (int k = 0; k < ordem.size(); k++) chaves.put(ordem.get(k), distribuidas.get(k));
+        return distribuidas.isEmpty() ? null : distribuidas.get(distribuidas.size() - 1);
+    }
+
+    private ConflitoVersaoException conflitoEmLote(List<Long> ids) {
+        List<TarefaResumo> atuais = ids.stream().map(tarefaRepository::findResumoById).flatMap(Optional::stream).toList();
+        return new ConflitoVersaoException("Tarefas alteradas por outra requisição: " + ids, atuais, null);
+    }
+
+    private void publicarReordenacao(Long boardId, Map<Long, Map<String, Object>> mudancas, Map<Long, Long> versoes) {
+        List<Map<String, Object>> patches = new ArrayList<>();
+        mudancas.forEach((id, changes) -> {
+            Map<String, Object> patch = new LinkedHashMap<>();
+            patch.put("id", id);
+            patch.put("version", versoes.get(id));
+            patch.put("changes", changes);
+            patches.add(patch);
+        });
+        if (!patches.isEmpty()) streamService.sendReorder(boardId, patches);
     }
 
-    public Tarefa atualizarColuna(Long tarefaId, Long columnId) {
+    public Tarefa atualizarColuna(Long tarefaId, Long columnId, String email, Long versaoEsperada) {
         Tarefa t = buscarPorId(tarefaId);
+        verificarVersao(t, versaoEsperada);
+        Estado antes = Estado.de(t);
         BoardColumn col = columnRepository.findById(columnId).orElseThrow(() -> new IllegalArgumentException("Coluna não encontrada"));
         t.setColumn(col);
         t.setBoard(col.getBoard());
-        // recalcular posicao: coloca no final da coluna
-        int max = tarefaRepository.findByBoard(col.getBoard()).stream().filter(x -> col.equals(x.getColumn())).map(Tarefa::getPosicao).filter(p -> p != null).mapToInt(Integer::intValue).max().orElse(0);
-        t.setPosicao(max + 1);
+        // coloca no final da coluna
+        t.setPosicao(null);
+        posicionarNoFim(t, t.getUsuario());
+        publicarAlteracoes(t, antes, email);
         return t;
     }
+
+    /**
+     * Move um cartão para entre dois vizinhos da coluna ({@code depoisDe} acima, {@code antesDe}
+     * abaixo; nulo = ponta da coluna). Grava só a chave de ordenação (e a coluna) desta tarefa.
+     */
+    public Tarefa mover(Long tarefaId, Long columnId, Long depoisDe, Long antesDe, String email, Long versaoEsperada) {
+        Tarefa t = buscarPorId(tarefaId);
+        verificarVersao(t, versaoEsperada);
+        BoardColumn col = columnId == null ? t.getColumn()
+                : columnRepository.findById(columnId).orElseThrow(() -> new IllegalArgumentException("Coluna não encontrada"));
+        if (col == null) throw new IllegalArgumentException("Coluna não encontrada");
+        if (t.getBoard() != null && !t.getBoard().getId().equals(col.getBoard().getId())) {
+            throw new IllegalArgumentException("Coluna não pertence ao board");
+        }
+        if (tarefaId.equals(depoisDe) || tarefaId.equals(antesDe)) {
+            throw new IllegalArgumentException("A tarefa não pode ser vizinha de si mesma");
+        }
+        String[] vizinhos = chavesVizinhas(col.getId(), depoisDe, antesDe);
+        if (vizinhos[0] != null && vizinhos[1] != null && vizinhos[0].compareTo(vizinhos[1]) >= 0) {
+            // vizinhos com a mesma chave (moves concorrentes no mesmo ponto): redistribui e relê;
+            // a tarefa movida fica de fora (recebe chave nova logo abaixo e já está carregada)
+            rebalancear(col.getId(), tarefaId);
+            vizinhos = chavesVizinhas(col.getId(), depoisDe, antesDe);
+        }
+        Estado antes = Estado.de(t);
+        t.setColumn(col);
+        t.setBoard(col.getBoard());
+        t.setChaveOrdem(ChaveOrdem.entre(vizinhos[0], vizinhos[1]));
+        if (t.getChaveOrdem().length() > ChaveOrdem.COMPRIMENTO_REBALANCEAMENTO) colunasParaRebalancear.add(col.getId());
+        // no fim da coluna, a próxima criação tem de vir depois desta chave (o alocador fica com a maior)
+        if (vizinhos[1] == null) alocador.observar(col.getId(), 0, t.getChaveOrdem());
+        publicarAlteracoes(t, antes, email);
+        return t;
+    }
+
+    /** Chaves atuais dos vizinhos; ambos precisam estar na coluna de destino. */
+    private String[] chavesVizinhas(Long columnId, Long depoisDe, Long antesDe) {
+        List<Long> ids = new ArrayList<>();
+        if (depoisDe != null) ids.add(depoisDe);
+        if (antesDe != null) ids.add(antesDe);
+        Map<Long, String> chaves = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (TarefaOrdemRepository.Linha l : ordemRepository.carregar(ids)) {
+                if (!columnId.equals(l.columnId())) throw new IllegalArgumentException("Vizinho não pertence à coluna");
+                chaves.put(l.id(), l.chaveOrdem());
+            }
+            if (chaves.size() != ids.size()) throw new IllegalArgumentException("Tarefa não encontrada");
+        }
+        return new String[]{depoisDe == null ? null : chaves.get(depoisDe), antesDe == null ? null : chaves.get(antesDe)};
+    }
+
+    /**
+     * Redistribui as chaves das colunas em que algum move gerou chave longa demais.
+     */
+    @Scheduled(fixedDelayString = "${app.tarefas.rebalance-interval-ms:60000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void rebalancearColunas() {
+        // uma transação por coluna: a falha de uma não desfaz as outras, e ela volta para a fila
+        for (Long columnId : colunasParaRebalancear) {
+            colunasParaRebalancear.remove(columnId);
+            try {
+                novaTransacao.executeWithoutResult(status -> rebalancear(columnId, null));
+            } catch (RuntimeException e) {
+                logger.warn("Falha ao rebalancear a coluna {}; nova tentativa no próximo ciclo: {}", columnId, e.getMessage());
+                colunasParaRebalancear.add(columnId);
+            }
+        }
+    }
+
+    /**
+     * Reescreve as chaves da coluna igualmente espaçadas, na mesma ordem, num único UPDATE; os
+     * clientes recebem as chaves novas num TASKS_REORDERED.
+     */
+    private void rebalancear(Long columnId, Long exceto) {
+        List<TarefaOrdemRepository.Linha> linhas = ordemRepository.daColunaParaAtualizar(columnId);
+        if (linhas.isEmpty()) return;
+        List<String> chaves = ChaveOrdem.distribuidas(linhas.size());
+        List<TarefaOrdemRepository.Alteracao> alteracoes = new ArrayList<>();
+        Map<Long, Map<String, Object>> mudancas = new LinkedHashMap<>();
+        for (int i = 0; i < linhas.size(); i++) {
+            TarefaOrdemRepository.Linha l = linhas.get(i);
+            if (chaves.get(i).equals(l.chaveOrdem()) || l.id().equals(exceto)) continue;
+            alteracoes.add(new TarefaOrdemRepository.Alteracao(l.id(), l.versao(), l.posicao(), l.columnId(), chaves.get(i), l.status()));
+            mudancas.put(l.id(), Map.of("chaveOrdem", chaves.get(i)));
+        }
+        Map<Long, Long> versoes = ordemRepository.aplicar(alteracoes, LocalDateTime.now());
+        if (versoes.size() != alteracoes.size()) {
+            // uma linha pulada ficaria com a chave antiga no meio das novas; a exceção desfaz a
+            // coluna inteira (no agendamento ela volta para a fila)
+            throw conflitoEmLote(alteracoes.stream().map(TarefaOrdemRepository.Alteracao::id)
+                    .filter(id -> !versoes.containsKey(id)).toList());
+        }
+        if (linhas.get(0).boardId() != null) publicarReordenacao(linhas.get(0).boardId(), mudancas, versoes);
+    }
 }
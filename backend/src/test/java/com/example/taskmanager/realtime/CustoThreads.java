@@ -0,0 +1,48 @@
+package com.example.taskmanager.realtime;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * CPU e bytes alocados somados de todas as threads de plataforma vivas (publicador e escritores),
+ * para os benchmarks do stream. Threads criadas depois da foto contam do zero.
+ */
+final class CustoThreads {
+
+    private static final com.sun.management.ThreadMXBean MX =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final Map<Long, long[]> porThread;
+
+    private CustoThreads(Map<Long, long[]> porThread) {
+        this.porThread = porThread;
+    }
+
+    static CustoThreads agora() {
+        Map<Long, long[]> fotos = new HashMap<>();
+        for (long id : MX.getAllThreadIds()) {
+            long cpu = MX.getThreadCpuTime(id);
+            long bytes = MX.getThreadAllocatedBytes(id);
+            if (cpu >= 0 && bytes >= 0) fotos.put(id, new long[] { cpu, bytes });
+        }
+        return new CustoThreads(fotos);
+    }
+
+    /** CPU da thread atual, em ns. */
+    static long cpuAtual() { return MX.getCurrentThreadCpuTime(); }
+
+    /** Bytes alocados pela thread atual. */
+    static long alocadoAtual() { return MX.getCurrentThreadAllocatedBytes(); }
+
+    /** {cpu ns, bytes alocados} desde {@code antes}. */
+    long[] desde(CustoThreads antes) {
+        long cpu = 0, bytes = 0;
+        for (Map.Entry<Long, long[]> e : porThread.entrySet()) {
+            long[] base = antes.porThread.getOrDefault(e.getKey(), new long[2]);
+            cpu += e.getValue()[0] - base[0];
+            bytes += e.getValue()[1] - base[1];
+        }
+        return new long[] { cpu, bytes };
+    }
+}
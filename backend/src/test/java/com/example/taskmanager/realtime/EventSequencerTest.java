@@ -0,0 +1,95 @@
+package com.example.taskmanager.realtime;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class EventSequencerTest {
+
+    private final List<Long> entregues = new CopyOnWriteArrayList<>();
+    private final EventSequencer ordem = new EventSequencer(50, m -> entregues.add(m.seq()));
+
+    @AfterEach
+    void fechar() {
+        ordem.shutdown();
+    }
+
+    private static RealtimeMessage evento(long boardId, long seq) {
+        return new RealtimeMessage(RealtimeMessage.Tipo.BOARD, boardId, null, null, seq,
+                new EventoInfo("TASK_PATCH", null, null), new byte[0]);
+    }
+
+    /** Primeiro evento da board: fica retido pelo prazo e vira a linha de base. */
+    private void base(long boardId, long seq) {
+        int antes = entregues.size();
+        ordem.submit(evento(boardId, seq));
+        await().until(() -> entregues.size() > antes);
+    }
+
+    @Test
+    void boardNovaComAdiantadoAntesDoAnterior() {
+        ordem.submit(evento(1, 11));
+        ordem.submit(evento(1, 10));
+        assertThat(entregues).isEmpty();
+        await().untilAsserted(() -> assertThat(entregues).containsExactly(10L, 11L));
+
+        ordem.submit(evento(1, 12));
+        assertThat(entregues).containsExactly(10L, 11L, 12L);
+    }
+
+    @Test
+    void adiantadoEsperaOAnterior() {
+        base(1, 10);
+        ordem.submit(evento(1, 12));
+        ordem.submit(evento(1, 11));
+        assertThat(entregues).containsExactly(10L, 11L, 12L);
+    }
+
+    @Test
+    void repetidoEAtrasadoSaoDescartados() {
+        base(1, 5);
+        ordem.submit(evento(1, 6));
+        ordem.submit(evento(1, 6));
+        ordem.submit(evento(1, 4));
+        assertThat(entregues).containsExactly(5L, 6L);
+    }
+
+    @Test
+    void puladoNaoSeguraAFila() {
+        base(1, 1);
+        ordem.submit(evento(1, 3));
+        ordem.pular(1L, 2);
+        assertThat(entregues).containsExactly(1L, 3L);
+
+        ordem.pular(1L, 5);
+        ordem.submit(evento(1, 4));
+        ordem.submit(evento(1, 6));
+        assertThat(entregues).containsExactly(1L, 3L, 4L, 6L);
+    }
+
+    @Test
+    void lacunaLiberadaNoPrazo() {
+        base(1, 1);
+        ordem.submit(evento(1, 3));
+        assertThat(entregues).containsExactly(1L);
+        await().untilAsserted(() -> assertThat(entregues).containsExactly(1L, 3L));
+
+        ordem.submit(evento(1, 2)); // chegou depois do prazo
+        ordem.submit(evento(1, 4));
+        assertThat(entregues).containsExactly(1L, 3L, 4L);
+    }
+
+    @Test
+    void boardsIndependentes() {
+        base(1, 1);
+        base(2, 7);
+        ordem.submit(evento(1, 3));
+        ordem.submit(evento(2, 8));
+        assertThat(entregues).containsExactly(1L, 7L, 8L);
+    }
+}
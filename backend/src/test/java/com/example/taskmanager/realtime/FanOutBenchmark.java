@@ -0,0 +1,163 @@
+package com.example.taskmanager.realtime;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Custo do fan-out de um evento de board por número de assinantes (padrão 10, 100, 1000 e
+ * 10000), no mesmo caminho do {@code StreamPublisher.publicar}: serializa o evento uma vez,
+ * monta o {@link SseFrame}, recorta pelo filtro de cada conexão e enfileira no
+ * {@link StreamDispatcher}, cujos escritores (pool de plataforma) escrevem num transporte que só
+ * conta os bytes.
+ * <p>
+ * Mede separadamente a codificação (na thread que publica) e a entrega (CPU e alocação de todas
+ * as threads, menos a codificação). A codificação por evento deve ficar plana com o número de
+ * assinantes (uma serialização por evento); a entrega cresce com eles, mas o custo por
+ * assinante também deve ficar plano.
+ * <p>
+ * Uso: {@code mvn -q test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.taskmanager.realtime.FanOutBenchmark
+ * -Dexec.args="--subscribers=10,100,1000,10000 --events=500 --warmup=200"}
+ */
+public final class FanOutBenchmark {
+
+    private static final long BOARD = 1L;
+    private static final int LOTE = 100; // eventos por rodada antes de esperar os escritores
+
+    private final ObjectMapper mapper = JsonMapper.builder().findAndAddModules().build();
+    private final int eventos;
+    private final int aquecimento;
+
+    private FanOutBenchmark(int eventos, int aquecimento) {
+        this.eventos = eventos;
+        this.aquecimento = aquecimento;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> a = argumentos(args);
+        FanOutBenchmark bench = new FanOutBenchmark(
+                Integer.parseInt(a.getOrDefault("events", "500")),
+                Integer.parseInt(a.getOrDefault("warmup", "200")));
+        bench.medir(100); // aquece o JIT antes da primeira linha
+        List<String> linhas = new ArrayList<>();
+        for (String n : a.getOrDefault("subscribers", "10,100,1000,10000").split(",")) {
+            linhas.add(bench.medir(Integer.parseInt(n.trim())));
+        }
+        System.out.println();
+        System.out.println("==== Fan-out de eventos de board ====");
+        System.out.printf("%11s %16s %14s %14s %16s %16s%n", "assinantes", "serializações/ev",
+                "codif. ns/ev", "codif. B/ev", "entrega ns/ass.", "entrega B/ass.");
+        linhas.forEach(System.out::println);
+    }
+
+    private String medir(int assinantes) throws InterruptedException {
+        StreamDispatcher dispatcher = new StreamDispatcher(LOTE * 2, StreamDispatcher.OverflowPolicy.DROP, 4, false);
+        try {
+            StreamFrames frames = new StreamFrames(mapper, dispatcher);
+            AtomicLong escritos = new AtomicLong();
+            List<StreamSubscriber> conexoes = new ArrayList<>(assinantes);
+            for (int i = 0; i < assinantes; i++) {
+                conexoes.add(new StreamSubscriber(new TransporteNulo(escritos), "u" + i + "@exemplo.com", false,
+                        StreamFilter.TODOS, s -> {}));
+            }
+
+            publicar(frames, dispatcher, conexoes, escritos, aquecimento, new long[2]);
+
+            long codificadosAntes = (long) frames.stats().get("framesEncoded");
+            long[] codificacao = new long[2];
+            CustoThreads antes = CustoThreads.agora();
+            publicar(frames, dispatcher, conexoes, escritos, eventos, codificacao);
+            long[] total = CustoThreads.agora().desde(antes);
+            long codificados = (long) frames.stats().get("framesEncoded") - codificadosAntes;
+
+            long entregas = (long) eventos * assinantes;
+            return String.format("%11d %16.2f %14d %14d %16d %16d", assinantes,
+                    (double) codificados / eventos,
+                    codificacao[0] / eventos, codificacao[1] / eventos,
+                    (total[0] - codificacao[0]) / entregas, (total[1] - codificacao[1]) / entregas);
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    /**
+     * Publica {@code quantidade} eventos em rodadas de {@link #LOTE}, esperando os escritores
+     * drenarem entre elas (as filas nunca estouram). Acumula em {@code codificacao} a CPU e a
+     * alocação da serialização e montagem do frame.
+     */
+    private void publicar(StreamFrames frames, StreamDispatcher dispatcher, List<StreamSubscriber> conexoes,
+                          AtomicLong escritos, int quantidade, long[] codificacao) throws InterruptedException {
+        for (int i = 0; i < quantidade; i++) {
+            long cpu = CustoThreads.cpuAtual();
+            long bytes = CustoThreads.alocadoAtual();
+            EventoInfo info = new EventoInfo("TASK_PATCH", (long) i, "autor@exemplo.com");
+            byte[] json = frames.encode(payload(i));
+            List<byte[]> partes = List.of(json);
+            SseFrame frame = SseFrame.of(String.valueOf(i), "task", EventCoalescer.lote(BOARD, partes),
+                    List.of(info), partes);
+            codificacao[0] += CustoThreads.cpuAtual() - cpu;
+            codificacao[1] += CustoThreads.alocadoAtual() - bytes;
+
+            Map<Object, SseFrame> porFiltro = new HashMap<>();
+            for (StreamSubscriber subscriber : conexoes) {
+                if (subscriber.filtrar(BOARD, i, frame)) continue;
+                SseFrame parte = frames.selecionar(subscriber, frame, BOARD, porFiltro);
+                if (parte != null) dispatcher.enqueue(subscriber, parte);
+            }
+            if ((i + 1) % LOTE == 0 || i == quantidade - 1) drenar(escritos, conexoes.size(), i + 1);
+        }
+        escritos.set(0);
+    }
+
+    private static void drenar(AtomicLong escritos, int assinantes, int publicados) throws InterruptedException {
+        long esperado = (long) assinantes * publicados;
+        while (escritos.get() < esperado) Thread.sleep(1);
+    }
+
+    static Map<String, Object> payload(int i) {
+        Map<String, Object> tarefa = new LinkedHashMap<>();
+        tarefa.put("id", (long) i);
+        tarefa.put("titulo", "Revisar proposta " + i);
+        tarefa.put("descricao", "Conferir os números do trimestre antes da reunião de sexta.");
+        tarefa.put("status", "EM_ANDAMENTO");
+        tarefa.put("boardId", BOARD);
+        tarefa.put("columnId", 3L);
+        tarefa.put("chaveOrdem", "a" + i);
+        Map<String, Object> evento = new LinkedHashMap<>();
+        evento.put("type", "TASK_PATCH");
+        evento.put("boardId", BOARD);
+        evento.put("tarefa", tarefa);
+        return evento;
+    }
+
+    static Map<String, String> argumentos(String[] args) {
+        Map<String, String> a = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) throw new IllegalArgumentException("Argumento inválido: " + arg);
+            a.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return a;
+    }
+
+    /** Conta o frame como escrito, sem I/O. */
+    private record TransporteNulo(AtomicLong escritos) implements StreamTransport {
+        @Override
+        public String nome() { return "sse"; }
+
+        @Override
+        public int enviar(SseFrame frame) {
+            escritos.incrementAndGet();
+            return frame.tamanho();
+        }
+
+        @Override
+        public void encerrar() {}
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.taskmanager.realtime;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * O caminho realtime rodando em virtual threads não prende carriers: o JFR
+ * ({@code jdk.VirtualThreadPinned}, sem limite) não registra pinning com frames nossos enquanto os
+ * escritores e o sequenciador bloqueiam em locks disputados e sockets lentos.
+ */
+class PinningTest {
+
+    private static final String EVENTO = "jdk.VirtualThreadPinned";
+
+    private final List<String> pinnings = new CopyOnWriteArrayList<>();
+    private RecordingStream jfr;
+
+    @BeforeEach
+    void gravar() {
+        jfr = new RecordingStream();
+        jfr.enable(EVENTO).withThreshold(Duration.ZERO).withStackTrace();
+        jfr.onEvent(EVENTO, this::registrar);
+        jfr.startAsync();
+    }
+
+    @AfterEach
+    void fechar() {
+        jfr.close();
+    }
+
+    private void registrar(RecordedEvent evento) {
+        if (evento.getStackTrace() == null) return;
+        for (RecordedFrame f : evento.getStackTrace().getFrames()) {
+            String tipo = f.getMethod().getType().getName();
+            if (tipo.startsWith("com.example.")) {
+                pinnings.add(tipo + "." + f.getMethod().getName());
+                return;
+            }
+        }
+    }
+
+    /** Espera o JFR entregar tudo o que foi gravado até aqui. */
+    private List<String> pinningsRegistrados() {
+        jfr.stop();
+        return pinnings;
+    }
+
+    @Test
+    void controleSynchronizedPrendeCarrier() throws Exception {
+        Object monitor = new Object();
+        Thread.ofVirtual().start(() -> {
+            synchronized (monitor) {
+                dormir(20);
+            }
+        }).join();
+        assertThat(pinningsRegistrados()).isNotEmpty();
+    }
+
+    @Test
+    void escritoresNaoPrendemCarrier() {
+        StreamDispatcher dispatcher = new StreamDispatcher(256, StreamDispatcher.OverflowPolicy.EVICT, 2, true);
+        ReentrantLock socket = new ReentrantLock();
+        AtomicInteger escritos = new AtomicInteger();
+        List<StreamSubscriber> conexoes = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            // metade como o WebSocket (lock disputado), metade como o SSE (synchronized no emitter)
+            StreamTransport transport = i % 2 == 0 ? new TransporteComLock(socket, escritos)
+                    : new TransporteSynchronized(escritos);
+            conexoes.add(new StreamSubscriber(transport, "u" + i + "@exemplo.com", false, null, s -> {}));
+        }
+        try {
+            for (int n = 0; n < 5; n++) {
+                SseFrame frame = SseFrame.of(String.valueOf(n), "task", "{}".getBytes(StandardCharsets.UTF_8));
+                conexoes.forEach(c -> dispatcher.enqueue(c, frame));
+            }
+            await().untilAsserted(() -> assertThat(escritos).hasValue(100));
+        } finally {
+            dispatcher.shutdown();
+        }
+        assertThat(pinningsRegistrados()).isEmpty();
+    }
+
+    @Test
+    void sequenciadorNaoPrendeCarrier() throws Exception {
+        // a entrega disputa o lock de publicação da board, como no StreamPublisher
+        ReentrantLock publicacao = new ReentrantLock();
+        AtomicInteger entregues = new AtomicInteger();
+        EventSequencer ordem = new EventSequencer(1000, m -> {
+            publicacao.lock();
+            try {
+                dormir(1);
+                entregues.incrementAndGet();
+            } finally {
+                publicacao.unlock();
+            }
+        });
+        try (ExecutorService publicadores = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long board = 1; board <= 4; board++) {
+                for (long seq = 50; seq >= 1; seq--) { // fora de ordem: quase tudo fica retido
+                    long b = board, s = seq;
+                    publicadores.execute(() -> ordem.submit(evento(b, s)));
+                }
+            }
+        } finally {
+            await().untilAsserted(() -> assertThat(entregues).hasValueGreaterThan(0));
+            ordem.shutdown();
+        }
+        assertThat(pinningsRegistrados()).isEmpty();
+    }
+
+    private static RealtimeMessage evento(long boardId, long seq) {
+        return new RealtimeMessage(RealtimeMessage.Tipo.BOARD, boardId, null, null, seq,
+                new EventoInfo("TASK_PATCH", null, null), new byte[0]);
+    }
+
+    private static void dormir(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record TransporteComLock(ReentrantLock socket, AtomicInteger escritos) implements StreamTransport {
+        @Override
+        public String nome() { return "ws"; }
+
+        @Override
+        public int enviar(SseFrame frame) {
+            socket.lock();
+            try {
+                dormir(2);
+                escritos.incrementAndGet();
+                return frame.tamanho();
+            } finally {
+                socket.unlock();
+            }
+        }
+
+        @Override
+        public void encerrar() {}
+    }
+
+    private record TransporteSynchronized(AtomicInteger escritos) implements StreamTransport {
+        @Override
+        public String nome() { return "sse"; }
+
+        @Override
+        public synchronized int enviar(SseFrame frame) {
+            dormir(2);
+            escritos.incrementAndGet();
+            return frame.tamanho();
+        }
+
+        @Override
+        public boolean escritaPrendeCarrier() { return true; }
+
+        @Override
+        public void encerrar() {}
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.taskmanager.realtime;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bytes e CPU por evento de cada transporte do stream: SSE, WebSocket com JSON e WebSocket com
+ * CBOR. Para um evento avulso e um lote coalescido de 10 eventos, mede:
+ * <ul>
+ *   <li>codificação por evento (uma vez, qualquer que seja o número de conexões): JSON, frame
+ *   SSE (montado sempre, é o que vai para o replay) e, no WebSocket, o texto ou a conversão
+ *   para CBOR;</li>
+ *   <li>escrita por conexão: {@code enviar} do {@link SseTransport} e do {@link WebSocketTransport}
+ *   reais, sobre um emitter e uma sessão que só contam os bytes (sem socket);</li>
+ *   <li>bytes do payload e bytes no fio, somando o enquadramento de cada protocolo: chunk HTTP/1.1
+ *   por evento no SSE, cabeçalho de frame servidor→cliente (sem máscara) no WebSocket. TLS e
+ *   compressão ficam de fora.</li>
+ * </ul>
+ * Uso: {@code mvn -q test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.taskmanager.realtime.TransportBenchmark
+ * -Dexec.args="--events=5000 --connections=100 --warmup=2000"}
+ */
+public final class TransportBenchmark {
+
+    private static final long BOARD = 1L;
+
+    private enum Formato { SSE, WS_JSON, WS_CBOR }
+
+    private final ObjectMapper mapper = JsonMapper.builder().findAndAddModules().build();
+    private final CborCodec cbor = new CborCodec();
+    private final int eventos;
+    private final int conexoes;
+    // bytes do último texto enviado: o mesmo String vai para todas as conexões
+    private String ultimoTexto;
+    private int ultimoTamanho;
+
+    private TransportBenchmark(int eventos, int conexoes) {
+        this.eventos = eventos;
+        this.conexoes = conexoes;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> a = FanOutBenchmark.argumentos(args);
+        int aquecimento = Integer.parseInt(a.getOrDefault("warmup", "2000"));
+        TransportBenchmark bench = new TransportBenchmark(Integer.parseInt(a.getOrDefault("events", "5000")),
+                Integer.parseInt(a.getOrDefault("connections", "100")));
+        TransportBenchmark aquece = new TransportBenchmark(aquecimento, bench.conexoes);
+        for (Formato f : Formato.values()) {
+            aquece.medir(f, 1);
+            aquece.medir(f, 10);
+        }
+        List<String> linhas = new ArrayList<>();
+        for (int porFrame : new int[] { 1, 10 }) {
+            for (Formato f : Formato.values()) linhas.add(bench.medir(f, porFrame));
+        }
+        System.out.println();
+        System.out.println("==== SSE × WebSocket (JSON/CBOR), por evento ====");
+        System.out.printf("%-9s %-8s %12s %10s %14s %16s %12s %14s%n", "frame", "formato", "payload B",
+                "fio B", "codif. ns/ev", "escrita ns/con.", "codif. B/ev", "escrita B/con.");
+        linhas.forEach(System.out::println);
+    }
+
+    private String medir(Formato formato, int porFrame) throws Exception {
+        AtomicLong payload = new AtomicLong();
+        AtomicLong fio = new AtomicLong();
+        List<StreamTransport> transportes = new ArrayList<>(conexoes);
+        for (int i = 0; i < conexoes; i++) transportes.add(transporte(formato, payload, fio));
+
+        long[] codificacao = new long[2];
+        long[] escrita = new long[2];
+        for (int i = 0; i < eventos; i++) {
+            long cpu = CustoThreads.cpuAtual();
+            long bytes = CustoThreads.alocadoAtual();
+            SseFrame frame = frame(i, porFrame);
+            if (formato == Formato.WS_JSON) frame.texto();
+            if (formato == Formato.WS_CBOR) frame.cbor(cbor::converter);
+            long cpuMeio = CustoThreads.cpuAtual();
+            long bytesMeio = CustoThreads.alocadoAtual();
+            for (StreamTransport t : transportes) t.enviar(frame);
+            codificacao[0] += cpuMeio - cpu;
+            codificacao[1] += bytesMeio - bytes;
+            escrita[0] += CustoThreads.cpuAtual() - cpuMeio;
+            escrita[1] += CustoThreads.alocadoAtual() - bytesMeio;
+        }
+        long entregas = (long) eventos * conexoes;
+        return String.format("%-9s %-8s %12d %10d %14d %16d %12d %14d",
+                porFrame == 1 ? "avulso" : "lote de " + porFrame, formato.name().toLowerCase().replace('_', '-'),
+                payload.get() / entregas, fio.get() / entregas,
+                codificacao[0] / eventos, escrita[0] / entregas,
+                codificacao[1] / eventos, escrita[1] / entregas);
+    }
+
+    /** Um frame de board como o {@code StreamPublisher} monta: JSON de cada evento, lote e enquadramento SSE. */
+    private SseFrame frame(int i, int porFrame) {
+        List<byte[]> partes = new ArrayList<>(porFrame);
+        List<EventoInfo> infos = new ArrayList<>(porFrame);
+        for (int j = 0; j < porFrame; j++) {
+            partes.add(SseFrame.json(mapper, FanOutBenchmark.payload(i * porFrame + j)));
+            infos.add(new EventoInfo("TASK_PATCH", (long) j, "autor@exemplo.com"));
+        }
+        return SseFrame.of(String.valueOf(i), "task", EventCoalescer.lote(BOARD, partes), infos, partes);
+    }
+
+    private StreamTransport transporte(Formato formato, AtomicLong payload, AtomicLong fio) throws Exception {
+        if (formato == Formato.SSE) return new SseTransport(emitter(payload, fio));
+        WebSocketSession sessao = sessao(payload, fio);
+        return new WebSocketTransport(sessao,
+                formato == Formato.WS_CBOR ? WebSocketTransport.Formato.CBOR : WebSocketTransport.Formato.JSON, cbor);
+    }
+
+    /**
+     * Emitter já inicializado com um handler que conta os bytes de cada envio; o handler real
+     * escreve os mesmos bytes na resposta e faz flush (um chunk por evento).
+     */
+    private static SseEmitter emitter(AtomicLong payload, AtomicLong fio) throws Exception {
+        Class<?> tipoHandler = Class.forName(ResponseBodyEmitter.class.getName() + "$Handler");
+        Object handler = Proxy.newProxyInstance(tipoHandler.getClassLoader(), new Class<?>[] { tipoHandler },
+                (proxy, metodo, args) -> {
+                    if (metodo.getName().equals("send") && args.length == 1) {
+                        int n = 0;
+                        for (Object d : (Set<?>) args[0]) {
+                            Object dado = ((ResponseBodyEmitter.DataWithMediaType) d).getData();
+                            n += dado instanceof byte[] b ? b.length : dado.toString().getBytes(StandardCharsets.UTF_8).length;
+                        }
+                        payload.addAndGet(n);
+                        fio.addAndGet(n + Integer.toHexString(n).length() + 4); // "<hex>\r\n" + dados + "\r\n"
+                    }
+                    return null;
+                });
+        SseEmitter emitter = new SseEmitter(0L);
+        Method initialize = ResponseBodyEmitter.class.getDeclaredMethod("initialize", tipoHandler);
+        initialize.setAccessible(true);
+        initialize.invoke(emitter, handler);
+        return emitter;
+    }
+
+    /** Sessão aberta que só conta o payload de cada mensagem e o cabeçalho do frame. */
+    private WebSocketSession sessao(AtomicLong payload, AtomicLong fio) {
+        return (WebSocketSession) Proxy.newProxyInstance(WebSocketSession.class.getClassLoader(),
+                new Class<?>[] { WebSocketSession.class }, (proxy, metodo, args) -> switch (metodo.getName()) {
+                    case "sendMessage" -> {
+                        // o Tomcat escreve o texto direto; getPayloadLength() o recodificaria
+                        int n = args[0] instanceof TextMessage t ? bytesUtf8(t.getPayload())
+                                : ((WebSocketMessage<?>) args[0]).getPayloadLength();
+                        payload.addAndGet(n);
+                        fio.addAndGet(n + (n < 126 ? 2 : n < 65536 ? 4 : 10));
+                        yield null;
+                    }
+                    case "isOpen" -> true;
+                    case "getId" -> "bench";
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "WebSocketSession(bench)";
+                    default -> throw new UnsupportedOperationException(metodo.getName());
+                });
+    }
+
+    private int bytesUtf8(String s) {
+        if (s == ultimoTexto) return ultimoTamanho;
+        int n = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) n++;
+            else if (c < 0x800) n += 2;
+            else if (Character.isHighSurrogate(c)) { n += 4; i++; }
+            else n += 3;
+        }
+        ultimoTexto = s;
+        ultimoTamanho = n;
+        return n;
+    }
+}
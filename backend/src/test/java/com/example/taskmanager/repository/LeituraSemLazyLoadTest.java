@@ -0,0 +1,137 @@
+package com.example.taskmanager.repository;
+
+import com.example.taskmanager.model.Board;
+import com.example.taskmanager.model.BoardColumn;
+import com.example.taskmanager.model.BoardShare;
+import com.example.taskmanager.model.NotaTarefa;
+import com.example.taskmanager.model.SharePermission;
+import com.example.taskmanager.model.Tarefa;
+import com.example.taskmanager.model.Usuario;
+import com.example.taskmanager.service.NotaTarefaService;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * As leituras de board, coluna, compartilhamento, nota e tarefa devolvem DTOs preenchidos pela
+ * própria consulta: serializar o resultado (como a resposta HTTP faz) não carrega nenhuma
+ * entidade nem coleção.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+@Import(NotaTarefaService.class)
+class LeituraSemLazyLoadTest {
+
+    @Autowired TestEntityManager em;
+    @Autowired EntityManagerFactory emf;
+    @Autowired BoardRepository boardRepository;
+    @Autowired BoardColumnRepository columnRepository;
+    @Autowired BoardShareRepository shareRepository;
+    @Autowired TarefaRepository tarefaRepository;
+    @Autowired NotaTarefaService notaService;
+
+    private final JsonMapper json = JsonMapper.builder().findAndAddModules().build();
+
+    private Statistics stats;
+    private Board board;
+    private Tarefa tarefa;
+
+    @BeforeEach
+    void dados() {
+        Usuario dono = em.persist(new Usuario("Dona", "dona@exemplo.com", "segredo123"));
+        Usuario convidado = em.persist(new Usuario("Convidado", "convidado@exemplo.com", "segredo123"));
+
+        board = new Board();
+        board.setNome("Board");
+        board.setUsuario(dono);
+        em.persist(board);
+
+        BoardColumn coluna = new BoardColumn();
+        coluna.setBoard(board);
+        coluna.setTitulo("A fazer");
+        coluna.setOrdem(0);
+        em.persist(coluna);
+
+        BoardShare share = new BoardShare();
+        share.setBoard(board);
+        share.setSharedBy(dono);
+        share.setSharedWith(convidado);
+        share.setPermission(SharePermission.EDIT);
+        em.persist(share);
+
+        tarefa = new Tarefa("Tarefa", "desc", dono);
+        tarefa.setBoard(board);
+        tarefa.setColumn(coluna);
+        tarefa.setChaveOrdem("i");
+        em.persist(tarefa);
+
+        NotaTarefa nota = new NotaTarefa("nota", tarefa, dono);
+        nota.addVisualizacao(convidado);
+        em.persist(nota);
+
+        em.flush();
+        em.clear();
+        stats = emf.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+    }
+
+    @Test
+    void boards() {
+        assertSemLazyLoad(() -> boardRepository.findResumosByUsuarioEmail("dona@exemplo.com"), 1);
+        assertSemLazyLoad(() -> boardRepository.findResumosCompartilhadosCom("convidado@exemplo.com"), 1);
+    }
+
+    @Test
+    void colunas() {
+        assertSemLazyLoad(() -> columnRepository.findResumosByBoardId(board.getId()), 1);
+    }
+
+    @Test
+    void compartilhamentos() {
+        assertSemLazyLoad(() -> shareRepository.findResumosByBoardId(board.getId()), 1);
+    }
+
+    @Test
+    void tarefas() {
+        assertSemLazyLoad(() -> tarefaRepository.findResumosByBoardId(board.getId()), 1);
+        assertSemLazyLoad(() -> tarefaRepository.findResumoById(tarefa.getId()).orElseThrow(), 1);
+        assertSemLazyLoad(() -> tarefaRepository.findResumosAcessiveis("convidado@exemplo.com"), 1);
+    }
+
+    @Test
+    void notas() {
+        // existência da tarefa, notas e visualizações
+        assertSemLazyLoad(() -> notaService.listarNotasVisiveis(tarefa.getId(), "dona@exemplo.com"), 3);
+    }
+
+    private void assertSemLazyLoad(Supplier<Object> leitura, long consultas) {
+        stats.clear();
+        Object resultado = leitura.get();
+        String corpo;
+        try {
+            corpo = json.writeValueAsString(resultado);
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+        assertThat(corpo).isNotIn("[]", "null");
+        assertThat(stats.getEntityLoadCount()).as("entidades carregadas").isZero();
+        assertThat(stats.getEntityFetchCount()).as("lazy loads").isZero();
+        assertThat(stats.getCollectionFetchCount()).as("coleções carregadas").isZero();
+        assertThat(stats.getPrepareStatementCount()).as("consultas").isEqualTo(consultas);
+    }
+}
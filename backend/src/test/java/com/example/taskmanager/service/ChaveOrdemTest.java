@@ -0,0 +1,115 @@
+package com.example.taskmanager.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ChaveOrdemTest {
+
+    @Test
+    void entreSemVizinhosDaUmaChaveValida() {
+        String chave = ChaveOrdem.entre(null, null);
+        assertThat(chave).isNotEmpty().doesNotEndWith("0");
+    }
+
+    @Test
+    void entreComUmVizinhoNuloFicaDoLadoCerto() {
+        assertThat(ChaveOrdem.entre("i", null)).isGreaterThan("i");
+        assertThat(ChaveOrdem.entre(null, "i")).isLessThan("i");
+        assertThat(ChaveOrdem.depois(null)).isEqualTo(ChaveOrdem.entre(null, null));
+    }
+
+    @Test
+    void pontasNaoAlongamAChave() {
+        String chave = "i";
+        for (int i = 0; i < 10_000; i++) chave = ChaveOrdem.depois(chave);
+        assertThat(chave.length()).isLessThanOrEqualTo(6);
+
+        String inicio = "i";
+        for (int i = 0; i < 10_000; i++) inicio = ChaveOrdem.entre(null, inicio);
+        assertThat(inicio.length()).isLessThanOrEqualTo(6);
+    }
+
+    @Test
+    void entreChavesAdjacentes() {
+        assertChaveEntre("a", "b");
+        assertChaveEntre("a", "a1");
+        assertChaveEntre("az", "b");
+        assertChaveEntre("azzzzz", "b");
+        assertChaveEntre("0001", "0002");
+    }
+
+    @Test
+    void insercoesRepetidasNoMesmoPontoMantemAOrdem() {
+        String antes = "a";
+        String depois = "b";
+        List<String> geradas = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            String meio = assertChaveEntre(antes, depois);
+            geradas.add(meio);
+            depois = meio;
+        }
+        assertThat(geradas).isSortedAccordingTo((x, y) -> y.compareTo(x));
+        assertThat(depois.length()).isGreaterThan(ChaveOrdem.COMPRIMENTO_REBALANCEAMENTO);
+        assertThat(depois.length()).isLessThanOrEqualTo(ChaveOrdem.COMPRIMENTO_MAXIMO);
+    }
+
+    @Test
+    void entreChavesLongas() {
+        String a = "k".repeat(40) + "1";
+        String b = "k".repeat(40) + "2";
+        assertChaveEntre(a, b);
+        assertChaveEntre("k".repeat(ChaveOrdem.COMPRIMENTO_MAXIMO - 1) + "1", "l");
+    }
+
+    @Test
+    void entreRejeitaChavesForaDeOrdemOuInvalidas() {
+        assertThatThrownBy(() -> ChaveOrdem.entre("b", "a")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ChaveOrdem.entre("a", "a")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ChaveOrdem.entre(null, "")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ChaveOrdem.entre("a0", null)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ChaveOrdem.entre("A", null)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ChaveOrdem.entre("a".repeat(ChaveOrdem.COMPRIMENTO_MAXIMO + 1), null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void distribuidasSaoCrescentesCurtasEValidas() {
+        assertThat(ChaveOrdem.distribuidas(0)).isEmpty();
+        for (int n : new int[]{1, 2, 35, 36, 1_000, 50_000}) {
+            List<String> chaves = ChaveOrdem.distribuidas(n);
+            assertThat(chaves).hasSize(n).isSorted().doesNotHaveDuplicates();
+            for (String c : chaves) {
+                assertThat(c).isNotEmpty().doesNotEndWith("0");
+                assertThat(c.length()).isLessThan(ChaveOrdem.COMPRIMENTO_REBALANCEAMENTO);
+            }
+            // sempre cabe outra chave entre vizinhas e nas pontas
+            assertChaveEntre(chaves.get(0), n > 1 ? chaves.get(1) : null);
+            assertThat(ChaveOrdem.entre(null, chaves.get(0))).isLessThan(chaves.get(0));
+            assertThat(ChaveOrdem.depois(chaves.get(n - 1))).isGreaterThan(chaves.get(n - 1));
+        }
+    }
+
+    @Test
+    void isValidaAceitaSoChavesBemFormadas() {
+        assertThat(ChaveOrdem.isValida("i")).isTrue();
+        assertThat(ChaveOrdem.isValida(ChaveOrdem.distribuidas(3).get(1))).isTrue();
+        assertThat(ChaveOrdem.isValida(null)).isFalse();
+        assertThat(ChaveOrdem.isValida("")).isFalse();
+        assertThat(ChaveOrdem.isValida("a0")).isFalse();
+        assertThat(ChaveOrdem.isValida("a-b")).isFalse();
+        assertThat(ChaveOrdem.isValida("a".repeat(ChaveOrdem.COMPRIMENTO_MAXIMO + 1))).isFalse();
+    }
+
+    private static String assertChaveEntre(String antes, String depois) {
+        String meio = ChaveOrdem.entre(antes, depois);
+        if (antes != null) assertThat(meio).isGreaterThan(antes);
+        if (depois != null) assertThat(meio).isLessThan(depois);
+        assertThat(meio).doesNotEndWith("0");
+        return meio;
+    }
+}
@@ -1,10 +1,10 @@
 import { Component, computed, inject, signal, effect, OnDestroy } from '@angular/core';
 import { Subscription, interval } from 'rxjs';
-import { switchMap } from 'rxjs/operators';
+import { startWith, switchMap } from 'rxjs/operators';
 import { CommonModule } from '@angular/common';
 import { FormsModule } from '@angular/forms';
-import { TaskService, TarefaDto } from '../../services/task.service';
-import { BoardService, BoardDto, BoardColumnDto } from '../../services/board.service';
+import { TaskService, TarefaDto, PaginaColunaDto, fromResumo } from '../../services/task.service';
+import { BoardService, BoardDto, BoardColumnDto, BoardViewerDto } from '../../services/board.service';
 import { BoardStateService } from '../../services/board-state.service';
 import { FilterService } from '../../services/filter.service';
 import { AuthService } from '../../services/auth.service';
@@ -114,6 +114,10 @@ export class BoardComponent implements OnDestroy {
   // Notepad flutuante
   activeNotepad = signal<{task: TarefaDto, position: {x: number, y: number}} | null>(null);
   private tasksRefreshSubscription?: Subscription;
+  // Quem está vendo o board atual (heartbeat + eventos PRESENCE do stream)
+  viewers = signal<BoardViewerDto[]>([]);
+  private presenceSubscription?: Subscription;
+  private presenceBoardId: number | null = null;
   private realtimeFallbackSubscription?: Subscription;
   
   currentBoardName = computed(() => {
@@ -145,6 +149,11 @@ export class BoardComponent implements OnDestroy {
       }
     }
   // debug removed
+    // ordem dentro da coluna pela chave do servidor (comparação simples de strings, não localeCompare)
+    Object.values(map).forEach(list => list.sort((a, b) => {
+      const ka = a.chaveOrdem ?? '', kb = b.chaveOrdem ?? '';
+      return ka < kb ? -1 : ka > kb ? 1 : (a.id ?? 0) - (b.id ?? 0);
+    }));
     return map;
   });
 
@@ -164,13 +173,19 @@ export class BoardComponent implements OnDestroy {
     effect(() => {
       const id = this.currentBoardId();
       if (id) {
-        this.loadColumns(id);
-        this.loadTasks(id);
+        // columns and tasks arrive in the stream's SNAPSHOT event; fetch directly only without realtime
+        this.realtime.watchBoard(id);
+        if (!this.realtime.isConnected()) {
+          this.loadColumns(id);
+          this.loadTasks(id);
+        }
         this.startAutoRefreshTasks();
+        this.startPresence(id);
       } else {
         this.columns.set([]);
         this.tasks.set([]);
         this.stopAutoRefreshTasks();
+        this.stopPresence();
       }
     });
 
@@ -206,6 +221,34 @@ export class BoardComponent implements OnDestroy {
     // Register realtime listener (do not overwrite global handle)
     this.realtimeUnsubscribe = this.realtime.addListener((evt: any) => {
       const type = evt.type;
+      if (type === 'SNAPSHOT') {
+        if (evt.boardId !== this.currentBoardId()) return;
+        this.boardSeq.set(evt.boardId, evt.seq);
+        this.columns.set((evt.columns ?? []).map((c: any) => ({ id: c.id, titulo: c.titulo, ordem: c.ordem })));
+        // first page of each column; the rest comes from the page cursors on demand
+        const pages: PaginaColunaDto[] = evt.pages ?? [];
+        const cursors: Record<number, string | null> = {};
+        pages.forEach(p => cursors[p.columnId] = p.proxima);
+        this.tasks.set(pages.flatMap(p => p.tarefas.map(fromResumo)));
+        this.columnCursors.set(cursors);
+        this.loading.set(false);
+        return;
+      }
+      if (type === 'PRESENCE') {
+        if (evt.boardId !== this.currentBoardId()) return;
+        if (evt.viewers) { this.viewers.set(evt.viewers); return; }
+        const left: string[] = evt.left ?? [];
+        const kept = this.viewers().filter(v => !left.includes(v.email));
+        const joined: BoardViewerDto[] = (evt.joined ?? []).filter((j: BoardViewerDto) => !kept.some(v => v.email === j.email));
+        this.viewers.set([...kept, ...joined]);
+        return;
+      }
+      // Board events carry the board's mutation sequence; anything already reflected is skipped
+      if (evt.seq != null && evt.boardId != null) {
+        const seen = this.boardSeq.get(evt.boardId);
+        if (seen != null && evt.seq <= seen) return;
+        this.boardSeq.set(evt.boardId, evt.seq);
+      }
       if (type === 'TASK_CREATED') {
         const t = evt.task as any;
         const taskBoardId = t?.board?.id ?? t?.board_id ?? t?.boardId ?? (t?.column?.board?.id ?? t?.column?.boardId ?? null);
@@ -225,6 +268,12 @@ export class BoardComponent implements OnDestroy {
         } else if (current) {
           this.loadTasks(current);
         }
+      } else if (type === 'TASK_PATCH') {
+        // Only the changed fields travel; apply them over the local copy
+        const current = this.currentBoardId();
+        if (!current) return;
+        if (evt.boardId !== current && !this.tasks().some(x => x.id === evt.id)) return;
+        if (!this.applyTaskPatch(evt)) this.loadTasks(current);
       } else if (type === 'TASK_DELETED') {
         const id = evt.id;
         if (id != null) {
@@ -235,7 +284,9 @@ export class BoardComponent implements OnDestroy {
       } else if (type === 'TASKS_REORDERED') {
         const current = this.currentBoardId();
         if (evt.boardId && current === evt.boardId) {
-          if (current != null) this.loadTasks(current);
+          const patches: any[] = evt.tasks ?? [];
+          const ok = patches.length > 0 && patches.every(p => this.applyTaskPatch({ ...p, boardId: evt.boardId }));
+          if (!ok && current != null) this.loadTasks(current);
         } else if (evt.boardId === -1 && current != null) {
           // fallback genérico
           this.loadTasks(current);
@@ -258,7 +309,7 @@ export class BoardComponent implements OnDestroy {
         const boardId = evt.boardId ?? col?.board?.id ?? col?.boardId;
         const current = this.currentBoardId();
         if (current && boardId === current) {
-          this.columns.set(this.columns().map(c => c.id === col.id ? { id: col.id, titulo: col.titulo, ordem: col.ordem ?? c.ordem } : c));
+          this.columns.set(this.columns().map(c => c.id === col.id ? { id: col.id, titulo: col.titulo, ordem: col.ordem ?? c.ordem, versao: col.versao ?? c.versao } : c));
         }
       } else if (type === 'COLUMN_DELETED') {
         const colId = evt.columnId ?? evt.id;
@@ -270,6 +321,14 @@ export class BoardComponent implements OnDestroy {
           this.tasks.set(this.tasks().filter(t => (t.column?.id ?? t.column_id) !== colId));
         }
       }
+      // Reconnected after the replay buffer dropped our gap: reload the affected board once
+      else if (type === 'RESYNC_REQUIRED') {
+        const current = this.currentBoardId();
+        if (current && (evt.boardIds ?? []).includes(current)) {
+          this.loadColumns(current);
+          this.loadTasks(current);
+        }
+      }
       // Board-related events
       if (type === 'BOARD_SHARED' || type === 'BOARD_UNSHARED' || type === 'BOARD_UPDATED') {
         this.boardState.loadBoards(true);
@@ -277,10 +336,58 @@ export class BoardComponent implements OnDestroy {
     });
   }
 
+  /**
+   * Applies a TASK_PATCH ({id, version, changes}) to the local task list.
+   * Returns false when the task is unknown locally, so the caller can reload instead.
+   */
+  // Last mutation sequence applied per board (from SNAPSHOT and event "seq")
+  private boardSeq = new Map<number, number>();
+
+  private applyTaskPatch(p: any): boolean {
+    const existing = this.tasks().find(x => x.id === p.id) as any;
+    if (!existing) return false;
+    if (existing.versao != null && p.version != null && p.version <= existing.versao) return true; // stale
+    const changes = p.changes ?? {};
+    if (changes.boardId != null && changes.boardId !== this.currentBoardId()) {
+      // moved to another board
+      this.tasks.set(this.tasks().filter(x => x.id !== p.id));
+      return true;
+    }
+    const next: any = { ...existing, versao: p.version ?? existing.versao };
+    for (const [k, v] of Object.entries(changes)) {
+      if (k === 'columnId') { next.column = v == null ? null : { id: v }; next.column_id = v; }
+      else if (k === 'boardId') { next.board = v == null ? null : { ...(existing.board ?? {}), id: v }; }
+      else next[k] = v;
+    }
+    this.tasks.set(this.tasks().map(x => x.id === p.id ? next : x));
+    return true;
+  }
+
   ngOnDestroy(): void {
     try { this.realtimeUnsubscribe && this.realtimeUnsubscribe(); } catch {}
     try { this.closeNotepad(); } catch {}
     try { this.stopAutoRefreshTasks(); } catch {}
+    try { this.stopPresence(); } catch {}
+  }
+
+  // Heartbeat below the server TTL (45s); the server broadcasts join/leave diffs on the stream
+  private startPresence(boardId: number) {
+    if (this.presenceBoardId === boardId) return;
+    this.stopPresence();
+    this.presenceBoardId = boardId;
+    this.presenceSubscription = interval(15000)
+      .pipe(startWith(0), switchMap(() => this.boardService.sendPresence(boardId)))
+      .subscribe(viewers => {
+        if (this.presenceBoardId === boardId) this.viewers.set(viewers);
+      });
+  }
+
+  private stopPresence() {
+    this.presenceSubscription?.unsubscribe();
+    this.presenceSubscription = undefined;
+    if (this.presenceBoardId != null) this.boardService.leavePresence(this.presenceBoardId).subscribe();
+    this.presenceBoardId = null;
+    this.viewers.set([]);
   }
 
 
@@ -290,13 +397,14 @@ export class BoardComponent implements OnDestroy {
       .pipe(
         switchMap(() => {
           const boardId = this.currentBoardId();
-          if (boardId) return this.taskService.listByBoard(boardId);
+          // with the stream connected the board is already kept up to date (and paged lists stay paged)
+          if (boardId && !this.realtime.isConnected()) return this.taskService.listByBoard(boardId);
           return [] as any;
         })
       )
       .subscribe({
         next: (list: any) => {
-          if (Array.isArray(list)) this.tasks.set(list);
+          if (Array.isArray(list)) { this.tasks.set(list); this.columnCursors.set({}); }
         },
         error: (err) => console.error('Erro no auto-refresh das tarefas:', err)
       });
@@ -310,7 +418,7 @@ export class BoardComponent implements OnDestroy {
       .pipe(
         switchMap(() => this.taskService.listByBoard(boardId))
       )
-      .subscribe({ next: (list: any) => { if (Array.isArray(list)) this.tasks.set(list); }, error: () => {} });
+      .subscribe({ next: (list: any) => { if (Array.isArray(list)) { this.tasks.set(list); this.columnCursors.set({}); } }, error: () => {} });
   }
 
   private stopRealtimeFallback() {
@@ -329,9 +437,7 @@ export class BoardComponent implements OnDestroy {
 
   selectBoard(id: number) {
     if (this.currentBoardId() === id) return;
-    this.boardState.select(id);
-    this.loadColumns(id);
-    this.loadTasks(id);
+    this.boardState.select(id); // the board effect subscribes and receives the snapshot
   }
 
   openCreateBoardDialog() {
@@ -401,14 +507,37 @@ export class BoardComponent implements OnDestroy {
   }
 
   loadTasks(boardId: number) {
-  // load tasks for board
+  // load tasks for board: first page of each column, the rest on demand
     this.loading.set(true);
-    this.taskService.listByBoard(boardId).subscribe({
-      next: list => { this.tasks.set(list); this.loading.set(false); },
+    this.taskService.listFirstPages(boardId).subscribe({
+      next: pages => {
+        const cursors: Record<number, string | null> = {};
+        pages.forEach(p => cursors[p.columnId] = p.proxima);
+        this.columnCursors.set(cursors);
+        this.tasks.set(pages.flatMap(p => p.tarefas.map(fromResumo)));
+        this.loading.set(false);
+      },
       error: err => { this.error.set('Erro ao carregar tarefas'); this.loading.set(false); }
     });
   }
 
+  // Cursor da próxima página de cada coluna (null = coluna completa)
+  columnCursors = signal<Record<number, string | null>>({});
+
+  loadMoreInColumn(col: BoardColumnDto) {
+    const boardId = this.currentBoardId();
+    const after = this.columnCursors()[col.id];
+    if (!boardId || !after) return;
+    this.taskService.listColumnPage(boardId, col.id, after).subscribe({
+      next: page => {
+        const known = new Set(this.tasks().map(t => t.id));
+        this.tasks.set([...this.tasks(), ...page.tarefas.filter(r => !known.has(r.id)).map(fromResumo)]);
+        this.columnCursors.set({ ...this.columnCursors(), [col.id]: page.proxima });
+      },
+      error: () => this.error.set('Erro ao carregar mais tarefas')
+    });
+  }
+
   // Sistema de drag and drop melhorado
   isDragging = signal(false);
   draggedTask = signal<TarefaDto | null>(null);
@@ -604,6 +733,11 @@ export class BoardComponent implements OnDestroy {
       return;
     }
     
+    // Solta no fim da coluna de destino: o servidor grava só a chave deste cartão
+    const afterId = this.tasks()
+      .filter(t => t.id !== task.id && (t.column_id || t.column?.id) === newColumnId)
+      .reduce<TarefaDto | null>((ultima, t) => !ultima || (t.chaveOrdem ?? '') > (ultima.chaveOrdem ?? '') ? t : ultima, null)?.id ?? null;
+
     // Atualização otimista com informações corretas da coluna
     const currentTasks = this.tasks();
     const updatedTasks = currentTasks.map(t => 
@@ -619,7 +753,7 @@ export class BoardComponent implements OnDestroy {
     this.tasks.set(updatedTasks);
     
     // Atualiza no backend
-    this.taskService.moveToColumn(task.id, newColumnId).subscribe({
+    this.taskService.move(task.id, newColumnId, afterId).subscribe({
       next: (updated: any) => {
         // Atualiza com dados do servidor (garantindo que a coluna está correta)
         const finalTasks = this.tasks().map(t => 
@@ -633,8 +767,6 @@ export class BoardComponent implements OnDestroy {
           } : t
         );
         this.tasks.set(finalTasks);
-        this.recalculatePositionsColumns();
-        this.persistReorderColumns();
         
         // Notifica mudança
         if (typeof previousColumnId === 'number' && typeof task.id === 'number') {
@@ -664,15 +796,6 @@ export class BoardComponent implements OnDestroy {
     });
   }
 
-  private recalculatePositionsColumns() {
-    const byColumn: Record<number, TarefaDto[]> = {} as any;
-    for (const t of this.tasks()) {
-      const cid = t.column?.id; if (!cid) continue;
-      (byColumn[cid] ||= []).push(t);
-    }
-    Object.values(byColumn).forEach(list => list.forEach((t,i) => t.position = i+1));
-  }
-
   private persistReorder() {
     const bid = this.currentBoardId();
     const payload = this.tasks().map(t => ({ id: t.id, posicao: t.position, status: t.status, boardId: bid }));
@@ -681,14 +804,6 @@ export class BoardComponent implements OnDestroy {
     });
   }
 
-  private persistReorderColumns() {
-    const bid = this.currentBoardId();
-    const payload = this.tasks().map(t => ({ id: t.id, posicao: t.position, status: t.status, columnId: t.column?.id, boardId: bid }));
-    this.taskService.reorderTasks(payload).subscribe({
-      error: err => { console.error('Falha ao reordenar colunas', err); const b = this.currentBoardId(); if (b) this.loadTasks(b); }
-    });
-  }
-
   onSelectBoard(event: Event) {
     const sel = event.target as HTMLSelectElement | null;
     if (sel && sel.value) this.selectBoard(+sel.value);
@@ -823,9 +938,19 @@ export class BoardComponent implements OnDestroy {
   commitEditColumn(col: ColumnState) {
     const val = this.tempEditText().trim();
     if (!val || val === col.titulo) { this.editingColumnId.set(null); return; }
-    this.boardService.renameColumn(col.id, val).subscribe({
-      next: upd => { this.columns.set(this.columns().map(c => c.id===col.id ? { ...c, titulo: upd.titulo } : c)); this.editingColumnId.set(null); },
-      error: err => { console.error('Erro renomear coluna', err); this.editingColumnId.set(null); }
+    this.boardService.renameColumn(col.id, val, col.versao).subscribe({
+      next: upd => { this.columns.set(this.columns().map(c => c.id===col.id ? { ...c, titulo: upd.titulo, versao: upd.versao } : c)); this.editingColumnId.set(null); },
+      error: err => {
+        if (err.status === 412 && err.error?.atual) {
+          // outra pessoa renomeou antes: mostra o nome atual em vez de sobrescrever
+          const atual = err.error.atual;
+          this.columns.set(this.columns().map(c => c.id===col.id ? { ...c, titulo: atual.titulo, versao: atual.versao } : c));
+          this.error.set('A coluna foi alterada por outra pessoa; confira o nome atual.');
+        } else {
+          console.error('Erro renomear coluna', err);
+        }
+        this.editingColumnId.set(null);
+      }
     });
   }
   cancelEditColumn() { this.editingColumnId.set(null); }
@@ -835,8 +960,18 @@ export class BoardComponent implements OnDestroy {
     const val = this.tempEditText().trim();
     if (!val || val === t.titulo) { this.editingTaskId.set(null); return; }
     this.taskService.update(t.id!, { ...t, titulo: val }).subscribe({
-      next: upd => { this.tasks.set(this.tasks().map(x => x.id===t.id ? { ...x, titulo: upd.titulo } : x)); this.editingTaskId.set(null); },
-      error: err => { console.error('Erro atualizar tarefa', err); this.editingTaskId.set(null); }
+      next: upd => { this.tasks.set(this.tasks().map(x => x.id===t.id ? { ...x, titulo: upd.titulo, versao: upd.versao } : x)); this.editingTaskId.set(null); },
+      error: err => {
+        if (err.status === 412 && err.error?.atual) {
+          // outra pessoa editou antes: fica com o estado atual do servidor, sem sobrescrever
+          const atual = fromResumo(err.error.atual);
+          this.tasks.set(this.tasks().map(x => x.id===t.id ? { ...x, ...atual } : x));
+          this.error.set('A tarefa foi alterada por outra pessoa; confira a versão atual.');
+        } else {
+          console.error('Erro atualizar tarefa', err);
+        }
+        this.editingTaskId.set(null);
+      }
     });
   }
   cancelEditTask() { this.editingTaskId.set(null); }
@@ -2,9 +2,11 @@ import { inject, Injectable, signal } from '@angular/core';
 import { HttpClient, HttpHeaders } from '@angular/common/http';
 import { Observable, of } from 'rxjs';
 import { map, catchError } from 'rxjs/operators';
+import { ifMatch } from './task.service';
 
-export interface BoardDto { id: number; nome: string; criadoEm?: string; icon?: string; }
-export interface BoardColumnDto { id: number; titulo: string; ordem: number; legacyStatus?: string; }
+export interface BoardDto { id: number; nome: string; criadoEm?: string; icon?: string; versao?: number; }
+export interface BoardColumnDto { id: number; titulo: string; ordem: number; legacyStatus?: string; versao?: number; }
+export interface BoardViewerDto { email: string; nome: string; }
 
 @Injectable({ providedIn: 'root' })
 export class BoardService {
@@ -38,8 +40,9 @@ export class BoardService {
     return this.http.post<BoardColumnDto>(`${this.baseUrl}/${boardId}/columns`, { titulo });
   }
 
-  renameColumn(columnId: number, titulo: string): Observable<BoardColumnDto> {
-    return this.http.patch<BoardColumnDto>(`${this.baseUrl}/columns/${columnId}`, { titulo });
+  // Com a versão, If-Match: 412 (com a coluna atual em error.atual) se outra escrita chegou antes
+  renameColumn(columnId: number, titulo: string, versao?: number): Observable<BoardColumnDto> {
+    return this.http.patch<BoardColumnDto>(`${this.baseUrl}/columns/${columnId}`, { titulo }, { headers: ifMatch(versao) });
   }
 
   deleteColumn(columnId: number): Observable<void> {
@@ -51,6 +54,21 @@ export class BoardService {
     return this.http.get<{own: BoardDto[], shared: BoardDto[]}>(`${this.baseUrl}/separated`);
   }
 
+  // Presença: heartbeat enquanto o board está aberto; responde com quem está vendo agora
+  sendPresence(boardId: number): Observable<BoardViewerDto[]> {
+    const headers = new HttpHeaders({ 'X-Skip-Auth-Redirect': 'true' });
+    return this.http.post<BoardViewerDto[]>(`${this.baseUrl}/${boardId}/presence`, null, { headers }).pipe(
+      catchError(() => of([]))
+    );
+  }
+
+  leavePresence(boardId: number): Observable<void> {
+    const headers = new HttpHeaders({ 'X-Skip-Auth-Redirect': 'true' });
+    return this.http.delete<void>(`${this.baseUrl}/${boardId}/presence`, { headers }).pipe(
+      catchError(() => of(void 0))
+    );
+  }
+
   // Buscar membros de um board específico
   getBoardMembers(boardId: number): Observable<{id: number, nome: string, email: string}[]> {
     const headers = new HttpHeaders({ 'X-Skip-Auth-Redirect': 'true' });
@@ -1,10 +1,12 @@
 import { Injectable, inject } from '@angular/core';
-import { TaskService, TarefaDto } from './task.service';
+import { TaskService, TarefaDto, PaginaColunaDto } from './task.service';
 import { effect, signal } from '@angular/core';
 
 interface TaskEventCreated { type: 'TASK_CREATED' | 'TASK_UPDATED'; task: TarefaDto; by?: string }
 interface TaskEventDeleted { type: 'TASK_DELETED'; id: number; by?: string }
-interface TaskEventReordered { type: 'TASKS_REORDERED'; boardId: number }
+interface TaskEventPatch { type: 'TASK_PATCH'; id: number; boardId?: number; version: number; changes: Record<string, any>; by?: string }
+interface TaskEventReordered { type: 'TASKS_REORDERED'; boardId: number; tasks?: Array<{ id: number; version: number; changes: Record<string, any> }> }
+interface BoardSnapshot { type: 'SNAPSHOT'; boardId: number; seq: number; board: any; columns: Array<{ id: number; titulo: string; ordem: number }>; pages: PaginaColunaDto[] }
 interface BoardEventShared { type: 'BOARD_SHARED'; board: any; sharedWith?: string; by?: string }
 interface BoardEventUnshared { type: 'BOARD_UNSHARED'; boardId: number; unsharedFrom?: string; by?: string }
 interface BoardEventUpdated { type: 'BOARD_UPDATED'; board: any; by?: string }
@@ -19,9 +21,17 @@ export class TaskRealtimeService {
   eventsLog = signal<any[]>([]);
   private listeners: Array<(evt: any) => void> = [];
 
+  private boardId?: number;
+
   connect() {
     if (this.source) return;
-    this.source = new EventSource('http://localhost:8080/tarefas/stream');
+    // With a board selected, the stream starts with its SNAPSHOT and then only newer events.
+    // EventSource reconnects send Last-Event-ID: the server replays the missed events and only
+    // sends a new SNAPSHOT when its buffer no longer covers the gap.
+    const url = this.boardId != null
+      ? `http://localhost:8080/tarefas/stream?boards=${this.boardId}&snapshot=true`
+      : 'http://localhost:8080/tarefas/stream';
+    this.source = new EventSource(url);
     this.source.onopen = () => this.connected.set(true);
   this.source.onerror = () => { this.connected.set(false); this.connectionChange.update(n => n+1); };
     this.source.addEventListener('task', (e: any) => {
@@ -35,6 +45,11 @@ export class TaskRealtimeService {
   }
 
   private dispatch(evt: any) {
+    // Coalesced frames: the server groups bursts of events for one board
+    if (evt?.type === 'BATCH' && Array.isArray(evt.events)) {
+      for (const e of evt.events) this.dispatch(e);
+      return;
+    }
     try { console.debug('[realtime] dispatching event', evt); } catch {}
     // Call all registered listeners
     for (const l of this.listeners.slice()) {
@@ -44,6 +59,19 @@ export class TaskRealtimeService {
     try { (this as any).handle && (this as any).handle(evt); } catch {}
   }
 
+  /**
+   * Follows a single board: reopens the stream so it begins with a SNAPSHOT of that board
+   * (board, columns, tasks and its sequence number) followed by live events.
+   */
+  watchBoard(boardId: number) {
+    if (this.boardId === boardId && this.source) return;
+    this.boardId = boardId;
+    this.source?.close();
+    this.source = undefined;
+    this.connected.set(false);
+    this.connect();
+  }
+
   private ensureConnected() {
     if (!this.source) this.connect();
   }
@@ -1,6 +1,6 @@
 import { inject, Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
-import { Observable } from 'rxjs';
+import { Observable, map } from 'rxjs';
 
 export interface TarefaDto {
   id?: number;
@@ -12,10 +12,92 @@ export interface TarefaDto {
   column_id?: number; // Campo do backend
   dueDate?: string; // dataLimite ISO string
   position?: number;
+  chaveOrdem?: string; // ordem do cartão na coluna (comparação de strings)
   criadoEm?: string;
   atualizadoEm?: string;
   tags?: string[];
   prioridade?: string; // BAIXA, NORMAL, ALTA, URGENTE
+  versao?: number; // incrementada a cada alteração (patches realtime)
+}
+
+// Listagens (e o SNAPSHOT do stream) vêm planas: board/coluna por id, com título e ordem da coluna
+export interface TarefaResumoDto {
+  id: number;
+  titulo: string;
+  descricao?: string;
+  status?: string;
+  prioridade?: string;
+  dataCriacao?: string;
+  dataConclusao?: string;
+  dataLimite?: string;
+  posicao?: number;
+  chaveOrdem?: string;
+  versao?: number;
+  boardId?: number;
+  columnId?: number;
+  columnTitulo?: string;
+  columnOrdem?: number;
+}
+
+// Página de uma coluna; "proxima" é o cursor da página seguinte (null = fim da coluna)
+export interface PaginaColunaDto {
+  columnId: number;
+  tarefas: TarefaResumoDto[];
+  proxima: string | null;
+}
+
+// Resultado da busca; tituloDestacado e trecho são HTML já escapado, com os termos em <mark>
+export interface ResultadoBuscaDto {
+  id: number;
+  titulo: string;
+  tituloDestacado: string;
+  trecho: string;
+  status: string;
+  boardId: number;
+  boardNome: string;
+  columnId: number | null;
+  relevancia: number;
+}
+
+export interface PaginaBuscaDto {
+  resultados: ResultadoBuscaDto[];
+  proxima: string | null;
+}
+
+// Filtros e ordenação avaliados no servidor (GET /tarefas e /tarefas/board/:id)
+export interface FiltroTarefasDto {
+  status?: string[];       // PENDENTE, EM_ANDAMENTO, CONCLUIDA, CANCELADA
+  priority?: string[];     // BAIXA, NORMAL, ALTA, URGENTE
+  due?: 'overdue' | 'week';
+  createdFrom?: string;    // yyyy-MM-dd
+  createdTo?: string;
+  sort?: 'position' | 'priority' | 'dueDate' | 'createdAt';
+  order?: 'asc' | 'desc';
+}
+
+function filtroParams(filtro?: FiltroTarefasDto): Record<string, string | string[]> {
+  const params: Record<string, string | string[]> = {};
+  if (!filtro) return params;
+  for (const [k, v] of Object.entries(filtro)) {
+    if (v != null && v !== '' && !(Array.isArray(v) && v.length === 0)) params[k] = v;
+  }
+  return params;
+}
+
+// If-Match com o ETag da versão (sem versão: escrita incondicional)
+export function ifMatch(versao?: number | null): Record<string, string> {
+  return versao != null ? { 'If-Match': `"${versao}"` } : {};
+}
+
+// Converte o resumo plano para o formato usado nos componentes
+export function fromResumo(r: TarefaResumoDto): TarefaDto {
+  return {
+    id: r.id, titulo: r.titulo, descricao: r.descricao, status: r.status, prioridade: r.prioridade,
+    dueDate: r.dataLimite, position: r.posicao, chaveOrdem: r.chaveOrdem, versao: r.versao,
+    board: r.boardId != null ? { id: r.boardId } : null,
+    column: r.columnId != null ? { id: r.columnId, titulo: r.columnTitulo, ordem: r.columnOrdem } : null,
+    column_id: r.columnId
+  };
 }
 
 @Injectable({ providedIn: 'root' })
@@ -23,16 +105,34 @@ export class TaskService {
   private http = inject(HttpClient);
   private baseUrl = 'http://localhost:8080/tarefas';
 
-  list(): Observable<TarefaDto[]> {
-    return this.http.get<TarefaDto[]>(this.baseUrl);
+  list(filtro?: FiltroTarefasDto): Observable<TarefaDto[]> {
+    return this.http.get<TarefaResumoDto[]>(this.baseUrl, { params: filtroParams(filtro) })
+      .pipe(map(list => list.map(fromResumo)));
+  }
+
+  listByBoard(boardId: number, filtro?: FiltroTarefasDto): Observable<TarefaDto[]> {
+    return this.http.get<TarefaResumoDto[]>(`${this.baseUrl}/board/${boardId}`, { params: filtroParams(filtro) })
+      .pipe(map(list => list.map(fromResumo)));
+  }
+
+  // Abertura da board: primeira página de cada coluna
+  listFirstPages(boardId: number, limit = 50): Observable<PaginaColunaDto[]> {
+    return this.http.get<PaginaColunaDto[]>(`${this.baseUrl}/board/${boardId}/paginas`, { params: { limit } });
   }
 
-  listByBoard(boardId: number): Observable<TarefaDto[]> {
-    return this.http.get<TarefaDto[]>(`${this.baseUrl}/board/${boardId}`);
+  listColumnPage(boardId: number, columnId: number, after: string, limit = 50): Observable<PaginaColunaDto> {
+    return this.http.get<PaginaColunaDto>(`${this.baseUrl}/board/${boardId}/column/${columnId}`, { params: { after, limit } });
+  }
+
+  // Busca no servidor, nas boards que o usuário enxerga; "after" é o proxima da página anterior
+  search(q: string, after?: string, limit = 20): Observable<PaginaBuscaDto> {
+    const params: Record<string, string | number> = { q, limit };
+    if (after) params['after'] = after;
+    return this.http.get<PaginaBuscaDto>(`${this.baseUrl}/search`, { params });
   }
 
   get(id: number): Observable<TarefaDto> {
-    return this.http.get<TarefaDto>(`${this.baseUrl}/${id}`);
+    return this.http.get<TarefaResumoDto>(`${this.baseUrl}/${id}`).pipe(map(fromResumo));
   }
 
   create(data: TarefaDto): Observable<TarefaDto> {
@@ -43,8 +143,9 @@ export class TaskService {
     return this.http.post<TarefaDto>(`${this.baseUrl}/board/${boardId}/column/${columnId}`, { titulo });
   }
 
+  // Com a versão conhecida vai If-Match: se outra escrita chegou antes, 412 com a tarefa atual em error.atual
   update(id: number, data: Partial<TarefaDto>): Observable<TarefaDto> {
-    return this.http.put<TarefaDto>(`${this.baseUrl}/${id}`, data);
+    return this.http.put<TarefaDto>(`${this.baseUrl}/${id}`, data, { headers: ifMatch(data.versao) });
   }
 
   updateStatus(id: number, status: string): Observable<TarefaDto> {
@@ -59,6 +160,12 @@ export class TaskService {
     return this.http.patch<TarefaDto>(`${this.baseUrl}/${id}/coluna/${columnId}`, {});
   }
 
+  // Move um cartão para entre dois vizinhos da coluna (sem vizinho = ponta da coluna)
+  move(id: number, columnId: number, afterId?: number | null, beforeId?: number | null, versao?: number): Observable<TarefaDto> {
+    return this.http.patch<TarefaDto>(`${this.baseUrl}/${id}/mover`, { columnId, afterId: afterId ?? null, beforeId: beforeId ?? null },
+      { headers: ifMatch(versao) });
+  }
+
   reorderTasks(tasks: any[]): Observable<any> {
     return this.http.patch(`${this.baseUrl}/reordenar`, tasks);
   }
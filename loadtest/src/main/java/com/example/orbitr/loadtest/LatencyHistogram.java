@@ -0,0 +1,70 @@
+package com.example.orbitr.loadtest;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de latências em microssegundos, seguro para gravação concorrente e com memória
+ * fixa (~30 KB) independente do número de amostras: valores até 127 µs são exatos, acima disso
+ * cada faixa de potência de 2 tem 64 baldes (erro relativo abaixo de 1,6%).
+ */
+final class LatencyHistogram {
+
+    private static final int SUB = 64;
+    private static final int BALDES = SUB * 60;
+
+    private final AtomicLongArray contagens = new AtomicLongArray(BALDES);
+
+    void registrar(long micros) {
+        contagens.incrementAndGet(indice(Math.max(0, micros)));
+    }
+
+    long total() {
+        long n = 0;
+        for (int i = 0; i < BALDES; i++) n += contagens.get(i);
+        return n;
+    }
+
+    /**
+     * Valor (limite inferior do balde) abaixo do qual estão {@code p}% das amostras.
+     */
+    long percentil(double p) {
+        long total = total();
+        if (total == 0) return 0;
+        long alvo = (long) Math.ceil(total * p / 100.0);
+        long acumulado = 0;
+        for (int i = 0; i < BALDES; i++) {
+            acumulado += contagens.get(i);
+            if (acumulado >= alvo) return valor(i);
+        }
+        return valor(BALDES - 1);
+    }
+
+    long maximo() {
+        for (int i = BALDES - 1; i >= 0; i--) {
+            if (contagens.get(i) > 0) return valor(i);
+        }
+        return 0;
+    }
+
+    /** Resumo em milissegundos: p50/p90/p99/p99.9/max. */
+    String resumo() {
+        if (total() == 0) return "sem amostras";
+        return String.format("n=%d p50=%.2fms p90=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms",
+                total(), ms(percentil(50)), ms(percentil(90)), ms(percentil(99)), ms(percentil(99.9)), ms(maximo()));
+    }
+
+    private static double ms(long micros) { return micros / 1000.0; }
+
+    static int indice(long v) {
+        if (v < 2 * SUB) return (int) v;
+        int bits = 64 - Long.numberOfLeadingZeros(v);
+        int shift = bits - 7;
+        return Math.min(BALDES - 1, shift * SUB + (int) (v >>> shift));
+    }
+
+    static long valor(int indice) {
+        if (indice < 2 * SUB) return indice;
+        int shift = indice / SUB - 1;
+        return (long) (indice - shift * SUB) << shift;
+    }
+}
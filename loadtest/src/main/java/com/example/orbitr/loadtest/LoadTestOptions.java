@@ -0,0 +1,63 @@
+package com.example.orbitr.loadtest;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parâmetros da execução, lidos de {@code --nome=valor}.
+ *
+ * @param baseUrl          URL do backend
+ * @param email            usuário usado em todas as conexões (o limite por usuário precisa ser elevado)
+ * @param senha            senha do usuário
+ * @param conexoes         conexões SSE simultâneas
+ * @param rampaPorSegundo  conexões abertas por segundo
+ * @param tarefas          tarefas criadas na board de teste
+ * @param mutacoesPorSegundo taxa das alterações (malha aberta: não espera a resposta anterior)
+ * @param fracaoColunas    fração das alterações que renomeia a coluna (BoardController) em vez de editar tarefa
+ * @param baseline         duração da medição sem conexões abertas
+ * @param duracao          duração da medição com as conexões abertas
+ * @param snapshot         abre as conexões com snapshot=true
+ * @param leiturasPorSegundo GETs da board por segundo (carga mista; 0 desativa)
+ * @param loginsPorSegundo logins por segundo (BCrypt; carga mista; 0 desativa)
+ */
+record LoadTestOptions(URI baseUrl, String email, String senha, int conexoes, int rampaPorSegundo, int tarefas,
+                       int mutacoesPorSegundo, double fracaoColunas, Duration baseline, Duration duracao,
+                       boolean snapshot, int leiturasPorSegundo, int loginsPorSegundo) {
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> a = argumentos(args);
+        String email = a.get("email");
+        String senha = a.get("password");
+        if (email == null || senha == null) {
+            throw new IllegalArgumentException("--email e --password são obrigatórios");
+        }
+        return new LoadTestOptions(
+                URI.create(a.getOrDefault("base-url", "http://localhost:8080")),
+                email, senha,
+                Integer.parseInt(a.getOrDefault("connections", "10000")),
+                Integer.parseInt(a.getOrDefault("ramp-per-sec", "500")),
+                Integer.parseInt(a.getOrDefault("tasks", "50")),
+                Integer.parseInt(a.getOrDefault("rate", "20")),
+                Double.parseDouble(a.getOrDefault("column-fraction", "0.1")),
+                Duration.ofSeconds(Long.parseLong(a.getOrDefault("baseline-seconds", "20"))),
+                Duration.ofSeconds(Long.parseLong(a.getOrDefault("duration-seconds", "60"))),
+                Boolean.parseBoolean(a.getOrDefault("snapshot", "false")),
+                Integer.parseInt(a.getOrDefault("reads-per-sec", "0")),
+                Integer.parseInt(a.getOrDefault("logins-per-sec", "0")));
+    }
+
+    /** Argumentos {@code --nome=valor} em mapa (compartilhado com os outros testes do módulo). */
+    static Map<String, String> argumentos(String[] args) {
+        Map<String, String> a = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Argumento inválido (use --nome=valor): " + arg);
+            }
+            int eq = arg.indexOf('=');
+            a.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return a;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.orbitr.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chamadas REST usadas pelo teste: login, preparação da board e as alterações que geram eventos.
+ */
+final class OrbitrApi {
+
+    private final HttpClient http;
+    private final URI base;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private String token;
+
+    OrbitrApi(HttpClient http, URI base) {
+        this.http = http;
+        this.base = base;
+    }
+
+    String token() { return token; }
+
+    void login(String email, String senha) throws IOException, InterruptedException {
+        JsonNode resposta = enviar("POST", "/auth/login", Map.of("email", email, "senha", senha), false);
+        token = resposta.get("token").asText();
+    }
+
+    /** Login que não troca o token em uso (carga de autenticação). */
+    void loginAvulso(String email, String senha) throws IOException, InterruptedException {
+        enviar("POST", "/auth/login", Map.of("email", email, "senha", senha), false);
+    }
+
+    void listarTarefas(long boardId) throws IOException, InterruptedException {
+        enviar("GET", "/tarefas/board/" + boardId, null, true);
+    }
+
+    JsonNode diagnosticoThreads() throws IOException, InterruptedException {
+        return enviar("GET", "/api/diagnostics/threads", null, true);
+    }
+
+    long criarBoard(String nome) throws IOException, InterruptedException {
+        return enviar("POST", "/api/boards", Map.of("nome", nome), true).get("id").asLong();
+    }
+
+    long primeiraColuna(long boardId) throws IOException, InterruptedException {
+        JsonNode colunas = enviar("GET", "/api/boards/" + boardId + "/columns", null, true);
+        if (colunas.isEmpty()) throw new IllegalStateException("Board " + boardId + " sem colunas");
+        return colunas.get(0).get("id").asLong();
+    }
+
+    long criarTarefa(long boardId, long colunaId, String titulo) throws IOException, InterruptedException {
+        return enviar("POST", "/tarefas/board/" + boardId + "/column/" + colunaId,
+                Map.of("titulo", titulo), true).get("id").asLong();
+    }
+
+    /** PUT /tarefas/{id}: gera um TASK_PATCH com o título novo. */
+    void atualizarTarefa(long id, String titulo) throws IOException, InterruptedException {
+        enviar("PUT", "/tarefas/" + id, Map.of("titulo", titulo, "descricao", "carga"), true);
+    }
+
+    /** PATCH /api/boards/columns/{id}: gera um COLUMN_UPDATED com o título novo. */
+    void renomearColuna(long colunaId, String titulo) throws IOException, InterruptedException {
+        enviar("PATCH", "/api/boards/columns/" + colunaId, Map.of("titulo", titulo), true);
+    }
+
+    /** PATCH /tarefas/reordenar com a lista inteira, como o frontend faz após um drag. */
+    void reordenar(List<Map<String, Object>> tarefas) throws IOException, InterruptedException {
+        enviar("PATCH", "/tarefas/reordenar", tarefas, true);
+    }
+
+    void deletarBoard(long boardId) throws IOException, InterruptedException {
+        enviar("DELETE", "/api/boards/" + boardId, null, true);
+    }
+
+    JsonNode stats() throws IOException, InterruptedException {
+        return enviar("GET", "/tarefas/stream/stats", null, true);
+    }
+
+    /** Requisição do stream SSE autenticada, para o {@link SseSubscriber}. */
+    HttpRequest stream(long boardId, boolean snapshot) {
+        return HttpRequest.newBuilder(base.resolve("/tarefas/stream?boards=" + boardId + "&snapshot=" + snapshot))
+                .header("Authorization", "Bearer " + token)
+                .header("Accept", "text/event-stream")
+                .GET()
+                .build();
+    }
+
+    private JsonNode enviar(String metodo, String caminho, Object corpo, boolean autenticado)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder req = HttpRequest.newBuilder(base.resolve(caminho))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json");
+        if (autenticado) req.header("Authorization", "Bearer " + token);
+        req.method(metodo, corpo == null ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(corpo)));
+        HttpResponse<byte[]> resp = http.send(req.build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (resp.statusCode() >= 300) {
+            throw new IOException(metodo + " " + caminho + " -> HTTP " + resp.statusCode() + ": "
+                    + new String(resp.body()));
+        }
+        return resp.body().length == 0 ? mapper.nullNode() : mapper.readTree(resp.body());
+    }
+}
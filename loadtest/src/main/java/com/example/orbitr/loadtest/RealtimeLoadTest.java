@@ -0,0 +1,258 @@
+package com.example.orbitr.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Teste de carga do stream realtime: abre milhares de conexões SSE numa board e, com elas
+ * abertas, dispara alterações por TarefaController e BoardController a uma taxa fixa.
+ * <p>
+ * Fases: preparação (login, board, tarefas) → baseline das requisições sem conexões →
+ * abertura das conexões (medindo o heap do servidor) → carga → relatório com latência ponta a
+ * ponta dos eventos, latência das requisições antes/durante, descartes e despejos.
+ * <p>
+ * Carga mista ({@code --reads-per-sec}, {@code --logins-per-sec}): leituras e logins rodam junto
+ * com as alterações nas duas fases, e o relatório inclui o pinning de virtual threads registrado
+ * pelo servidor. Rodando uma vez com {@code APP_VIRTUAL_THREADS=false} e outra com {@code true}
+ * compara-se vazão e latência de cauda dos dois modos.
+ * <p>
+ * Uso: {@code mvn -q compile exec:java -Dexec.args="--email=... --password=... --connections=10000"}
+ * (ver README do módulo).
+ */
+public final class RealtimeLoadTest {
+
+    private final LoadTestOptions opcoes;
+    private final HttpClient http;
+    private final OrbitrApi api;
+
+    private long boardId;
+    private long colunaId;
+    private final List<Long> tarefas = new ArrayList<>();
+
+    /** Uma requisição medida pelo gerador de carga. */
+    @FunctionalInterface
+    private interface Operacao {
+        void executar() throws Exception;
+    }
+
+    /** Tipo de requisição disparado a uma taxa fixa, com as suas medições. */
+    private record Carga(String nome, int porSegundo, Operacao operacao, LatencyHistogram latencias,
+                         AtomicLong concluidas, AtomicLong falhas) {
+        Carga(String nome, int porSegundo, Operacao operacao) {
+            this(nome, porSegundo, operacao, new LatencyHistogram(), new AtomicLong(), new AtomicLong());
+        }
+    }
+
+    private RealtimeLoadTest(LoadTestOptions opcoes) {
+        this.opcoes = opcoes;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        this.api = new OrbitrApi(http, opcoes.baseUrl());
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions opcoes;
+        try {
+            opcoes = LoadTestOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Uso: --email=E --password=S [--base-url=http://localhost:8080] [--connections=10000]"
+                    + " [--ramp-per-sec=500] [--rate=20] [--tasks=50] [--column-fraction=0.1]"
+                    + " [--baseline-seconds=20] [--duration-seconds=60] [--snapshot=false]"
+                    + " [--reads-per-sec=0] [--logins-per-sec=0]");
+            System.exit(2);
+            return;
+        }
+        new RealtimeLoadTest(opcoes).executar();
+    }
+
+    static long agoraMicros() {
+        Instant agora = Instant.now();
+        return agora.getEpochSecond() * 1_000_000L + agora.getNano() / 1_000;
+    }
+
+    private void executar() throws Exception {
+        preparar();
+        try {
+            log("Baseline: %ds sem conexões abertas", opcoes.baseline().toSeconds());
+            List<Carga> baseline = cargas();
+            dirigir(opcoes.baseline(), baseline);
+
+            JsonNode antes = api.stats();
+            LatencyHistogram eventos = new LatencyHistogram();
+            AtomicLong recebidos = new AtomicLong();
+            AtomicLong desconectadas = new AtomicLong();
+            AtomicLong falhasConexao = new AtomicLong();
+            CountDownLatch conectadas = new CountDownLatch(opcoes.conexoes());
+            List<SseSubscriber> assinantes = abrirConexoes(eventos, conectadas, recebidos, desconectadas, falhasConexao);
+            if (!conectadas.await(Math.max(60, opcoes.conexoes() / Math.max(1, opcoes.rampaPorSegundo()) * 3L), TimeUnit.SECONDS)) {
+                log("Aviso: nem todas as conexões receberam INIT a tempo");
+            }
+            Thread.sleep(2000);
+            JsonNode conectado = api.stats();
+            long abertas = conectado.path("connections").asLong();
+
+            log("Carga: %ds com %d conexões", opcoes.duracao().toSeconds(), abertas);
+            List<Carga> sobCarga = cargas();
+            dirigir(opcoes.duracao(), sobCarga);
+            Thread.sleep(5000); // deixa as filas drenarem
+            JsonNode depois = api.stats();
+            JsonNode threads = diagnosticoThreads();
+
+            relatorio(baseline, sobCarga, eventos, recebidos.get(), abertas, desconectadas.get(), falhasConexao.get(),
+                    antes, conectado, depois, threads);
+            assinantes.forEach(SseSubscriber::encerrar);
+        } finally {
+            try { api.deletarBoard(boardId); } catch (Exception e) { log("Falha ao remover a board de teste: %s", e.getMessage()); }
+        }
+    }
+
+    /** Alterações sempre; leituras e logins só na carga mista. A primeira é sempre a de alterações. */
+    private List<Carga> cargas() {
+        List<Carga> cargas = new ArrayList<>();
+        cargas.add(new Carga("alterações", opcoes.mutacoesPorSegundo(), this::alterar));
+        if (opcoes.leiturasPorSegundo() > 0) {
+            cargas.add(new Carga("leituras", opcoes.leiturasPorSegundo(), () -> api.listarTarefas(boardId)));
+        }
+        if (opcoes.loginsPorSegundo() > 0) {
+            cargas.add(new Carga("logins", opcoes.loginsPorSegundo(), () -> api.loginAvulso(opcoes.email(), opcoes.senha())));
+        }
+        return cargas;
+    }
+
+    private JsonNode diagnosticoThreads() {
+        try {
+            return api.diagnosticoThreads();
+        } catch (Exception e) {
+            return null; // servidor sem o endpoint de diagnóstico
+        }
+    }
+
+    private void preparar() throws Exception {
+        api.login(opcoes.email(), opcoes.senha());
+        boardId = api.criarBoard("loadtest " + Instant.now());
+        colunaId = api.primeiraColuna(boardId);
+        for (int i = 0; i < opcoes.tarefas(); i++) {
+            tarefas.add(api.criarTarefa(boardId, colunaId, "Tarefa de carga " + i));
+        }
+        log("Board %d com %d tarefas", boardId, tarefas.size());
+    }
+
+    private List<SseSubscriber> abrirConexoes(LatencyHistogram eventos, CountDownLatch conectadas, AtomicLong recebidos,
+                                             AtomicLong desconectadas, AtomicLong falhas) throws InterruptedException {
+        log("Abrindo %d conexões (%d/s)", opcoes.conexoes(), opcoes.rampaPorSegundo());
+        List<SseSubscriber> assinantes = new ArrayList<>(opcoes.conexoes());
+        long intervaloNanos = 1_000_000_000L / Math.max(1, opcoes.rampaPorSegundo());
+        long proxima = System.nanoTime();
+        for (int i = 0; i < opcoes.conexoes(); i++) {
+            SseSubscriber s = new SseSubscriber(http, api.stream(boardId, opcoes.snapshot()), eventos, conectadas,
+                    recebidos, desconectadas, falhas);
+            assinantes.add(s);
+            Thread.ofVirtual().name("sse-" + i).start(s);
+            proxima += intervaloNanos;
+            long espera = proxima - System.nanoTime();
+            if (espera > 0) TimeUnit.NANOSECONDS.sleep(espera);
+        }
+        return assinantes;
+    }
+
+    /**
+     * Dispara as cargas em malha aberta: cada requisição sai no seu horário, independente das
+     * anteriores, e a latência conta a partir do horário previsto (sem omissão coordenada).
+     */
+    private void dirigir(Duration duracao, List<Carga> cargas) throws InterruptedException {
+        ScheduledExecutorService relogio = Executors.newScheduledThreadPool(cargas.size());
+        long inicio = System.nanoTime();
+        for (Carga carga : cargas) {
+            if (carga.porSegundo() <= 0) continue;
+            long periodoNanos = 1_000_000_000L / carga.porSegundo();
+            AtomicLong disparadas = new AtomicLong();
+            relogio.scheduleAtFixedRate(() -> {
+                long previsto = inicio + disparadas.getAndIncrement() * periodoNanos;
+                Thread.ofVirtual().start(() -> medir(carga, previsto));
+            }, 0, periodoNanos, TimeUnit.NANOSECONDS);
+        }
+        Thread.sleep(duracao.toMillis());
+        relogio.shutdownNow();
+        Thread.sleep(1000); // requisições em voo
+    }
+
+    private static void medir(Carga carga, long previstoNanos) {
+        try {
+            carga.operacao().executar();
+            carga.latencias().registrar((System.nanoTime() - previstoNanos) / 1_000);
+            carga.concluidas().incrementAndGet();
+        } catch (Exception e) {
+            carga.falhas().incrementAndGet();
+        }
+    }
+
+    private void alterar() throws Exception {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        String titulo = SseSubscriber.MARCADOR + agoraMicros();
+        if (rnd.nextDouble() < opcoes.fracaoColunas()) {
+            api.renomearColuna(colunaId, titulo);
+        } else {
+            api.atualizarTarefa(tarefas.get(rnd.nextInt(tarefas.size())), titulo);
+        }
+    }
+
+    private void relatorio(List<Carga> baseline, List<Carga> sobCarga, LatencyHistogram eventos, long recebidos,
+                           long abertas, long desconectadas, long falhasConexao,
+                           JsonNode antes, JsonNode conectado, JsonNode depois, JsonNode threads) {
+        long heapAntes = antes.path("heapUsedBytes").asLong();
+        long heapConectado = conectado.path("heapUsedBytes").asLong();
+        long esperados = sobCarga.get(0).concluidas().get() * abertas;
+        System.out.println();
+        System.out.println("==== Resultado ====");
+        if (threads != null) {
+            System.out.printf("Virtual threads no servidor: %s%n", threads.path("virtualThreads").asBoolean());
+        }
+        System.out.printf("Conexões abertas no servidor: %d de %d (falhas ao conectar: %d)%n", abertas, opcoes.conexoes(), falhasConexao);
+        if (abertas > 0) {
+            System.out.printf("Heap do servidor por conexão: ~%.1f KB (%d MB -> %d MB; sem GC forçado, é aproximado)%n",
+                    (heapConectado - heapAntes) / 1024.0 / abertas, heapAntes >> 20, heapConectado >> 20);
+        }
+        System.out.printf("Latência ponta a ponta dos eventos: %s%n", eventos.resumo());
+        System.out.printf("Eventos recebidos: %d de ~%d esperados (%.1f%%; a coalescência pode juntar eventos)%n",
+                recebidos, esperados, esperados == 0 ? 0.0 : 100.0 * recebidos / esperados);
+        imprimir("sem conexões", baseline, opcoes.baseline());
+        imprimir("com conexões", sobCarga, opcoes.duracao());
+        System.out.printf("Conexões encerradas pelo servidor durante a carga: %d%n", desconectadas);
+        for (String campo : List.of("dropped", "evicted", "reaped", "sendFailures", "rejected", "filteredOut")) {
+            System.out.printf("  %-14s %d%n", campo, depois.path(campo).asLong() - antes.path(campo).asLong());
+        }
+        if (threads != null && threads.path("pinningMonitor").asBoolean()) {
+            System.out.printf("Pinning de virtual threads (> %d ms): %d eventos, %d ms no total%n",
+                    threads.path("thresholdMs").asLong(), threads.path("pinnedEvents").asLong(),
+                    threads.path("pinnedMillis").asLong());
+            threads.path("bySource").fields().forEachRemaining(e ->
+                    System.out.printf("  %6d  %s%n", e.getValue().asLong(), e.getKey()));
+        }
+    }
+
+    private static void imprimir(String fase, List<Carga> cargas, Duration duracao) {
+        for (Carga c : cargas) {
+            System.out.printf("Requisições %s - %s: %.1f/s %s (falhas: %d)%n", fase, c.nome(),
+                    c.concluidas().get() / (double) Math.max(1, duracao.toSeconds()), c.latencias().resumo(), c.falhas().get());
+        }
+    }
+
+    private static void log(String formato, Object... args) {
+        System.out.printf("[%s] %s%n", Instant.now(), String.format(formato, args));
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.orbitr.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Latência de {@code PATCH /tarefas/reordenar} em colunas de tamanhos diferentes (padrão 50, 500
+ * e 5000 cartões). Para cada tamanho cria uma board com uma coluna cheia, manda a coluna inteira
+ * embaralhada (o mesmo payload do frontend após um drag) várias vezes e mede cada chamada.
+ * <p>
+ * Para comparar implementações, rode contra cada versão do backend com os mesmos parâmetros.
+ * <p>
+ * Uso: {@code mvn -q compile exec:java -Dexec.mainClass=com.example.orbitr.loadtest.ReorderBenchmark
+ * -Dexec.args="--email=... --password=... --sizes=50,500,5000 --iterations=20"}
+ */
+public final class ReorderBenchmark {
+
+    private final OrbitrApi api;
+    private final int iteracoes;
+    private final int aquecimento;
+
+    private ReorderBenchmark(OrbitrApi api, int iteracoes, int aquecimento) {
+        this.api = api;
+        this.iteracoes = iteracoes;
+        this.aquecimento = aquecimento;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> a;
+        try {
+            a = LoadTestOptions.argumentos(args);
+            if (a.get("email") == null || a.get("password") == null) {
+                throw new IllegalArgumentException("--email e --password são obrigatórios");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Uso: --email=E --password=S [--base-url=http://localhost:8080]"
+                    + " [--sizes=50,500,5000] [--iterations=20] [--warmup=3]");
+            System.exit(2);
+            return;
+        }
+        HttpClient http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(30))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        OrbitrApi api = new OrbitrApi(http, URI.create(a.getOrDefault("base-url", "http://localhost:8080")));
+        api.login(a.get("email"), a.get("password"));
+        ReorderBenchmark bench = new ReorderBenchmark(api,
+                Integer.parseInt(a.getOrDefault("iterations", "20")),
+                Integer.parseInt(a.getOrDefault("warmup", "3")));
+        List<String> linhas = new ArrayList<>();
+        for (String tamanho : a.getOrDefault("sizes", "50,500,5000").split(",")) {
+            int n = Integer.parseInt(tamanho.trim());
+            linhas.add(String.format("%6d cartões: %s", n, bench.medir(n).resumo()));
+        }
+        System.out.println();
+        System.out.println("==== PATCH /tarefas/reordenar ====");
+        linhas.forEach(System.out::println);
+    }
+
+    private LatencyHistogram medir(int tamanho) throws Exception {
+        long boardId = api.criarBoard("reorder-bench-" + tamanho);
+        try {
+            long colunaId = api.primeiraColuna(boardId);
+            log("Criando %d tarefas na board %d", tamanho, boardId);
+            List<Long> ids = criarTarefas(boardId, colunaId, tamanho);
+            LatencyHistogram latencias = new LatencyHistogram();
+            for (int i = 0; i < aquecimento + iteracoes; i++) {
+                Collections.shuffle(ids);
+                List<Map<String, Object>> payload = new ArrayList<>(ids.size());
+                for (int pos = 0; pos < ids.size(); pos++) {
+                    Map<String, Object> item = new LinkedHashMap<>();
+                    item.put("id", ids.get(pos));
+                    item.put("posicao", pos + 1);
+                    item.put("status", "PENDENTE");
+                    item.put("columnId", colunaId);
+                    item.put("boardId", boardId);
+                    payload.add(item);
+                }
+                long inicio = System.nanoTime();
+                api.reordenar(payload);
+                if (i >= aquecimento) latencias.registrar((System.nanoTime() - inicio) / 1_000);
+            }
+            log("%d cartões: %s", tamanho, latencias.resumo());
+            return latencias;
+        } finally {
+            api.deletarBoard(boardId);
+        }
+    }
+
+    /** Cria as tarefas com até 32 requisições em paralelo. */
+    private List<Long> criarTarefas(long boardId, long colunaId, int n) throws Exception {
+        Semaphore vagas = new Semaphore(32);
+        List<Future<Long>> futuros = new ArrayList<>(n);
+        try (ExecutorService exec = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < n; i++) {
+                String titulo = "bench " + i;
+                futuros.add(exec.submit(() -> {
+                    vagas.acquire();
+                    try {
+                        return api.criarTarefa(boardId, colunaId, titulo);
+                    } finally {
+                        vagas.release();
+                    }
+                }));
+            }
+        }
+        List<Long> ids = new ArrayList<>(n);
+        for (Future<Long> f : futuros) ids.add(f.get());
+        return ids;
+    }
+
+    private static void log(String formato, Object... args) {
+        System.out.printf("[reorder] " + formato + "%n", args);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.orbitr.loadtest;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Uma conexão SSE rodando numa virtual thread. Cada linha "data:" é procurada pelo marcador
+ * {@code lt-<µs>} gravado pelas alterações; a diferença para o relógio local é a latência
+ * ponta a ponta (cliente e servidor na mesma máquina, mesmo relógio).
+ */
+final class SseSubscriber implements Runnable {
+
+    static final String MARCADOR = "lt-";
+
+    private final HttpClient http;
+    private final HttpRequest request;
+    private final LatencyHistogram latencias;
+    private final CountDownLatch conectadas;
+    private final AtomicLong eventos;
+    private final AtomicLong desconectadas;
+    private final AtomicLong falhas;
+    private volatile InputStream corpo;
+    private volatile boolean encerrando;
+
+    SseSubscriber(HttpClient http, HttpRequest request, LatencyHistogram latencias, CountDownLatch conectadas,
+                  AtomicLong eventos, AtomicLong desconectadas, AtomicLong falhas) {
+        this.http = http;
+        this.request = request;
+        this.latencias = latencias;
+        this.conectadas = conectadas;
+        this.eventos = eventos;
+        this.desconectadas = desconectadas;
+        this.falhas = falhas;
+    }
+
+    @Override
+    public void run() {
+        boolean init = false;
+        try {
+            HttpResponse<InputStream> resp = http.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            if (resp.statusCode() != 200) {
+                falhas.incrementAndGet();
+                resp.body().close();
+                return;
+            }
+            corpo = resp.body();
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(corpo, StandardCharsets.UTF_8))) {
+                String linha;
+                while ((linha = in.readLine()) != null) {
+                    if (!linha.startsWith("data:")) continue;
+                    if (!init && linha.contains("\"INIT\"")) {
+                        init = true;
+                        conectadas.countDown();
+                        continue;
+                    }
+                    medir(linha);
+                }
+            }
+            if (!encerrando) desconectadas.incrementAndGet(); // servidor fechou (ex.: despejo por fila cheia)
+        } catch (Exception e) {
+            if (!encerrando) {
+                if (init) desconectadas.incrementAndGet(); else falhas.incrementAndGet();
+            }
+        } finally {
+            if (!init) conectadas.countDown();
+        }
+    }
+
+    private void medir(String linha) {
+        long agora = RealtimeLoadTest.agoraMicros();
+        int i = linha.indexOf(MARCADOR);
+        while (i >= 0) {
+            int inicio = i + MARCADOR.length();
+            int fim = inicio;
+            while (fim < linha.length() && Character.isDigit(linha.charAt(fim))) fim++;
+            if (fim > inicio) {
+                latencias.registrar(agora - Long.parseLong(linha, inicio, fim, 10));
+                eventos.incrementAndGet();
+            }
+            i = linha.indexOf(MARCADOR, fim);
+        }
+    }
+
+    void encerrar() {
+        encerrando = true;
+        InputStream c = corpo;
+        if (c != null) {
+            try { c.close(); } catch (Exception ignored) {}
+        }
+    }
+}